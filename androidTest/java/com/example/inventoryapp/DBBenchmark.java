@@ -0,0 +1,229 @@
+package com.example.inventoryapp;
+
+import android.content.ContentValues;
+import android.content.Context;
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteStatement;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+
+// DBBenchmark measures DBHelper throughput on scratch databases so the real data is never touched.
+// It lives with the instrumented tests, out of the app: DBBenchmarkTest runs it on a device and
+// the results are read from logcat.
+final class DBBenchmark {
+    private static final String TAG = "DBBenchmark";
+    private static final String BENCHMARK_DATABASE = "benchmark.db";
+
+    private DBBenchmark() {
+    }
+
+    // Time the same single-row insert four ways, changing one factor per step so each one's
+    // effect is measured on its own: the pre-cache path (rollback journal with the default FULL
+    // sync, a connection opened and closed per write, ContentValues), then WAL with NORMAL sync,
+    // then one reused connection, then a reused compiled statement. Logs ops/sec and each step's
+    // speed-up; returns the overall factor.
+    static double runWriteBenchmark(Context context, int operations) {
+        double legacy = timeInserts(context, operations, false, false, false);
+        double wal = timeInserts(context, operations, true, false, false);
+        double reused = timeInserts(context, operations, true, true, false);
+        double compiled = timeInserts(context, operations, true, true, true);
+        Log.i(TAG, String.format("insert x%d: legacy %.0f ops/sec, +WAL %.0f (%.1fx), " +
+                        "+connection reuse %.0f (%.1fx), +compiled statement %.0f (%.1fx), overall %.1fx",
+                operations, legacy, wal, wal / legacy, reused, reused / wal, compiled, compiled / reused,
+                compiled / legacy));
+        return compiled / legacy;
+    }
+
+    // Insert operations rows into a fresh scratch database and return ops/sec. Each write is
+    // its own transaction, like addInventoryItem's callers see.
+    private static double timeInserts(Context context, int operations, boolean writeAheadLogging,
+                                      boolean reuseConnection, boolean compiledStatement) {
+        context.deleteDatabase(BENCHMARK_DATABASE);
+        DBHelper helper = writeAheadLogging ? new DBHelper(context, BENCHMARK_DATABASE, true)
+                : new LegacyDBHelper(context, BENCHMARK_DATABASE);
+        // Open (and create) the database outside the timed loop
+        SQLiteDatabase db = helper.getWritableDatabase();
+        // A compiled statement belongs to one connection, so it only applies when that is reused
+        SQLiteStatement insert = null;
+        if (reuseConnection && compiledStatement) {
+            insert = db.compileStatement("INSERT INTO " + DBHelper.TABLE_INVENTORY + "(" +
+                    DBHelper.COLUMN_ITEM_NAME + ", " + DBHelper.COLUMN_QUANTITY + ") VALUES (?, ?)");
+        }
+        if (!reuseConnection) {
+            db.close();
+        }
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < operations; i++) {
+            if (!reuseConnection) {
+                db = helper.getWritableDatabase();
+            }
+            if (insert != null) {
+                insert.bindString(1, "Item " + i);
+                insert.bindLong(2, i);
+                insert.executeInsert();
+            } else {
+                ContentValues values = new ContentValues();
+                values.put(DBHelper.COLUMN_ITEM_NAME, "Item " + i);
+                values.put(DBHelper.COLUMN_QUANTITY, i);
+                db.insert(DBHelper.TABLE_INVENTORY, null, values);
+            }
+            if (!reuseConnection) {
+                db.close();
+            }
+        }
+        double result = opsPerSecond(operations, SystemClock.elapsedRealtimeNanos() - start);
+        if (insert != null) {
+            insert.close();
+        }
+        helper.close();
+        context.deleteDatabase(BENCHMARK_DATABASE);
+        return result;
+    }
+
+    // Time duplicate-name checks at growing catalog sizes with the old LOWER() scan and the
+    // NOCASE index. The indexed cost should stay roughly flat as the table grows.
+    static void runDuplicateCheckBenchmark(Context context, int lookups) {
+        int[] catalogSizes = {1_000, 10_000, 100_000, 200_000};
+        for (int catalogSize : catalogSizes) {
+            context.deleteDatabase(BENCHMARK_DATABASE);
+            DBHelper helper = new DBHelper(context, BENCHMARK_DATABASE, true);
+            populate(helper, catalogSize);
+            SQLiteDatabase db = helper.getReadableDatabase();
+
+            long start = SystemClock.elapsedRealtimeNanos();
+            for (int i = 0; i < lookups; i++) {
+                Cursor cursor = db.rawQuery("SELECT * FROM " + DBHelper.TABLE_INVENTORY + " WHERE LOWER(" +
+                        DBHelper.COLUMN_ITEM_NAME + ") = LOWER(?)", new String[]{lookupName(i, catalogSize)});
+                cursor.moveToFirst();
+                cursor.close();
+            }
+            long scanNanos = (SystemClock.elapsedRealtimeNanos() - start) / lookups;
+
+            start = SystemClock.elapsedRealtimeNanos();
+            for (int i = 0; i < lookups; i++) {
+                Cursor cursor = helper.getInventoryItemByName(lookupName(i, catalogSize));
+                cursor.moveToFirst();
+                cursor.close();
+            }
+            long indexedNanos = (SystemClock.elapsedRealtimeNanos() - start) / lookups;
+
+            helper.close();
+            Log.i(TAG, String.format("duplicate check @%d items: LOWER() scan %d us, NOCASE index %d us",
+                    catalogSize, scanNanos / 1000, indexedNanos / 1000));
+        }
+        context.deleteDatabase(BENCHMARK_DATABASE);
+    }
+
+    // Time ranked prefix searches against a catalog of catalogSize items.
+    static void runSearchBenchmark(Context context, int catalogSize, int searches) {
+        context.deleteDatabase(BENCHMARK_DATABASE);
+        DBHelper helper = new DBHelper(context, BENCHMARK_DATABASE, true);
+        populate(helper, catalogSize);
+        String[] queries = {"item 4", "ITEM 12", "item 9999", "it", "item 31415"};
+        long start = SystemClock.elapsedRealtimeNanos();
+        for (int i = 0; i < searches; i++) {
+            Cursor cursor = helper.searchInventoryItems(queries[i % queries.length], 20);
+            while (cursor.moveToNext()) {
+                cursor.getString(1);
+            }
+            cursor.close();
+        }
+        long perSearchNanos = (SystemClock.elapsedRealtimeNanos() - start) / searches;
+        helper.close();
+        context.deleteDatabase(BENCHMARK_DATABASE);
+        Log.i(TAG, String.format("search @%d items: %.2f ms per query", catalogSize, perSearchNanos / 1e6));
+    }
+
+    // Time a snapshot backup and a restore of it at catalogSize items (1,000,000 is the target
+    // size), against a CSV export of the same rows for scale. Logs and returns rows/sec and the
+    // file sizes. The scratch database and files are removed even if a step fails.
+    static String runBackupBenchmark(Context context, int catalogSize) throws IOException {
+        context.deleteDatabase(BENCHMARK_DATABASE);
+        DBHelper helper = new DBHelper(context, BENCHMARK_DATABASE, true);
+        File snapshot = new File(context.getCacheDir(), "benchmark.snapshot");
+        File csv = null;
+        try {
+            populate(helper, catalogSize);
+
+            long start = SystemClock.elapsedRealtimeNanos();
+            long size;
+            try (InventoryBackup.Writer writer = new InventoryBackup.Writer(snapshot)) {
+                helper.writeBackup(writer);
+                size = writer.commit();
+            }
+            double backup = opsPerSecond(catalogSize, SystemClock.elapsedRealtimeNanos() - start);
+
+            start = SystemClock.elapsedRealtimeNanos();
+            csv = new InventoryExporter().export(SQLiteRowSources.inventory(helper),
+                    InventoryExporter.Format.CSV, false, context.getCacheDir());
+            double export = opsPerSecond(catalogSize, SystemClock.elapsedRealtimeNanos() - start);
+
+            start = SystemClock.elapsedRealtimeNanos();
+            try (InventoryBackup.Reader reader = InventoryBackup.Reader.open(snapshot)) {
+                helper.restoreBackup(reader);
+            }
+            double restore = opsPerSecond(catalogSize, SystemClock.elapsedRealtimeNanos() - start);
+
+            String result = String.format("backup @%d items: snapshot %.0f rows/sec (%d KB), restore %.0f " +
+                    "rows/sec, CSV export %.0f rows/sec (%d KB)", catalogSize, backup, size / 1024, restore,
+                    export, csv.length() / 1024);
+            Log.i(TAG, result);
+            return result;
+        } finally {
+            helper.close();
+            context.deleteDatabase(BENCHMARK_DATABASE);
+            snapshot.delete();
+            if (csv != null) {
+                csv.delete();
+            }
+        }
+    }
+
+    // Fill a scratch database with count items named "Item 0".."Item n" in one transaction.
+    static void populate(DBHelper helper, int count) {
+        SQLiteDatabase db = helper.getWritableDatabase();
+        SQLiteStatement insert = db.compileStatement("INSERT INTO " + DBHelper.TABLE_INVENTORY + "(" +
+                DBHelper.COLUMN_ITEM_NAME + ", " + DBHelper.COLUMN_QUANTITY + ") VALUES (?, ?)");
+        db.beginTransaction();
+        try {
+            for (int i = 0; i < count; i++) {
+                insert.bindString(1, "Item " + i);
+                insert.bindLong(2, i % 100);
+                insert.executeInsert();
+            }
+            db.setTransactionSuccessful();
+        } finally {
+            db.endTransaction();
+            insert.close();
+        }
+    }
+
+    // The helper as it was before WAL: DBHelper.onConfigure now relaxes every connection to
+    // synchronous = NORMAL, which only WAL makes safe, so this puts back SQLite's default FULL sync
+    // on each connection it opens. With WAL off the journal stays in the platform's default
+    // rollback mode, as it was.
+    private static final class LegacyDBHelper extends DBHelper {
+        LegacyDBHelper(Context context, String databaseName) {
+            super(context, databaseName, false);
+        }
+
+        @Override
+        public void onConfigure(SQLiteDatabase db) {
+            super.onConfigure(db);
+            db.execSQL("PRAGMA synchronous = FULL");
+        }
+    }
+
+    // Spread lookups over the catalog and vary the case so NOCASE matching is exercised.
+    private static String lookupName(int i, int catalogSize) {
+        return (i % 2 == 0 ? "ITEM " : "item ") + (int) ((i * 7919L) % catalogSize);
+    }
+
+    private static double opsPerSecond(int operations, long elapsedNanos) {
+        return operations * 1_000_000_000.0 / Math.max(1, elapsedNanos);
+    }
+}
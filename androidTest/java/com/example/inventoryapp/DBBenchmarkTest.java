@@ -0,0 +1,42 @@
+package com.example.inventoryapp;
+
+import android.content.Context;
+
+import androidx.test.ext.junit.runners.AndroidJUnit4;
+import androidx.test.platform.app.InstrumentationRegistry;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertTrue;
+
+// Runs the DBBenchmark suites on a device against scratch databases; the numbers go to logcat.
+// The backup run builds a million-row catalog and takes minutes, so run this class on its own.
+@RunWith(AndroidJUnit4.class)
+public class DBBenchmarkTest {
+    private static final int BACKUP_ITEMS = 1_000_000;
+
+    private final Context context = InstrumentationRegistry.getInstrumentation().getTargetContext();
+
+    @Test
+    public void writeBenchmark() {
+        assertTrue(DBBenchmark.runWriteBenchmark(context, 2_000) > 0);
+    }
+
+    @Test
+    public void duplicateCheckBenchmark() {
+        DBBenchmark.runDuplicateCheckBenchmark(context, 500);
+    }
+
+    @Test
+    public void searchBenchmark() {
+        DBBenchmark.runSearchBenchmark(context, 100_000, 200);
+    }
+
+    @Test
+    public void backupBenchmark() throws IOException {
+        assertTrue(DBBenchmark.runBackupBenchmark(context, BACKUP_ITEMS).startsWith("backup @"));
+    }
+}
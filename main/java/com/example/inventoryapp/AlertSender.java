@@ -0,0 +1,6 @@
+package com.example.inventoryapp;
+
+// AlertSender delivers one low-stock alert message. Called on the alert dispatcher thread.
+public interface AlertSender {
+    void send(String message) throws Exception;
+}
@@ -0,0 +1,242 @@
+package com.example.inventoryapp;
+
+import android.database.sqlite.SQLiteConstraintException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.List;
+
+// CsvImporter streams a supplier catalog (item_name,quantity per line) into the inventory table.
+// Lines are parsed one at a time and written in fixed-size batches, each submitted to the
+// InventoryWriter and committed before the next is read, so memory use does not depend on the
+// file size and other writes interleave with the import. Names that already exist (case-insensitively)
+// get the quantity added, like "Update Existing" in the duplicate dialog; new names are inserted.
+// A row the database refuses fails alone: its batch is written again row by row without it.
+// Row errors reach the listener in batches, alongside progress, not one call per bad line.
+public class CsvImporter {
+    static final int BATCH_SIZE = 500;
+    static final String IMPORT_REASON = "import";
+
+    // Called on the importing thread.
+    public interface Listener {
+        void onProgress(int linesRead, int inserted, int updated);
+
+        // Rows skipped since the last call, in line order
+        void onRowErrors(List<RowError> errors);
+    }
+
+    public static class RowError {
+        public final int lineNumber;
+        public final String message;
+
+        RowError(int lineNumber, String message) {
+            this.lineNumber = lineNumber;
+            this.message = message;
+        }
+    }
+
+    // Totals for a finished import
+    public static class Result {
+        public final int linesRead;
+        public final int inserted;
+        public final int updated;
+        public final int errors;
+
+        Result(int linesRead, int inserted, int updated, int errors) {
+            this.linesRead = linesRead;
+            this.inserted = inserted;
+            this.updated = updated;
+            this.errors = errors;
+        }
+    }
+
+    private final DBHelper dbHelper;
+    private final InventoryWriter writer;
+
+    public CsvImporter(DBHelper dbHelper, InventoryWriter writer) {
+        this.dbHelper = dbHelper;
+        this.writer = writer;
+    }
+
+    public Result importCsv(Reader source, Listener listener) throws IOException {
+        BufferedReader reader = new BufferedReader(source, 64 * 1024);
+        String[] names = new String[BATCH_SIZE];
+        int[] quantities = new int[BATCH_SIZE];
+        int[] lines = new int[BATCH_SIZE];
+        ArrayList<String> fields = new ArrayList<>(4);
+        ArrayList<RowError> rowErrors = new ArrayList<>();
+        int batchSize = 0;
+        int lineNumber = 0;
+        int inserted = 0;
+        int updated = 0;
+        int errors = 0;
+        try {
+            while (true) {
+                fields.clear();
+                int linesConsumed = readRecord(reader, fields);
+                if (linesConsumed == 0) {
+                    break;
+                }
+                lineNumber += linesConsumed;
+                if (fields.size() == 1 && fields.get(0).trim().isEmpty()) {
+                    continue;
+                }
+                String error = null;
+                String name = fields.get(0).trim();
+                int quantity = 0;
+                if (fields.size() < 2) {
+                    error = "Expected item_name,quantity";
+                } else if (name.isEmpty()) {
+                    error = "Item name is empty";
+                } else {
+                    try {
+                        quantity = Integer.parseInt(fields.get(1).trim());
+                    } catch (NumberFormatException e) {
+                        if (lineNumber == linesConsumed) {
+                            // A non-numeric quantity on the first line is a header row
+                            continue;
+                        }
+                        error = "Quantity must be a number";
+                    }
+                }
+                if (error != null) {
+                    errors++;
+                    rowErrors.add(new RowError(lineNumber, error));
+                    if (rowErrors.size() == BATCH_SIZE) {
+                        reportErrors(listener, rowErrors);
+                    }
+                    continue;
+                }
+                names[batchSize] = name;
+                quantities[batchSize] = quantity;
+                lines[batchSize] = lineNumber;
+                batchSize++;
+                if (batchSize == BATCH_SIZE) {
+                    int[] counts = upsertBatch(names, quantities, lines, batchSize, rowErrors);
+                    inserted += counts[0];
+                    updated += counts[1];
+                    errors += counts[2];
+                    batchSize = 0;
+                    reportErrors(listener, rowErrors);
+                    listener.onProgress(lineNumber, inserted, updated);
+                }
+            }
+            if (batchSize > 0) {
+                int[] counts = upsertBatch(names, quantities, lines, batchSize, rowErrors);
+                inserted += counts[0];
+                updated += counts[1];
+                errors += counts[2];
+            }
+            reportErrors(listener, rowErrors);
+            listener.onProgress(lineNumber, inserted, updated);
+        } finally {
+            // Batches already committed stay, so listeners must refresh even after a failure
+            if (inserted + updated > 0) {
+                dbHelper.notifyBulkChange();
+            }
+        }
+        return new Result(lineNumber, inserted, updated, errors);
+    }
+
+    private static void reportErrors(Listener listener, ArrayList<RowError> rowErrors) {
+        if (!rowErrors.isEmpty()) {
+            listener.onRowErrors(new ArrayList<>(rowErrors));
+            rowErrors.clear();
+        }
+    }
+
+    // Write one batch. If the database refuses a row the batch rolls back, so it is written
+    // again one row per write and only the refused rows are skipped, each added to
+    // rowErrors. Returns {inserted, updated, rows skipped}.
+    private int[] upsertBatch(String[] names, int[] quantities, int[] lines, int count,
+                              ArrayList<RowError> rowErrors) throws InterruptedIOException {
+        long start = InventoryMetrics.start();
+        try {
+            int[] counts = upsert(names, quantities, count);
+            return new int[]{counts[0], counts[1], 0};
+        } catch (SQLiteConstraintException batchFailure) {
+            int[] totals = new int[3];
+            for (int i = 0; i < count; i++) {
+                try {
+                    int[] counts = upsert(new String[]{names[i]}, new int[]{quantities[i]}, 1);
+                    totals[0] += counts[0];
+                    totals[1] += counts[1];
+                } catch (SQLiteConstraintException e) {
+                    totals[2]++;
+                    rowErrors.add(new RowError(lines[i], "Rejected by the database: " + e.getMessage()));
+                }
+            }
+            return totals;
+        } finally {
+            InventoryMetrics.stop(InventoryMetrics.IMPORT_BATCH, start);
+            InventoryMetrics.addRows(InventoryMetrics.IMPORT_BATCH, count);
+        }
+    }
+
+    // Upsert rows as one write on the writer and wait for it to commit.
+    private int[] upsert(final String[] names, final int[] quantities, final int count)
+            throws InterruptedIOException {
+        try {
+            return writer.submitAndWait(() -> dbHelper.upsertItemsByName(names, quantities, count, IMPORT_REASON,
+                    false));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("CSV import interrupted");
+        }
+    }
+
+    // Read one CSV record (RFC 4180 quoting, which may span lines) into fields.
+    // Returns the number of physical lines consumed, or 0 at end of input.
+    static int readRecord(BufferedReader reader, ArrayList<String> fields) throws IOException {
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int lines = 0;
+        int c = reader.read();
+        if (c == -1) {
+            return 0;
+        }
+        while (true) {
+            if (c == -1) {
+                fields.add(field.toString());
+                return lines + 1;
+            }
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        reader.reset();
+                    }
+                } else {
+                    if (c == '\n') {
+                        lines++;
+                    }
+                    field.append((char) c);
+                }
+            } else if (c == '"' && field.length() == 0) {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n' || c == '\r') {
+                if (c == '\r') {
+                    reader.mark(1);
+                    if (reader.read() != '\n') {
+                        reader.reset();
+                    }
+                }
+                fields.add(field.toString());
+                return lines + 1;
+            } else {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+    }
+}
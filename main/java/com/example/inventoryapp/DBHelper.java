@@ -1,21 +1,48 @@
 package com.example.inventoryapp;
 
-import android.content.ContentValues;
 import android.content.Context;
 import android.database.Cursor;
+import android.database.DatabaseUtils;
+import android.database.SQLException;
+import android.database.sqlite.SQLiteConstraintException;
 import android.database.sqlite.SQLiteDatabase;
+import android.database.sqlite.SQLiteDoneException;
 import android.database.sqlite.SQLiteOpenHelper;
+import android.database.sqlite.SQLiteStatement;
+import android.os.Build;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 // DBHelper manages creation and version management of our database.
 public class DBHelper extends SQLiteOpenHelper {
+    private static final String TAG = "DBHelper";
 
     // Database name and version
     private static final String DATABASE_NAME = "MyAppDatabase.db";
-    private static final int DATABASE_VERSION = 1;
+    private static final int DATABASE_VERSION = 10;
 
     // Table names
     public static final String TABLE_USERS = "users";
     public static final String TABLE_INVENTORY = "inventory";
+    public static final String TABLE_INVENTORY_FTS = "inventory_fts";
+    public static final String TABLE_STOCK_MOVEMENTS = "stock_movements";
+    public static final String TABLE_STOCK_SNAPSHOTS = "stock_snapshots";
+    public static final String TABLE_INVENTORY_SUMMARY = "inventory_summary";
+    public static final String TABLE_INVENTORY_TOMBSTONES = "inventory_tombstones";
+    public static final String TABLE_SYNC_STATE = "sync_state";
+    public static final String TABLE_INVENTORY_ARCHIVE = "inventory_archive";
+    public static final String TABLE_INVENTORY_ARCHIVE_FTS = "inventory_archive_fts";
+    public static final String TABLE_LOW_STOCK_ALERTS = "low_stock_alerts";
 
     // Columns for Users table
     public static final String COLUMN_USER_ID = "id";
@@ -26,12 +53,271 @@ public class DBHelper extends SQLiteOpenHelper {
     public static final String COLUMN_ITEM_ID = "id";
     public static final String COLUMN_ITEM_NAME = "item_name";
     public static final String COLUMN_QUANTITY = "quantity";
+    public static final String COLUMN_REORDER_THRESHOLD = "reorder_threshold";
+    // External code (barcode or supplier SKU); unique when set, NULL for items without one
+    public static final String COLUMN_SKU = "sku";
+    // Sync bookkeeping, maintained by triggers: a random id naming the item on every device, the
+    // local change counter value of its last edit (0 once it matches the server), and the
+    // quantity last agreed with the server
+    public static final String COLUMN_GLOBAL_ID = "global_id";
+    public static final String COLUMN_VERSION = "version";
+    public static final String COLUMN_SYNCED_QUANTITY = "synced_quantity";
+    // Time of the item's last edit in epoch millis, stamped by the same triggers
+    public static final String COLUMN_UPDATED_AT = "updated_at";
+
+    // Columns for the stock movement ledger and its compacted snapshots
+    public static final String COLUMN_MOVEMENT_ID = "id";
+    public static final String COLUMN_MOVEMENT_ITEM_ID = "item_id";
+    public static final String COLUMN_MOVEMENT_DELTA = "delta";
+    public static final String COLUMN_MOVEMENT_REASON = "reason";
+    public static final String COLUMN_MOVEMENT_CREATED_AT = "created_at";
+    public static final String COLUMN_SNAPSHOT_ITEM_ID = "item_id";
+    public static final String COLUMN_SNAPSHOT_NET_DELTA = "net_delta";
+    public static final String COLUMN_SNAPSHOT_MOVEMENT_COUNT = "movement_count";
+    public static final String COLUMN_SNAPSHOT_THROUGH_ID = "through_movement_id";
+
+    // Inventory summary table columns (a single row with id 1)
+    public static final String COLUMN_SUMMARY_ID = "id";
+    public static final String COLUMN_SUMMARY_SKU_COUNT = "sku_count";
+    public static final String COLUMN_SUMMARY_UNIT_COUNT = "unit_count";
+    public static final String COLUMN_SUMMARY_LOW_STOCK_COUNT = "low_stock_count";
+
+    // Tombstones record deleted items (by global id) until the delete has been pushed
+    public static final String COLUMN_TOMBSTONE_GLOBAL_ID = "global_id";
+    public static final String COLUMN_TOMBSTONE_VERSION = "version";
+
+    // Sync state table columns (a single row with id 1). change_version is the local change
+    // counter; pushed_through and pulled_through are the push and pull checkpoints; outbox holds
+    // an encoded push batch until the server has acknowledged it.
+    public static final String COLUMN_SYNC_ID = "id";
+    public static final String COLUMN_SYNC_DEVICE_ID = "device_id";
+    public static final String COLUMN_SYNC_CHANGE_VERSION = "change_version";
+    public static final String COLUMN_SYNC_PUSHED_THROUGH = "pushed_through";
+    public static final String COLUMN_SYNC_PULLED_THROUGH = "pulled_through";
+    public static final String COLUMN_SYNC_OUTBOX = "outbox";
+
+    // The archive table has the inventory columns (id, item_name, quantity, reorder_threshold,
+    // sku, global_id, synced_quantity, updated_at) plus the time the item was archived
+    public static final String COLUMN_ARCHIVED_AT = "archived_at";
+
+    // Low-stock alert table: one row per item alerted and not restocked since
+    public static final String COLUMN_ALERT_ITEM_ID = "item_id";
+
+    // Column list for inventory reads that only need the item fields
+    private static final String INVENTORY_COLUMNS = COLUMN_ITEM_ID + ", " + COLUMN_ITEM_NAME + ", " + COLUMN_QUANTITY +
+            ", " + COLUMN_REORDER_THRESHOLD;
+
+    // Items kept in the id-keyed cache; several windows' worth of grid rows
+    private static final int ITEM_CACHE_CAPACITY = 1024;
+
+    // Matches the partial index idx_inventory_low_stock; queries must repeat it verbatim to use it
+    private static final String LOW_STOCK_CONDITION = COLUMN_QUANTITY + " <= " + COLUMN_REORDER_THRESHOLD;
+
+    // SQL expression for a fresh random 128-bit id in hex
+    private static final String RANDOM_ID = "lower(hex(randomblob(16)))";
+    // SQL expression for the current time in epoch millis
+    private static final String NOW_MILLIS = "CAST((julianday('now') - 2440587.5) * 86400000 AS INTEGER)";
+
+    // Columns moved between the inventory and its archive, in the same order in both tables
+    private static final String ARCHIVED_COLUMNS = INVENTORY_COLUMNS + ", " + COLUMN_SKU + ", " + COLUMN_GLOBAL_ID +
+            ", " + COLUMN_SYNCED_QUANTITY + ", " + COLUMN_UPDATED_AT;
+
+    // Local changes not yet pushed, oldest first: live rows changed since the push checkpoint,
+    // plus tombstones, in the column order SyncClient reads
+    private static final String SQL_UNPUSHED_CHANGES = "SELECT " + COLUMN_GLOBAL_ID + ", 0, " + COLUMN_ITEM_NAME +
+            ", " + COLUMN_QUANTITY + ", " + COLUMN_SYNCED_QUANTITY + ", " + COLUMN_REORDER_THRESHOLD + ", " +
+            COLUMN_SKU + ", " + COLUMN_VERSION + " FROM " + TABLE_INVENTORY + " WHERE " + COLUMN_VERSION + " > ?" +
+            " UNION ALL SELECT " + COLUMN_TOMBSTONE_GLOBAL_ID + ", 1, NULL, 0, 0, 0, NULL, " + COLUMN_TOMBSTONE_VERSION +
+            " FROM " + TABLE_INVENTORY_TOMBSTONES + " WHERE " + COLUMN_TOMBSTONE_VERSION + " > ?" +
+            " ORDER BY " + COLUMN_VERSION + " LIMIT ?";
+
+    // Snapshot reads go through keyset queries of this many rows
+    private static final int BACKUP_CHUNK_SIZE = 10_000;
+    private static final String SQL_BACKUP_ITEMS = "SELECT " + ARCHIVED_COLUMNS + " FROM " + TABLE_INVENTORY +
+            " WHERE " + COLUMN_ITEM_ID + " > ? ORDER BY " + COLUMN_ITEM_ID + " LIMIT " + BACKUP_CHUNK_SIZE;
+    private static final String SQL_BACKUP_USERS = "SELECT " + COLUMN_USER_ID + ", " + COLUMN_USERNAME + ", " +
+            COLUMN_PASSWORD + " FROM " + TABLE_USERS + " WHERE " + COLUMN_USER_ID + " > ? ORDER BY " +
+            COLUMN_USER_ID + " LIMIT " + BACKUP_CHUNK_SIZE;
+
+    // SKUs resolved per IN (...) query, well under SQLite's 999 bound-parameter limit
+    public static final int MAX_SKUS_PER_QUERY = 500;
+    // Ids per IN (...) list in bulk writes; the few other arguments still fit under 999
+    private static final int MAX_IDS_PER_STATEMENT = 500;
+
+    // Compiled statements for the CRUD paths, prepared once per connection
+    private static final String SQL_CHECK_USER = "SELECT COUNT(*) FROM " + TABLE_USERS +
+            " WHERE " + COLUMN_USERNAME + "=? AND " + COLUMN_PASSWORD + "=?";
+    private static final String SQL_INSERT_USER = "INSERT INTO " + TABLE_USERS + "(" +
+            COLUMN_USERNAME + ", " + COLUMN_PASSWORD + ") VALUES (?, ?)";
+    private static final String SQL_INSERT_ITEM = "INSERT INTO " + TABLE_INVENTORY + "(" +
+            COLUMN_ITEM_NAME + ", " + COLUMN_QUANTITY + ") VALUES (?, ?)";
+    private static final String SQL_UPDATE_ITEM = "UPDATE " + TABLE_INVENTORY + " SET " +
+            COLUMN_ITEM_NAME + "=?, " + COLUMN_QUANTITY + "=?, " + COLUMN_REORDER_THRESHOLD + "=? WHERE " +
+            COLUMN_ITEM_ID + "=?";
+    private static final String SQL_SET_SKU = "UPDATE " + TABLE_INVENTORY + " SET " + COLUMN_SKU + "=? WHERE " +
+            COLUMN_ITEM_ID + "=?";
+    private static final String SQL_DELETE_ITEM = "DELETE FROM " + TABLE_INVENTORY +
+            " WHERE " + COLUMN_ITEM_ID + "=?";
+    private static final String SQL_ADJUST_QUANTITY = "UPDATE " + TABLE_INVENTORY + " SET " +
+            COLUMN_QUANTITY + " = " + COLUMN_QUANTITY + " + ? WHERE " + COLUMN_ITEM_ID + "=?";
+    private static final String SQL_FIND_ITEM_BY_SKU = "SELECT " + COLUMN_ITEM_ID + " FROM " + TABLE_INVENTORY +
+            " WHERE " + COLUMN_SKU + " = ?";
+    private static final String SQL_FIND_ITEM_BY_NAME = "SELECT " + COLUMN_ITEM_ID + " FROM " + TABLE_INVENTORY +
+            " WHERE " + COLUMN_ITEM_NAME + " = ? COLLATE NOCASE ORDER BY " + COLUMN_ITEM_ID + " LIMIT 1";
+    private static final String SQL_INSERT_MOVEMENT = "INSERT INTO " + TABLE_STOCK_MOVEMENTS + "(" +
+            COLUMN_MOVEMENT_ITEM_ID + ", " + COLUMN_MOVEMENT_DELTA + ", " + COLUMN_MOVEMENT_REASON + ", " +
+            COLUMN_MOVEMENT_CREATED_AT + ") VALUES (?, ?, ?, ?)";
+    // Ledger rows for statements that set quantities rather than add to them: the completion
+    // takes the rows' ids, the delta and WHERE, and binds reason and time
+    private static final String MOVEMENTS_FROM_ITEMS = "INSERT INTO " + TABLE_STOCK_MOVEMENTS + "(" +
+            COLUMN_MOVEMENT_ITEM_ID + ", " + COLUMN_MOVEMENT_DELTA + ", " + COLUMN_MOVEMENT_REASON + ", " +
+            COLUMN_MOVEMENT_CREATED_AT + ") SELECT " + COLUMN_ITEM_ID + ", ";
+    // Binds new quantity, reason, time, id, new quantity; run before the UPDATE it describes
+    private static final String SQL_RECORD_SET_QUANTITY = MOVEMENTS_FROM_ITEMS + "? - IFNULL(" + COLUMN_QUANTITY +
+            ", 0), ?, ? FROM " + TABLE_INVENTORY + " WHERE " + COLUMN_ITEM_ID + " = ? AND IFNULL(" + COLUMN_QUANTITY +
+            ", 0) <> ?";
+
+    // Ledger reasons for quantity changes that are not an adjustment
+    static final String REASON_ADD = "add";
+    static final String REASON_EDIT = "edit";
+    static final String REASON_SET = "set";
+    static final String REASON_SYNC = "sync";
+
+    // Notified, on the writing thread, after a write changes an inventory row
+    public interface InventoryChangeListener {
+        void onInventoryChanged(InventoryChange change);
+    }
+
+    // One helper (and so one connection pool) for the whole process
+    private static DBHelper instance;
+
+    private final HashMap<String, SQLiteStatement> statementCache = new HashMap<>();
+    // Held for every write and write transaction. SQLite allows one writer at a time anyway; taking
+    // this first keeps compiled-statement bindings safe and avoids lock-order deadlocks with transactions.
+    private final Object writeLock = new Object();
+    private final CopyOnWriteArrayList<InventoryChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private final ItemCache itemCache = new ItemCache(ITEM_CACHE_CAPACITY);
+    // Where the database file is copied before an upgrade touches it, or null for no copy
+    private final File upgradeCopyDirectory;
+    // Guarded by writeLock. Non-null while runInTransaction runs; change events raised by its
+    // writes wait here until the commit.
+    private ArrayList<InventoryChange> deferredChanges;
+
+    // Open the database, creating or migrating it if needed, and compile the statements the
+    // first screens use, so the first real query pays for neither. Called once at startup.
+    public void warmUp() {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.STARTUP_WARM_UP);
+        getWritableDatabase();
+        compiled(SQL_CHECK_USER);
+        compiled(SQL_INSERT_ITEM);
+        compiled(SQL_UPDATE_ITEM);
+        compiled(SQL_ADJUST_QUANTITY);
+        compiled(SQL_FIND_ITEM_BY_NAME);
+    }
+
+    // Run several writes as one transaction under the write lock, so they share a single commit.
+    // Change events they raise are delivered after the commit, or dropped if writes throws and
+    // the transaction rolls back. Every write method here marks its own nested transaction
+    // successful unless it throws, so a write that changes nothing never rolls back the others.
+    public void runInTransaction(Runnable writes) {
+        SQLiteDatabase db = getWritableDatabase();
+        ArrayList<InventoryChange> committed;
+        synchronized (writeLock) {
+            deferredChanges = new ArrayList<>();
+            db.beginTransaction();
+            try {
+                writes.run();
+                db.setTransactionSuccessful();
+                committed = deferredChanges;
+            } finally {
+                deferredChanges = null;
+                db.endTransaction();
+            }
+        }
+        for (InventoryChange change : committed) {
+            notifyChange(change);
+        }
+    }
+
+    // Return the process-wide helper. The database stays open for the life of the process.
+    public static synchronized DBHelper getInstance(Context context) {
+        if (instance == null) {
+            Context application = context.getApplicationContext();
+            instance = new DBHelper(application, DATABASE_NAME, true, application.getNoBackupFilesDir());
+        }
+        return instance;
+    }
+
+    // Package-private so benchmarks can open scratch databases with or without WAL.
+    DBHelper(Context context, String databaseName, boolean writeAheadLogging) {
+        this(context, databaseName, writeAheadLogging, null);
+    }
+
+    private DBHelper(Context context, String databaseName, boolean writeAheadLogging, File upgradeCopyDirectory) {
+        super(context, databaseName, null, DATABASE_VERSION);
+        this.upgradeCopyDirectory = upgradeCopyDirectory;
+        setWriteAheadLoggingEnabled(writeAheadLogging);
+    }
+
+    // Called before onCreate/onUpgrade every time a connection is opened
+    @Override
+    public void onConfigure(SQLiteDatabase db) {
+        super.onConfigure(db);
+        // WAL keeps readers and the writer from blocking each other; NORMAL sync drops the per-commit fsync without risking corruption
+        db.execSQL("PRAGMA synchronous = NORMAL");
+        int version = db.getVersion();
+        if (upgradeCopyDirectory != null && version > 0 && version < DATABASE_VERSION) {
+            copyBeforeUpgrade(db, version);
+        }
+    }
 
-    public DBHelper(Context context) {
-        super(context, DATABASE_NAME, null, DATABASE_VERSION);
+    // Copy the database file aside as <name>.v<version> before onUpgrade migrates it, so a
+    // migration that mangles rows can be undone by hand. Only the latest copy is kept. A failed
+    // copy is logged and the upgrade goes ahead: refusing to open the database would be worse.
+    private void copyBeforeUpgrade(SQLiteDatabase db, int version) {
+        File database = new File(db.getPath());
+        String prefix = database.getName() + ".v";
+        File copy = new File(upgradeCopyDirectory, prefix + version);
+        File temporary = new File(upgradeCopyDirectory, prefix + version + ".tmp");
+        try {
+            // Fold the WAL into the main file, so the file alone holds every committed row
+            Cursor checkpoint = db.rawQuery("PRAGMA wal_checkpoint(TRUNCATE)", null);
+            try {
+                checkpoint.moveToFirst();
+            } finally {
+                checkpoint.close();
+            }
+            try (FileChannel source = new FileInputStream(database).getChannel();
+                 FileOutputStream output = new FileOutputStream(temporary)) {
+                FileChannel target = output.getChannel();
+                long size = source.size();
+                for (long copied = 0; copied < size; ) {
+                    copied += source.transferTo(copied, size - copied, target);
+                }
+                target.force(true);
+            }
+            if (!temporary.renameTo(copy)) {
+                throw new IOException("Could not rename " + temporary);
+            }
+        } catch (IOException | SQLException e) {
+            Log.e(TAG, "Could not copy the database before upgrading from version " + version, e);
+            temporary.delete();
+            return;
+        }
+        File[] older = upgradeCopyDirectory.listFiles();
+        if (older != null) {
+            for (File file : older) {
+                if (file.getName().startsWith(prefix) && !file.equals(copy)) {
+                    file.delete();
+                }
+            }
+        }
+        Log.i(TAG, "Copied the version " + version + " database to " + copy);
     }
 
-    // Called when database is created for the first time
+    // Called when database is created for the first time.
+    // Builds the version 1 schema and then runs every migration, so new installs and upgraded
+    // installs always end up with the same schema.
     @Override
     public void onCreate(SQLiteDatabase db) {
         // Create Users table
@@ -47,71 +333,1035 @@ public class DBHelper extends SQLiteOpenHelper {
                 COLUMN_ITEM_NAME + " TEXT," +
                 COLUMN_QUANTITY + " INTEGER" + ")";
         db.execSQL(CREATE_INVENTORY_TABLE);
+
+        onUpgrade(db, 1, DATABASE_VERSION);
     }
 
-    // Called when database needs to be upgraded
+    // Called when database needs to be upgraded. Each step migrates one version forward
+    // in place and keeps existing rows; SQLiteOpenHelper runs this inside a transaction.
     @Override
     public void onUpgrade(SQLiteDatabase db, int oldVersion, int newVersion) {
-        // Drop old tables and recreate
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_USERS);
-        db.execSQL("DROP TABLE IF EXISTS " + TABLE_INVENTORY);
-        onCreate(db);
+        if (oldVersion < 2) {
+            // Index names case-insensitively so duplicate checks don't scan the table
+            db.execSQL("CREATE INDEX IF NOT EXISTS idx_inventory_name_nocase ON " + TABLE_INVENTORY +
+                    "(" + COLUMN_ITEM_NAME + " COLLATE NOCASE)");
+        }
+        if (oldVersion < 3) {
+            createFullTextIndex(db, TABLE_INVENTORY, TABLE_INVENTORY_FTS);
+        }
+        if (oldVersion < 4) {
+            // Append-only ledger of quantity adjustments, plus per-item totals of compacted history
+            db.execSQL("CREATE TABLE " + TABLE_STOCK_MOVEMENTS + "(" +
+                    COLUMN_MOVEMENT_ID + " INTEGER PRIMARY KEY AUTOINCREMENT," +
+                    COLUMN_MOVEMENT_ITEM_ID + " INTEGER NOT NULL," +
+                    COLUMN_MOVEMENT_DELTA + " INTEGER NOT NULL," +
+                    COLUMN_MOVEMENT_REASON + " TEXT," +
+                    COLUMN_MOVEMENT_CREATED_AT + " INTEGER NOT NULL" + ")");
+            db.execSQL("CREATE INDEX idx_stock_movements_item ON " + TABLE_STOCK_MOVEMENTS +
+                    "(" + COLUMN_MOVEMENT_ITEM_ID + ")");
+            db.execSQL("CREATE INDEX idx_stock_movements_created ON " + TABLE_STOCK_MOVEMENTS +
+                    "(" + COLUMN_MOVEMENT_CREATED_AT + ")");
+            db.execSQL("CREATE TABLE " + TABLE_STOCK_SNAPSHOTS + "(" +
+                    COLUMN_SNAPSHOT_ITEM_ID + " INTEGER PRIMARY KEY," +
+                    COLUMN_SNAPSHOT_NET_DELTA + " INTEGER NOT NULL," +
+                    COLUMN_SNAPSHOT_MOVEMENT_COUNT + " INTEGER NOT NULL," +
+                    COLUMN_SNAPSHOT_THROUGH_ID + " INTEGER NOT NULL" + ")");
+        }
+        if (oldVersion < 5) {
+            createInventorySummary(db);
+        }
+        if (oldVersion < 6) {
+            // Per-item reorder point; existing rows get the default, which keeps them low exactly
+            // when they were low under the old fixed threshold
+            db.execSQL("ALTER TABLE " + TABLE_INVENTORY + " ADD COLUMN " + COLUMN_REORDER_THRESHOLD +
+                    " INTEGER NOT NULL DEFAULT " + InventoryStore.DEFAULT_REORDER_THRESHOLD);
+            // Partial index holding only the low rows, so a low-stock scan costs O(low items)
+            db.execSQL("CREATE INDEX idx_inventory_low_stock ON " + TABLE_INVENTORY + "(" + COLUMN_ITEM_ID +
+                    ") WHERE " + LOW_STOCK_CONDITION);
+            createInventorySummaryTriggers(db);
+        }
+        if (oldVersion < 7) {
+            // ADD COLUMN cannot carry UNIQUE, so uniqueness comes from the index. NULLs don't
+            // collide, so existing rows need no code.
+            db.execSQL("ALTER TABLE " + TABLE_INVENTORY + " ADD COLUMN " + COLUMN_SKU + " TEXT");
+            db.execSQL("CREATE UNIQUE INDEX idx_inventory_sku ON " + TABLE_INVENTORY + "(" + COLUMN_SKU + ")");
+        }
+        if (oldVersion < 8) {
+            // Change tracking for delta sync. Existing rows get global ids and count as changed,
+            // so the first sync pushes everything.
+            db.execSQL("ALTER TABLE " + TABLE_INVENTORY + " ADD COLUMN " + COLUMN_GLOBAL_ID + " TEXT");
+            db.execSQL("ALTER TABLE " + TABLE_INVENTORY + " ADD COLUMN " + COLUMN_VERSION +
+                    " INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE " + TABLE_INVENTORY + " ADD COLUMN " + COLUMN_SYNCED_QUANTITY +
+                    " INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("UPDATE " + TABLE_INVENTORY + " SET " + COLUMN_GLOBAL_ID + " = " + RANDOM_ID + ", " +
+                    COLUMN_VERSION + " = " + COLUMN_ITEM_ID);
+            db.execSQL("CREATE UNIQUE INDEX idx_inventory_global_id ON " + TABLE_INVENTORY + "(" + COLUMN_GLOBAL_ID + ")");
+            db.execSQL("CREATE INDEX idx_inventory_version ON " + TABLE_INVENTORY + "(" + COLUMN_VERSION + ")");
+            db.execSQL("CREATE TABLE " + TABLE_INVENTORY_TOMBSTONES + "(" +
+                    COLUMN_TOMBSTONE_GLOBAL_ID + " TEXT PRIMARY KEY," +
+                    COLUMN_TOMBSTONE_VERSION + " INTEGER NOT NULL" + ")");
+            db.execSQL("CREATE INDEX idx_inventory_tombstones_version ON " + TABLE_INVENTORY_TOMBSTONES +
+                    "(" + COLUMN_TOMBSTONE_VERSION + ")");
+            db.execSQL("CREATE TABLE " + TABLE_SYNC_STATE + "(" +
+                    COLUMN_SYNC_ID + " INTEGER PRIMARY KEY CHECK (" + COLUMN_SYNC_ID + " = 1)," +
+                    COLUMN_SYNC_DEVICE_ID + " TEXT NOT NULL," +
+                    COLUMN_SYNC_CHANGE_VERSION + " INTEGER NOT NULL," +
+                    COLUMN_SYNC_PUSHED_THROUGH + " INTEGER NOT NULL," +
+                    COLUMN_SYNC_PULLED_THROUGH + " INTEGER NOT NULL," +
+                    COLUMN_SYNC_OUTBOX + " BLOB" + ")");
+            db.execSQL("INSERT INTO " + TABLE_SYNC_STATE + " SELECT 1, " + RANDOM_ID + ", IFNULL(MAX(" +
+                    COLUMN_VERSION + "), 0), 0, 0, NULL FROM " + TABLE_INVENTORY);
+            createSyncTriggers(db, false);
+        }
+        if (oldVersion < 9) {
+            // Edit times, so items nobody has touched in a long time can be archived. Existing
+            // rows count as edited now rather than at the epoch, so the upgrade archives nothing.
+            db.execSQL("ALTER TABLE " + TABLE_INVENTORY + " ADD COLUMN " + COLUMN_UPDATED_AT +
+                    " INTEGER NOT NULL DEFAULT 0");
+            db.execSQL("UPDATE " + TABLE_INVENTORY + " SET " + COLUMN_UPDATED_AT + " = " + NOW_MILLIS);
+            db.execSQL("CREATE INDEX idx_inventory_updated_at ON " + TABLE_INVENTORY + "(" + COLUMN_UPDATED_AT + ")");
+            createSyncTriggers(db, true);
+            // Cold tier for discontinued items, searchable through its own full-text index.
+            // Items keep their id, which AUTOINCREMENT never hands out again, so restoring one
+            // cannot collide with a newer item.
+            db.execSQL("CREATE TABLE " + TABLE_INVENTORY_ARCHIVE + "(" +
+                    COLUMN_ITEM_ID + " INTEGER PRIMARY KEY," +
+                    COLUMN_ITEM_NAME + " TEXT," +
+                    COLUMN_QUANTITY + " INTEGER," +
+                    COLUMN_REORDER_THRESHOLD + " INTEGER NOT NULL," +
+                    COLUMN_SKU + " TEXT," +
+                    COLUMN_GLOBAL_ID + " TEXT," +
+                    COLUMN_SYNCED_QUANTITY + " INTEGER NOT NULL," +
+                    COLUMN_UPDATED_AT + " INTEGER NOT NULL," +
+                    COLUMN_ARCHIVED_AT + " INTEGER NOT NULL" + ")");
+            db.execSQL("CREATE UNIQUE INDEX idx_inventory_archive_global_id ON " + TABLE_INVENTORY_ARCHIVE +
+                    "(" + COLUMN_GLOBAL_ID + ")");
+            createFullTextIndex(db, TABLE_INVENTORY_ARCHIVE, TABLE_INVENTORY_ARCHIVE_FTS);
+        }
+        if (oldVersion < 10) {
+            // Which items have had their low-stock alert, so a restart does not send them again
+            db.execSQL("CREATE TABLE " + TABLE_LOW_STOCK_ALERTS + "(" +
+                    COLUMN_ALERT_ITEM_ID + " INTEGER PRIMARY KEY" + ")");
+        }
+    }
+
+    // Stamp every insert, edit and delete with the next value of the change counter, so a push
+    // finds everything changed since its checkpoint through idx_inventory_version, and with
+    // stampEditTimes (from version 9, which added updated_at) inserts and edits with the time.
+    // Deletes leave a tombstone. Writes of the bookkeeping columns themselves don't count as
+    // changes. Replaces any older versions of the triggers.
+    private static void createSyncTriggers(SQLiteDatabase db, boolean stampEditTimes) {
+        db.execSQL("DROP TRIGGER IF EXISTS inventory_sync_after_insert");
+        db.execSQL("DROP TRIGGER IF EXISTS inventory_sync_after_update");
+        db.execSQL("DROP TRIGGER IF EXISTS inventory_sync_after_delete");
+        String nextVersion = "UPDATE " + TABLE_SYNC_STATE + " SET " + COLUMN_SYNC_CHANGE_VERSION + " = " +
+                COLUMN_SYNC_CHANGE_VERSION + " + 1 WHERE " + COLUMN_SYNC_ID + " = 1; ";
+        String version = "(SELECT " + COLUMN_SYNC_CHANGE_VERSION + " FROM " + TABLE_SYNC_STATE +
+                " WHERE " + COLUMN_SYNC_ID + " = 1)";
+        String editTime = stampEditTimes ? ", " + COLUMN_UPDATED_AT + " = " + NOW_MILLIS : "";
+        db.execSQL("CREATE TRIGGER inventory_sync_after_insert AFTER INSERT ON " + TABLE_INVENTORY +
+                " BEGIN " + nextVersion + "UPDATE " + TABLE_INVENTORY + " SET " + COLUMN_VERSION + " = " + version +
+                editTime + ", " + COLUMN_GLOBAL_ID + " = IFNULL(new." + COLUMN_GLOBAL_ID + ", " + RANDOM_ID + ") WHERE " +
+                COLUMN_ITEM_ID + " = new." + COLUMN_ITEM_ID + "; END");
+        db.execSQL("CREATE TRIGGER inventory_sync_after_update AFTER UPDATE OF " + COLUMN_ITEM_NAME + ", " +
+                COLUMN_QUANTITY + ", " + COLUMN_REORDER_THRESHOLD + ", " + COLUMN_SKU + " ON " + TABLE_INVENTORY +
+                " BEGIN " + nextVersion + "UPDATE " + TABLE_INVENTORY + " SET " + COLUMN_VERSION + " = " + version +
+                editTime + " WHERE " + COLUMN_ITEM_ID + " = new." + COLUMN_ITEM_ID + "; END");
+        db.execSQL("CREATE TRIGGER inventory_sync_after_delete AFTER DELETE ON " + TABLE_INVENTORY +
+                " BEGIN " + nextVersion + "INSERT OR REPLACE INTO " + TABLE_INVENTORY_TOMBSTONES + "(" +
+                COLUMN_TOMBSTONE_GLOBAL_ID + ", " + COLUMN_TOMBSTONE_VERSION + ") VALUES (old." +
+                COLUMN_GLOBAL_ID + ", " + version + "); END");
+    }
+
+    // One-row table of SKU, unit and low-stock totals, kept current by triggers in the same
+    // transaction as each write, so reading the totals never scans the inventory.
+    // This is the version 5 step as released, when low meant "quantity < 5"; the version 6 step
+    // replaces its triggers with per-item thresholds.
+    private static void createInventorySummary(SQLiteDatabase db) {
+        db.execSQL("CREATE TABLE " + TABLE_INVENTORY_SUMMARY + "(" +
+                COLUMN_SUMMARY_ID + " INTEGER PRIMARY KEY CHECK (" + COLUMN_SUMMARY_ID + " = 1)," +
+                COLUMN_SUMMARY_SKU_COUNT + " INTEGER NOT NULL," +
+                COLUMN_SUMMARY_UNIT_COUNT + " INTEGER NOT NULL," +
+                COLUMN_SUMMARY_LOW_STOCK_COUNT + " INTEGER NOT NULL" + ")");
+        db.execSQL("CREATE TRIGGER inventory_summary_after_insert AFTER INSERT ON " + TABLE_INVENTORY +
+                " BEGIN " + summaryDelta("+ 1", "+ " + units("new."), "+ " + wasLow("new.")) + " END");
+        db.execSQL("CREATE TRIGGER inventory_summary_after_delete AFTER DELETE ON " + TABLE_INVENTORY +
+                " BEGIN " + summaryDelta("- 1", "- " + units("old."), "- " + wasLow("old.")) + " END");
+        db.execSQL("CREATE TRIGGER inventory_summary_after_update AFTER UPDATE OF " + COLUMN_QUANTITY +
+                " ON " + TABLE_INVENTORY + " BEGIN " + summaryDelta(null,
+                "+ " + units("new.") + " - " + units("old."),
+                "+ " + wasLow("new.") + " - " + wasLow("old.")) + " END");
+        db.execSQL("INSERT OR REPLACE INTO " + TABLE_INVENTORY_SUMMARY + " SELECT 1, COUNT(*), IFNULL(SUM(" +
+                units("") + "), 0), IFNULL(SUM(" + wasLow("") + "), 0) FROM " + TABLE_INVENTORY);
+    }
+
+    // The fixed low-stock rule of version 5, before reorder thresholds existed
+    private static String wasLow(String row) {
+        return "IFNULL(" + row + COLUMN_QUANTITY + " < 5, 0)";
+    }
+
+    // Keep the summary row current from triggers in the same transaction as each write, so
+    // reading the totals never scans the inventory. Replaces any older triggers and re-seeds the row.
+    private static void createInventorySummaryTriggers(SQLiteDatabase db) {
+        db.execSQL("DROP TRIGGER IF EXISTS inventory_summary_after_insert");
+        db.execSQL("DROP TRIGGER IF EXISTS inventory_summary_after_delete");
+        db.execSQL("DROP TRIGGER IF EXISTS inventory_summary_after_update");
+        db.execSQL("CREATE TRIGGER inventory_summary_after_insert AFTER INSERT ON " + TABLE_INVENTORY +
+                " BEGIN " + summaryDelta("+ 1", "+ " + units("new."), "+ " + isLow("new.")) + " END");
+        db.execSQL("CREATE TRIGGER inventory_summary_after_delete AFTER DELETE ON " + TABLE_INVENTORY +
+                " BEGIN " + summaryDelta("- 1", "- " + units("old."), "- " + isLow("old.")) + " END");
+        db.execSQL("CREATE TRIGGER inventory_summary_after_update AFTER UPDATE OF " + COLUMN_QUANTITY + ", " +
+                COLUMN_REORDER_THRESHOLD + " ON " + TABLE_INVENTORY + " BEGIN " + summaryDelta(null,
+                "+ " + units("new.") + " - " + units("old."),
+                "+ " + isLow("new.") + " - " + isLow("old.")) + " END");
+        rebuildInventorySummary(db);
+    }
+
+    // Trigger body applying the given deltas to the summary row; a null skuDelta leaves the count alone.
+    private static String summaryDelta(String skuDelta, String unitDelta, String lowStockDelta) {
+        return "UPDATE " + TABLE_INVENTORY_SUMMARY + " SET " +
+                (skuDelta == null ? "" : COLUMN_SUMMARY_SKU_COUNT + " = " + COLUMN_SUMMARY_SKU_COUNT + " " + skuDelta + ", ") +
+                COLUMN_SUMMARY_UNIT_COUNT + " = " + COLUMN_SUMMARY_UNIT_COUNT + " " + unitDelta + ", " +
+                COLUMN_SUMMARY_LOW_STOCK_COUNT + " = " + COLUMN_SUMMARY_LOW_STOCK_COUNT + " " + lowStockDelta +
+                " WHERE " + COLUMN_SUMMARY_ID + " = 1;";
+    }
+
+    // Per-row terms shared by the triggers and the rebuild; row is "new.", "old." or "".
+    private static String units(String row) {
+        return "IFNULL(" + row + COLUMN_QUANTITY + ", 0)";
+    }
+
+    private static String isLow(String row) {
+        return "IFNULL(" + row + COLUMN_QUANTITY + " <= " + row + COLUMN_REORDER_THRESHOLD + ", 0)";
+    }
+
+    private static String summaryFromScratch() {
+        return "SELECT 1 AS " + COLUMN_SUMMARY_ID + ", COUNT(*) AS " + COLUMN_SUMMARY_SKU_COUNT +
+                ", IFNULL(SUM(" + units("") + "), 0) AS " + COLUMN_SUMMARY_UNIT_COUNT +
+                ", IFNULL(SUM(" + isLow("") + "), 0) AS " + COLUMN_SUMMARY_LOW_STOCK_COUNT + " FROM " + TABLE_INVENTORY;
+    }
+
+    private static void rebuildInventorySummary(SQLiteDatabase db) {
+        db.execSQL("INSERT OR REPLACE INTO " + TABLE_INVENTORY_SUMMARY + "(" + COLUMN_SUMMARY_ID + ", " +
+                COLUMN_SUMMARY_SKU_COUNT + ", " + COLUMN_SUMMARY_UNIT_COUNT + ", " +
+                COLUMN_SUMMARY_LOW_STOCK_COUNT + ") " + summaryFromScratch());
+    }
+
+    // Full-text index over the item names of table (the inventory or its archive). It is an
+    // external-content FTS4 table (docid = item id) kept in sync by triggers, so no write path has
+    // to maintain it by hand. Quantity-only updates don't fire the triggers.
+    private static void createFullTextIndex(SQLiteDatabase db, String table, String ftsTable) {
+        db.execSQL("CREATE VIRTUAL TABLE " + ftsTable + " USING fts4(content=\"" +
+                table + "\", " + COLUMN_ITEM_NAME + ")");
+        db.execSQL("CREATE TRIGGER " + ftsTable + "_before_update BEFORE UPDATE OF " + COLUMN_ITEM_NAME +
+                " ON " + table + " BEGIN DELETE FROM " + ftsTable +
+                " WHERE docid = old." + COLUMN_ITEM_ID + "; END");
+        db.execSQL("CREATE TRIGGER " + ftsTable + "_before_delete BEFORE DELETE ON " + table +
+                " BEGIN DELETE FROM " + ftsTable + " WHERE docid = old." + COLUMN_ITEM_ID + "; END");
+        db.execSQL("CREATE TRIGGER " + ftsTable + "_after_update AFTER UPDATE OF " + COLUMN_ITEM_NAME +
+                " ON " + table + " BEGIN INSERT INTO " + ftsTable + "(docid, " +
+                COLUMN_ITEM_NAME + ") VALUES (new." + COLUMN_ITEM_ID + ", new." + COLUMN_ITEM_NAME + "); END");
+        db.execSQL("CREATE TRIGGER " + ftsTable + "_after_insert AFTER INSERT ON " + table +
+                " BEGIN INSERT INTO " + ftsTable + "(docid, " + COLUMN_ITEM_NAME +
+                ") VALUES (new." + COLUMN_ITEM_ID + ", new." + COLUMN_ITEM_NAME + "); END");
+        // Index the rows that already exist
+        db.execSQL("INSERT INTO " + ftsTable + "(" + ftsTable + ") VALUES ('rebuild')");
     }
 
     // Check if a user with provided username and password exists
     public boolean checkUser(String username, String password) {
-        SQLiteDatabase db = this.getReadableDatabase();
-        String query = "SELECT * FROM " + TABLE_USERS + " WHERE " + COLUMN_USERNAME + "=? AND " + COLUMN_PASSWORD + "=?";
-        Cursor cursor = db.rawQuery(query, new String[] {username, password});
-        boolean exists = cursor.getCount() > 0;
-        cursor.close();
-        db.close();
-        return exists;
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.CHECK_USER);
+        SQLiteStatement statement = compiled(SQL_CHECK_USER);
+        synchronized (statement) {
+            statement.bindString(1, username);
+            statement.bindString(2, password);
+            boolean exists = statement.simpleQueryForLong() > 0;
+            statement.clearBindings();
+            return exists;
+        }
     }
 
     // Add a new user to the database
     public boolean addUser(String username, String password) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COLUMN_USERNAME, username);
-        values.put(COLUMN_PASSWORD, password);
-        long result = db.insert(TABLE_USERS, null, values);
-        db.close();
-        return result != -1;
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.ADD_USER);
+        SQLiteStatement statement = compiled(SQL_INSERT_USER);
+        synchronized (writeLock) {
+            statement.bindString(1, username);
+            statement.bindString(2, password);
+            long result = executeInsert(statement);
+            return result != -1;
+        }
     }
 
-    // Add an inventory item to the database
+    // Add an inventory item to the database; it starts with the default reorder threshold, and
+    // its opening quantity is the first entry of its ledger
     public long addInventoryItem(String itemName, int quantity) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COLUMN_ITEM_NAME, itemName);
-        values.put(COLUMN_QUANTITY, quantity);
-        long result = db.insert(TABLE_INVENTORY, null, values);
-        db.close();
-        return result;
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.ADD_ITEM);
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement statement = compiled(SQL_INSERT_ITEM);
+        synchronized (writeLock) {
+            long result;
+            db.beginTransaction();
+            try {
+                statement.bindString(1, itemName);
+                statement.bindLong(2, quantity);
+                result = executeInsert(statement);
+                if (result != -1 && quantity != 0) {
+                    recordMovement((int) result, quantity, REASON_ADD);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+            if (result != -1) {
+                notifyChange(new InventoryChange(InventoryChange.INSERTED, (int) result, itemName, quantity,
+                        InventoryStore.DEFAULT_REORDER_THRESHOLD));
+            }
+            return result;
+        }
     }
 
-    // Update an existing inventory item
-    public int updateInventoryItem(int id, String itemName, int quantity) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        ContentValues values = new ContentValues();
-        values.put(COLUMN_ITEM_NAME, itemName);
-        values.put(COLUMN_QUANTITY, quantity);
-        int result = db.update(TABLE_INVENTORY, values, COLUMN_ITEM_ID + "=?", new String[]{String.valueOf(id)});
-        db.close();
-        return result;
+    // Update an existing inventory item. A changed quantity goes into the ledger as the difference.
+    public int updateInventoryItem(int id, String itemName, int quantity, int reorderThreshold) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.UPDATE_ITEM);
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement record = compiled(SQL_RECORD_SET_QUANTITY);
+        SQLiteStatement statement = compiled(SQL_UPDATE_ITEM);
+        synchronized (writeLock) {
+            int result;
+            db.beginTransaction();
+            try {
+                record.bindLong(1, quantity);
+                record.bindString(2, REASON_EDIT);
+                record.bindLong(3, System.currentTimeMillis());
+                record.bindLong(4, id);
+                record.bindLong(5, quantity);
+                record.executeInsert();
+                statement.bindString(1, itemName);
+                statement.bindLong(2, quantity);
+                statement.bindLong(3, reorderThreshold);
+                statement.bindLong(4, id);
+                result = statement.executeUpdateDelete();
+                db.setTransactionSuccessful();
+            } finally {
+                record.clearBindings();
+                statement.clearBindings();
+                db.endTransaction();
+            }
+            if (result > 0) {
+                notifyChange(new InventoryChange(InventoryChange.UPDATED, id, itemName, quantity, reorderThreshold));
+            }
+            return result;
+        }
+    }
+
+    // Assign an item's SKU, or clear it with null or an empty string.
+    // Returns 1 on success, 0 if the id doesn't exist, or -1 if another item already has that SKU.
+    public int setInventoryItemSku(int id, String sku) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.UPDATE_ITEM);
+        SQLiteDatabase db = getWritableDatabase();
+        SQLiteStatement statement = compiled(SQL_SET_SKU);
+        synchronized (writeLock) {
+            int result;
+            try {
+                if (sku == null || sku.isEmpty()) {
+                    statement.bindNull(1);
+                } else {
+                    statement.bindString(1, sku);
+                }
+                statement.bindLong(2, id);
+                result = statement.executeUpdateDelete();
+            } catch (SQLiteConstraintException e) {
+                // idx_inventory_sku
+                return -1;
+            } finally {
+                statement.clearBindings();
+            }
+            // The row changed (its version and edit time too), so listeners hear of it like any edit
+            InventoryChange change = result > 0 ? readChange(db, id) : null;
+            if (change != null) {
+                notifyChange(change);
+            }
+            return result;
+        }
     }
 
     // Delete an inventory item
     public int deleteInventoryItem(int id) {
-        SQLiteDatabase db = this.getWritableDatabase();
-        int result = db.delete(TABLE_INVENTORY, COLUMN_ITEM_ID + "=?", new String[]{String.valueOf(id)});
-        db.close();
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.DELETE_ITEM);
+        SQLiteStatement statement = compiled(SQL_DELETE_ITEM);
+        synchronized (writeLock) {
+            statement.bindLong(1, id);
+            int result = statement.executeUpdateDelete();
+            statement.clearBindings();
+            if (result > 0) {
+                notifyChange(new InventoryChange(InventoryChange.DELETED, id, null, 0, 0));
+            }
+            return result;
+        }
+    }
+
+    // Add delta to an item's quantity in one atomic UPDATE and record it in the movement ledger.
+    // Both writes commit together, so concurrent adjustments can't lose updates.
+    // Returns the number of items changed (0 if the id doesn't exist).
+    public int adjustQuantity(int id, int delta, String reason) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.ADJUST_QUANTITY);
+        SQLiteDatabase db = getWritableDatabase();
+        InventoryChange change = null;
+        int result;
+        synchronized (writeLock) {
+            db.beginTransaction();
+            try {
+                SQLiteStatement adjust = compiled(SQL_ADJUST_QUANTITY);
+                adjust.bindLong(1, delta);
+                adjust.bindLong(2, id);
+                result = adjust.executeUpdateDelete();
+                adjust.clearBindings();
+                if (result > 0) {
+                    recordMovement(id, delta, reason);
+                    change = readChange(db, id);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+        if (change != null) {
+            notifyChange(change);
+        }
         return result;
     }
 
+    // Bulk edits of many items, e.g. a multi-select on the grid. Each call is one transaction
+    // over chunked IN (...) lists and ends with a single RELOADED event. Missing ids are
+    // skipped; ids must not repeat. Each returns the number of items changed.
+    public int deleteInventoryItems(int[] ids, int count) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.BULK_WRITE);
+        return writeInChunks(ids, count, null, null,
+                "DELETE FROM " + TABLE_INVENTORY + " WHERE " + COLUMN_ITEM_ID + " IN ", new Object[0]);
+    }
+
+    // Each item whose quantity changes gets a ledger row for the difference.
+    public int setQuantities(int[] ids, int count, int quantity) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.BULK_WRITE);
+        return writeInChunks(ids, count, MOVEMENTS_FROM_ITEMS + "? - IFNULL(" + COLUMN_QUANTITY + ", 0), ?, ? FROM " +
+                        TABLE_INVENTORY + " WHERE IFNULL(" + COLUMN_QUANTITY + ", 0) <> ? AND " + COLUMN_ITEM_ID + " IN ",
+                new Object[]{quantity, REASON_SET, System.currentTimeMillis(), quantity},
+                "UPDATE " + TABLE_INVENTORY + " SET " + COLUMN_QUANTITY + " = ? WHERE " + COLUMN_ITEM_ID + " IN ",
+                new Object[]{quantity});
+    }
+
+    // Like adjustQuantity for each id, ledger rows included, but in one transaction.
+    public int adjustQuantities(int[] ids, int count, int delta, String reason) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.BULK_WRITE);
+        return writeInChunks(ids, count, MOVEMENTS_FROM_ITEMS + "?, ?, ? FROM " + TABLE_INVENTORY + " WHERE " +
+                        COLUMN_ITEM_ID + " IN ", new Object[]{delta, reason, System.currentTimeMillis()},
+                "UPDATE " + TABLE_INVENTORY + " SET " + COLUMN_QUANTITY + " = " + COLUMN_QUANTITY +
+                        " + ? WHERE " + COLUMN_ITEM_ID + " IN ", new Object[]{delta});
+    }
+
+    // Run updateSql + "(?, ...)" for each chunk of ids, with updateArgs bound first. With
+    // movementSql, first record the chunk's ledger rows the same way, with movementArgs bound.
+    private int writeInChunks(int[] ids, int count, String movementSql, Object[] movementArgs, String updateSql,
+                              Object[] updateArgs) {
+        SQLiteDatabase db = getWritableDatabase();
+        int changed = 0;
+        synchronized (writeLock) {
+            db.beginTransaction();
+            try {
+                for (int from = 0; from < count; from += MAX_IDS_PER_STATEMENT) {
+                    int chunk = Math.min(MAX_IDS_PER_STATEMENT, count - from);
+                    if (movementSql != null) {
+                        executeForIds(db, movementSql, movementArgs, ids, from, chunk);
+                    }
+                    changed += executeForIds(db, updateSql, updateArgs, ids, from, chunk);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+        if (changed > 0) {
+            notifyBulkChange();
+        }
+        return changed;
+    }
+
+    // Compile sql + "(?, ...)" for this chunk, bind args then the ids, and run it once.
+    private static int executeForIds(SQLiteDatabase db, String sql, Object[] args, int[] ids, int from, int count) {
+        SQLiteStatement statement = db.compileStatement(sql + placeholders(count));
+        try {
+            int index = 1;
+            for (Object arg : args) {
+                if (arg == null) {
+                    statement.bindNull(index++);
+                } else if (arg instanceof String) {
+                    statement.bindString(index++, (String) arg);
+                } else {
+                    statement.bindLong(index++, ((Number) arg).longValue());
+                }
+            }
+            for (int i = 0; i < count; i++) {
+                statement.bindLong(index++, ids[from + i]);
+            }
+            return statement.executeUpdateDelete();
+        } finally {
+            statement.close();
+        }
+    }
+
+    // "(?, ?, ...)" with count parameters, for IN lists
+    private static String placeholders(int count) {
+        StringBuilder list = new StringBuilder(count * 3 + 2).append('(');
+        for (int i = 0; i < count; i++) {
+            list.append(i == 0 ? "?" : ", ?");
+        }
+        return list.append(')').toString();
+    }
+
+    // Upsert a batch of items by case-insensitive name in one transaction: quantities are added
+    // to the first existing item with that name (the "Update Existing" choice of the duplicate
+    // dialog, recorded in the ledger under reason), and unknown names are inserted. With
+    // matchSku, a name that is an item's SKU, as a scanned barcode is, adds to that item first.
+    // Emits no change events; call notifyBulkChange() once the whole bulk operation is done.
+    // Returns {inserted, updated}.
+    public int[] upsertItemsByName(String[] names, int[] quantities, int count, String reason, boolean matchSku) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.IMPORT_BATCH);
+        int inserted = 0;
+        int updated = 0;
+        int[] updatedIds = new int[count];
+        synchronized (writeLock) {
+            SQLiteDatabase db = getWritableDatabase();
+            SQLiteStatement findSku = compiled(SQL_FIND_ITEM_BY_SKU);
+            SQLiteStatement find = compiled(SQL_FIND_ITEM_BY_NAME);
+            SQLiteStatement adjust = compiled(SQL_ADJUST_QUANTITY);
+            SQLiteStatement insert = compiled(SQL_INSERT_ITEM);
+            db.beginTransaction();
+            try {
+                for (int i = 0; i < count; i++) {
+                    long existingId = -1;
+                    if (matchSku) {
+                        findSku.bindString(1, names[i]);
+                        existingId = findId(findSku);
+                    }
+                    if (existingId == -1) {
+                        find.bindString(1, names[i]);
+                        existingId = findId(find);
+                    }
+                    if (existingId != -1) {
+                        adjust.bindLong(1, quantities[i]);
+                        adjust.bindLong(2, existingId);
+                        adjust.executeUpdateDelete();
+                        recordMovement((int) existingId, quantities[i], reason);
+                        updatedIds[updated++] = (int) existingId;
+                    } else {
+                        insert.bindString(1, names[i]);
+                        insert.bindLong(2, quantities[i]);
+                        long id = insert.executeInsert();
+                        if (quantities[i] != 0) {
+                            recordMovement((int) id, quantities[i], reason);
+                        }
+                        inserted++;
+                    }
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                findSku.clearBindings();
+                find.clearBindings();
+                adjust.clearBindings();
+                insert.clearBindings();
+                db.endTransaction();
+                itemCache.invalidate(updatedIds, updated);
+            }
+        }
+        return new int[]{inserted, updated};
+    }
+
+    // Tell listeners that a bulk write changed an unknown set of rows.
+    public void notifyBulkChange() {
+        notifyChange(new InventoryChange(InventoryChange.RELOADED, 0, null, 0, 0));
+    }
+
+    // Replay an item's ledger: the compacted total plus every movement recorded since.
+    public long getStockLedgerBalance(int itemId) {
+        SQLiteDatabase db = getReadableDatabase();
+        String itemArg = String.valueOf(itemId);
+        return DatabaseUtils.longForQuery(db, "SELECT IFNULL((SELECT " + COLUMN_SNAPSHOT_NET_DELTA +
+                " FROM " + TABLE_STOCK_SNAPSHOTS + " WHERE " + COLUMN_SNAPSHOT_ITEM_ID + " = ?), 0) + " +
+                "IFNULL((SELECT SUM(" + COLUMN_MOVEMENT_DELTA + ") FROM " + TABLE_STOCK_MOVEMENTS +
+                " WHERE " + COLUMN_MOVEMENT_ITEM_ID + " = ?), 0)", new String[]{itemArg, itemArg});
+    }
+
+    // Fold movements older than cutoffMillis into per-item snapshot totals and delete them,
+    // keeping the ledger (and replay cost) proportional to recent activity.
+    // Returns the number of movements compacted.
+    public int compactStockLedger(long cutoffMillis) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.LEDGER_COMPACTION);
+        synchronized (writeLock) {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                long throughId = DatabaseUtils.longForQuery(db, "SELECT IFNULL(MAX(" + COLUMN_MOVEMENT_ID + "), 0) FROM " +
+                        TABLE_STOCK_MOVEMENTS + " WHERE " + COLUMN_MOVEMENT_CREATED_AT + " < ?",
+                        new String[]{String.valueOf(cutoffMillis)});
+                if (throughId == 0) {
+                    db.setTransactionSuccessful();
+                    return 0;
+                }
+                db.execSQL("INSERT OR REPLACE INTO " + TABLE_STOCK_SNAPSHOTS + "(" + COLUMN_SNAPSHOT_ITEM_ID + ", " +
+                        COLUMN_SNAPSHOT_NET_DELTA + ", " + COLUMN_SNAPSHOT_MOVEMENT_COUNT + ", " + COLUMN_SNAPSHOT_THROUGH_ID + ")" +
+                        " SELECT m." + COLUMN_MOVEMENT_ITEM_ID + ", IFNULL(s." + COLUMN_SNAPSHOT_NET_DELTA + ", 0) + SUM(m." +
+                        COLUMN_MOVEMENT_DELTA + "), IFNULL(s." + COLUMN_SNAPSHOT_MOVEMENT_COUNT + ", 0) + COUNT(*), ?" +
+                        " FROM " + TABLE_STOCK_MOVEMENTS + " m LEFT JOIN " + TABLE_STOCK_SNAPSHOTS + " s ON s." +
+                        COLUMN_SNAPSHOT_ITEM_ID + " = m." + COLUMN_MOVEMENT_ITEM_ID +
+                        " WHERE m." + COLUMN_MOVEMENT_ID + " <= ? GROUP BY m." + COLUMN_MOVEMENT_ITEM_ID,
+                        new Object[]{throughId, throughId});
+                SQLiteStatement delete = db.compileStatement("DELETE FROM " + TABLE_STOCK_MOVEMENTS +
+                        " WHERE " + COLUMN_MOVEMENT_ID + " <= ?");
+                int compacted;
+                try {
+                    delete.bindLong(1, throughId);
+                    compacted = delete.executeUpdateDelete();
+                } finally {
+                    delete.close();
+                }
+                db.setTransactionSuccessful();
+                return compacted;
+            } finally {
+                db.endTransaction();
+            }
+        }
+    }
+
+    // Move items out of the hot table into the archive: those at zero (or below) untouched since
+    // emptyBefore, and any untouched since idleBefore, both in epoch millis. On a device that has
+    // synced, items with unpushed changes stay until they are pushed; a device that never has
+    // synced has nothing to hold back, since every row counts as unpushed there. Each call moves
+    // one chunk of up to MAX_IDS_PER_STATEMENT items in one transaction and ends with a RELOADED
+    // event; the caller submits chunks to the writer one at a time until one comes back empty, so
+    // other writes interleave. Archiving is local: it leaves no tombstone. Returns the number of
+    // items this call archived.
+    public int archiveInactiveChunk(long emptyBefore, long idleBefore) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.ARCHIVE);
+        SQLiteDatabase db = getWritableDatabase();
+        int chunk;
+        synchronized (writeLock) {
+            db.beginTransaction();
+            try {
+                long pushedThrough = Long.MAX_VALUE;
+                Cursor state = db.rawQuery("SELECT " + COLUMN_SYNC_PUSHED_THROUGH + ", " + COLUMN_SYNC_PULLED_THROUGH +
+                        " FROM " + TABLE_SYNC_STATE + " WHERE " + COLUMN_SYNC_ID + " = 1", null);
+                try {
+                    if (state.moveToFirst() && (state.getLong(0) > 0 || state.getLong(1) > 0)) {
+                        pushedThrough = state.getLong(0);
+                    }
+                } finally {
+                    state.close();
+                }
+                int[] ids = readIds(db.rawQuery("SELECT " + COLUMN_ITEM_ID + " FROM " + TABLE_INVENTORY +
+                        " WHERE " + COLUMN_UPDATED_AT + " < ? AND (" + COLUMN_QUANTITY + " <= 0 OR " +
+                        COLUMN_UPDATED_AT + " < ?) AND " + COLUMN_VERSION + " <= ? LIMIT ?", new String[]{
+                        String.valueOf(Math.max(emptyBefore, idleBefore)), String.valueOf(idleBefore),
+                        String.valueOf(pushedThrough), String.valueOf(MAX_IDS_PER_STATEMENT)}));
+                chunk = ids.length;
+                if (chunk > 0) {
+                    long version = DatabaseUtils.longForQuery(db, "SELECT " + COLUMN_SYNC_CHANGE_VERSION +
+                            " FROM " + TABLE_SYNC_STATE + " WHERE " + COLUMN_SYNC_ID + " = 1", null);
+                    executeForIds(db, "INSERT INTO " + TABLE_INVENTORY_ARCHIVE + "(" + ARCHIVED_COLUMNS + ", " +
+                            COLUMN_ARCHIVED_AT + ") SELECT " + ARCHIVED_COLUMNS + ", ? FROM " + TABLE_INVENTORY +
+                            " WHERE " + COLUMN_ITEM_ID + " IN ", new Object[]{System.currentTimeMillis()}, ids, 0,
+                            chunk);
+                    executeForIds(db, "DELETE FROM " + TABLE_INVENTORY + " WHERE " + COLUMN_ITEM_ID + " IN ",
+                            new Object[0], ids, 0, chunk);
+                    // The delete trigger wrote tombstones, newer than version, but no other
+                    // device should delete these
+                    db.execSQL("DELETE FROM " + TABLE_INVENTORY_TOMBSTONES + " WHERE " + COLUMN_TOMBSTONE_VERSION +
+                            " > ?", new Object[]{version});
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+        if (chunk > 0) {
+            notifyBulkChange();
+        }
+        return chunk;
+    }
+
+    // Move an archived item back into the inventory with its id, values and global id. If a live
+    // item has taken its SKU meanwhile, it comes back without one.
+    // Returns 1 on success or 0 if no archived item has that id.
+    public int restoreArchivedItem(int id) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.RESTORE_ITEM);
+        SQLiteDatabase db = getWritableDatabase();
+        InventoryChange change = null;
+        synchronized (writeLock) {
+            db.beginTransaction();
+            try {
+                SQLiteStatement restore = db.compileStatement("INSERT INTO " + TABLE_INVENTORY + "(" +
+                        ARCHIVED_COLUMNS + ") SELECT " + INVENTORY_COLUMNS + ", CASE WHEN EXISTS (SELECT 1 FROM " +
+                        TABLE_INVENTORY + " live WHERE live." + COLUMN_SKU + " = a." + COLUMN_SKU +
+                        ") THEN NULL ELSE a." + COLUMN_SKU + " END, " + COLUMN_GLOBAL_ID + ", " +
+                        COLUMN_SYNCED_QUANTITY + ", " + COLUMN_UPDATED_AT + " FROM " + TABLE_INVENTORY_ARCHIVE +
+                        " a WHERE " + COLUMN_ITEM_ID + " = ?");
+                restore.bindLong(1, id);
+                int restored = restore.executeUpdateDelete();
+                restore.close();
+                if (restored > 0) {
+                    db.execSQL("DELETE FROM " + TABLE_INVENTORY_ARCHIVE + " WHERE " + COLUMN_ITEM_ID + " = ?",
+                            new Object[]{id});
+                    InventoryChange row = readChange(db, id);
+                    change = new InventoryChange(InventoryChange.INSERTED, id, row.name, row.quantity,
+                            row.reorderThreshold);
+                }
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+        if (change == null) {
+            return 0;
+        }
+        notifyChange(change);
+        return 1;
+    }
+
+    // Write every item and user to writer in id order, as one consistent state even though it is
+    // read in several queries. The reads share a read-only transaction, which under WAL sees the
+    // database as of its start and never blocks the writer. Releases before Android 15 cannot
+    // open one, so there writes are held off until the snapshot is written instead.
+    public void writeBackup(InventoryBackup.Writer writer) throws IOException {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.WRITE_BACKUP);
+        SQLiteDatabase db = getReadableDatabase();
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.VANILLA_ICE_CREAM) {
+            db.beginTransactionReadOnly();
+            try {
+                writeBackupRows(db, SQL_BACKUP_ITEMS, true, writer);
+                writeBackupRows(db, SQL_BACKUP_USERS, false, writer);
+            } finally {
+                db.endTransaction();
+            }
+            return;
+        }
+        synchronized (writeLock) {
+            writeBackupRows(db, SQL_BACKUP_ITEMS, true, writer);
+            writeBackupRows(db, SQL_BACKUP_USERS, false, writer);
+        }
+    }
+
+    // Page through the items or the users with sql, a keyset query taking the last id read.
+    private static void writeBackupRows(SQLiteDatabase db, String sql, boolean items, InventoryBackup.Writer writer)
+            throws IOException {
+        String afterId = "0";
+        int rows;
+        do {
+            Cursor cursor = db.rawQuery(sql, new String[]{afterId});
+            try {
+                rows = cursor.getCount();
+                while (cursor.moveToNext()) {
+                    if (items) {
+                        writer.item(cursor.getInt(0), cursor.getString(1), cursor.getInt(2), cursor.getInt(3),
+                                cursor.getString(4), cursor.getString(5), cursor.getInt(6), cursor.getLong(7));
+                    } else {
+                        writer.user(cursor.getInt(0), cursor.getString(1), cursor.getString(2));
+                    }
+                    afterId = cursor.getString(0);
+                }
+            } finally {
+                cursor.close();
+            }
+        } while (rows == BACKUP_CHUNK_SIZE);
+    }
+
+    // Replace every item and user with the rows of a snapshot in one transaction, returning the
+    // number of items restored. The inventory's triggers are dropped for the load and their work
+    // is done once at the end: the summary and full-text index are rebuilt, and every restored
+    // item gets one new change version, so the next sync pushes it. Quantities travel as deltas
+    // against the synced value, so each restored item is re-based on the newest synced value
+    // this device knows (its pre-restore row's, else the snapshot's); the push then moves the
+    // server to the restored quantity instead of a pull overwriting it. Items missing from the
+    // snapshot leave tombstones like any delete, and archived copies of restored items are
+    // dropped. The snapshot holds no ledger, so the ledger of every live item is replaced by one
+    // "restore" movement of its restored quantity; archived items keep theirs.
+    public int restoreBackup(InventoryBackup.Reader reader) throws IOException {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.RESTORE_BACKUP);
+        SQLiteDatabase db = getWritableDatabase();
+        int items = 0;
+        synchronized (writeLock) {
+            db.beginTransaction();
+            try {
+                // The sync, summary and full-text triggers; all three sets are created again below
+                Cursor triggers = db.rawQuery("SELECT name FROM sqlite_master WHERE type = 'trigger' AND tbl_name = ?",
+                        new String[]{TABLE_INVENTORY});
+                try {
+                    while (triggers.moveToNext()) {
+                        db.execSQL("DROP TRIGGER " + triggers.getString(0));
+                    }
+                } finally {
+                    triggers.close();
+                }
+                db.execSQL("DROP TABLE " + TABLE_INVENTORY_FTS);
+                db.execSQL("UPDATE " + TABLE_SYNC_STATE + " SET " + COLUMN_SYNC_CHANGE_VERSION + " = " +
+                        COLUMN_SYNC_CHANGE_VERSION + " + 1 WHERE " + COLUMN_SYNC_ID + " = 1");
+                long version = DatabaseUtils.longForQuery(db, "SELECT " + COLUMN_SYNC_CHANGE_VERSION +
+                        " FROM " + TABLE_SYNC_STATE + " WHERE " + COLUMN_SYNC_ID + " = 1", null);
+                db.execSQL("INSERT OR REPLACE INTO " + TABLE_INVENTORY_TOMBSTONES + "(" + COLUMN_TOMBSTONE_GLOBAL_ID +
+                        ", " + COLUMN_TOMBSTONE_VERSION + ") SELECT " + COLUMN_GLOBAL_ID + ", ? FROM " + TABLE_INVENTORY,
+                        new Object[]{version});
+                db.execSQL("CREATE TEMP TABLE restore_synced(" + COLUMN_GLOBAL_ID + " TEXT PRIMARY KEY, " +
+                        COLUMN_SYNCED_QUANTITY + " INTEGER NOT NULL)");
+                db.execSQL("INSERT INTO restore_synced SELECT " + COLUMN_GLOBAL_ID + ", " + COLUMN_SYNCED_QUANTITY +
+                        " FROM " + TABLE_INVENTORY + " WHERE " + COLUMN_GLOBAL_ID + " IS NOT NULL");
+                db.execSQL("DELETE FROM " + TABLE_INVENTORY);
+                db.execSQL("DELETE FROM " + TABLE_USERS);
+
+                SQLiteStatement insertItem = db.compileStatement("INSERT INTO " + TABLE_INVENTORY + "(" +
+                        ARCHIVED_COLUMNS + ", " + COLUMN_VERSION + ") VALUES (?, ?, ?, ?, ?, IFNULL(?, " + RANDOM_ID +
+                        "), ?, ?, ?)");
+                SQLiteStatement insertUser = db.compileStatement("INSERT INTO " + TABLE_USERS + "(" +
+                        COLUMN_USER_ID + ", " + COLUMN_USERNAME + ", " + COLUMN_PASSWORD + ") VALUES (?, ?, ?)");
+                try {
+                    int tag;
+                    while ((tag = reader.next()) != InventoryBackup.END) {
+                        if (tag == InventoryBackup.ITEM) {
+                            insertItem.bindLong(1, reader.id);
+                            bindText(insertItem, 2, reader.name);
+                            insertItem.bindLong(3, reader.quantity);
+                            insertItem.bindLong(4, reader.reorderThreshold);
+                            bindText(insertItem, 5, reader.sku);
+                            bindText(insertItem, 6, reader.globalId);
+                            insertItem.bindLong(7, reader.syncedQuantity);
+                            insertItem.bindLong(8, reader.updatedAt);
+                            insertItem.bindLong(9, version);
+                            insertItem.executeInsert();
+                            items++;
+                        } else {
+                            insertUser.bindLong(1, reader.id);
+                            bindText(insertUser, 2, reader.username);
+                            bindText(insertUser, 3, reader.password);
+                            insertUser.executeInsert();
+                        }
+                    }
+                } finally {
+                    insertItem.close();
+                    insertUser.close();
+                }
+
+                // Restored items are no longer deleted, nor archived
+                db.execSQL("DELETE FROM " + TABLE_INVENTORY_TOMBSTONES + " WHERE " + COLUMN_TOMBSTONE_GLOBAL_ID +
+                        " IN (SELECT " + COLUMN_GLOBAL_ID + " FROM " + TABLE_INVENTORY + ")");
+                db.execSQL("DELETE FROM " + TABLE_INVENTORY_ARCHIVE + " WHERE " + COLUMN_GLOBAL_ID +
+                        " IN (SELECT " + COLUMN_GLOBAL_ID + " FROM " + TABLE_INVENTORY + ")");
+                db.execSQL("UPDATE " + TABLE_INVENTORY + " SET " + COLUMN_SYNCED_QUANTITY + " = (SELECT s." +
+                        COLUMN_SYNCED_QUANTITY + " FROM restore_synced s WHERE s." + COLUMN_GLOBAL_ID + " = " +
+                        TABLE_INVENTORY + "." + COLUMN_GLOBAL_ID + ") WHERE " + COLUMN_GLOBAL_ID +
+                        " IN (SELECT " + COLUMN_GLOBAL_ID + " FROM restore_synced)");
+                db.execSQL("DROP TABLE restore_synced");
+                String notArchived = " WHERE " + COLUMN_MOVEMENT_ITEM_ID + " NOT IN (SELECT " + COLUMN_ITEM_ID +
+                        " FROM " + TABLE_INVENTORY_ARCHIVE + ")";
+                db.execSQL("DELETE FROM " + TABLE_STOCK_MOVEMENTS + notArchived);
+                db.execSQL("DELETE FROM " + TABLE_STOCK_SNAPSHOTS + notArchived);
+                db.execSQL("INSERT INTO " + TABLE_STOCK_MOVEMENTS + "(" + COLUMN_MOVEMENT_ITEM_ID + ", " +
+                        COLUMN_MOVEMENT_DELTA + ", " + COLUMN_MOVEMENT_REASON + ", " + COLUMN_MOVEMENT_CREATED_AT +
+                        ") SELECT " + COLUMN_ITEM_ID + ", IFNULL(" + COLUMN_QUANTITY + ", 0), 'restore', ? FROM " +
+                        TABLE_INVENTORY, new Object[]{System.currentTimeMillis()});
+                createSyncTriggers(db, true);
+                createInventorySummaryTriggers(db);
+                createFullTextIndex(db, TABLE_INVENTORY, TABLE_INVENTORY_FTS);
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+        notifyBulkChange();
+        return items;
+    }
+
+    // This device's sync id, sent with every push so the server can drop a batch it already applied.
+    public String getSyncDeviceId() {
+        return DatabaseUtils.stringForQuery(getReadableDatabase(), "SELECT " + COLUMN_SYNC_DEVICE_ID +
+                " FROM " + TABLE_SYNC_STATE + " WHERE " + COLUMN_SYNC_ID + " = 1", null);
+    }
+
+    // Server cursor of the last pull batch applied.
+    public long getSyncPulledThrough() {
+        return DatabaseUtils.longForQuery(getReadableDatabase(), "SELECT " + COLUMN_SYNC_PULLED_THROUGH +
+                " FROM " + TABLE_SYNC_STATE + " WHERE " + COLUMN_SYNC_ID + " = 1", null);
+    }
+
+    // The encoded push batch still waiting for the server's acknowledgement, or null.
+    public byte[] getSyncOutbox() {
+        Cursor cursor = getReadableDatabase().rawQuery("SELECT " + COLUMN_SYNC_OUTBOX + " FROM " +
+                TABLE_SYNC_STATE + " WHERE " + COLUMN_SYNC_ID + " = 1", null);
+        try {
+            return cursor.moveToFirst() && !cursor.isNull(0) ? cursor.getBlob(0) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Up to limit local changes made since the push checkpoint, oldest first. Columns are global
+    // id, deleted flag, name, quantity, synced quantity, reorder threshold, SKU and version.
+    public Cursor getUnpushedChanges(int limit) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.SYNC);
+        SQLiteDatabase db = getReadableDatabase();
+        String pushedThrough = String.valueOf(DatabaseUtils.longForQuery(db, "SELECT " +
+                COLUMN_SYNC_PUSHED_THROUGH + " FROM " + TABLE_SYNC_STATE + " WHERE " + COLUMN_SYNC_ID + " = 1", null));
+        return db.rawQuery(SQL_UNPUSHED_CHANGES, new String[]{pushedThrough, pushedThrough, String.valueOf(limit)});
+    }
+
+    // Store an encoded push batch before sending it, so a push whose answer is lost is resent
+    // byte for byte rather than rebuilt from rows that may have changed since.
+    public void setSyncOutbox(byte[] batch) {
+        synchronized (writeLock) {
+            SQLiteStatement statement = getWritableDatabase().compileStatement("UPDATE " + TABLE_SYNC_STATE +
+                    " SET " + COLUMN_SYNC_OUTBOX + " = ? WHERE " + COLUMN_SYNC_ID + " = 1");
+            try {
+                statement.bindBlob(1, batch);
+                statement.executeUpdateDelete();
+            } finally {
+                statement.close();
+            }
+        }
+    }
+
+    // The server has applied the outbox batch holding changes, which ran through local version
+    // through. Their quantities become the rows' agreed base, their tombstones are dropped, the
+    // push checkpoint moves to through and the outbox is cleared, all in one transaction.
+    public void markSyncPushed(List<SyncChange> changes, long through) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.SYNC);
+        SQLiteDatabase db = getWritableDatabase();
+        synchronized (writeLock) {
+            db.beginTransaction();
+            try {
+                SQLiteStatement synced = db.compileStatement("UPDATE " + TABLE_INVENTORY + " SET " +
+                        COLUMN_SYNCED_QUANTITY + " = ? WHERE " + COLUMN_GLOBAL_ID + " = ?");
+                try {
+                    for (SyncChange change : changes) {
+                        if (!change.deleted) {
+                            synced.bindLong(1, change.quantity);
+                            synced.bindString(2, change.globalId);
+                            synced.executeUpdateDelete();
+                        }
+                    }
+                } finally {
+                    synced.close();
+                }
+                db.execSQL("DELETE FROM " + TABLE_INVENTORY_TOMBSTONES + " WHERE " + COLUMN_TOMBSTONE_VERSION +
+                        " <= ?", new Object[]{through});
+                db.execSQL("UPDATE " + TABLE_SYNC_STATE + " SET " + COLUMN_SYNC_PUSHED_THROUGH + " = ?, " +
+                        COLUMN_SYNC_OUTBOX + " = NULL WHERE " + COLUMN_SYNC_ID + " = 1", new Object[]{through});
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+    }
+
+    // Apply a pulled batch and move the pull checkpoint to cursor, in one transaction. Rows with
+    // no unpushed local edits take the server's values. Rows with them keep their local name,
+    // threshold and SKU, which the next push sends, but rebase their quantity onto the server's:
+    // quantity = server quantity + (local quantity - synced quantity), so adjustments made on two
+    // devices at once add up instead of one overwriting the other. A server delete wins over
+    // local edits. Ends with one RELOADED event. Returns the number of rows changed.
+    public int applySyncChanges(List<SyncChange> changes, long cursor) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.SYNC);
+        SQLiteDatabase db = getWritableDatabase();
+        int changed = 0;
+        synchronized (writeLock) {
+            db.beginTransaction();
+            try {
+                long pushedThrough = DatabaseUtils.longForQuery(db, "SELECT " + COLUMN_SYNC_PUSHED_THROUGH +
+                        " FROM " + TABLE_SYNC_STATE + " WHERE " + COLUMN_SYNC_ID + " = 1", null);
+                for (SyncChange change : changes) {
+                    if (applySyncChange(db, change, pushedThrough)) {
+                        changed++;
+                    }
+                }
+                db.execSQL("UPDATE " + TABLE_SYNC_STATE + " SET " + COLUMN_SYNC_PULLED_THROUGH + " = ? WHERE " +
+                        COLUMN_SYNC_ID + " = 1", new Object[]{cursor});
+                db.setTransactionSuccessful();
+            } finally {
+                db.endTransaction();
+            }
+        }
+        if (changed > 0) {
+            notifyBulkChange();
+        }
+        return changed;
+    }
+
+    // Apply one server row; see applySyncChanges. Callers hold writeLock and the transaction.
+    private static boolean applySyncChange(SQLiteDatabase db, SyncChange change, long pushedThrough) {
+        String[] globalId = {change.globalId};
+        long id = -1;
+        int quantity = 0;
+        int syncedQuantity = 0;
+        long version = 0;
+        Cursor cursor = db.rawQuery("SELECT " + COLUMN_ITEM_ID + ", " + COLUMN_QUANTITY + ", " +
+                COLUMN_SYNCED_QUANTITY + ", " + COLUMN_VERSION + " FROM " + TABLE_INVENTORY +
+                " WHERE " + COLUMN_GLOBAL_ID + " = ?", globalId);
+        try {
+            if (cursor.moveToFirst()) {
+                id = cursor.getLong(0);
+                quantity = cursor.getInt(1);
+                syncedQuantity = cursor.getInt(2);
+                version = cursor.getLong(3);
+            }
+        } finally {
+            cursor.close();
+        }
+        if (id == -1) {
+            // The item changed or went away on another device, so an archived copy here is stale;
+            // a live server row comes back below as a new item
+            db.execSQL("DELETE FROM " + TABLE_INVENTORY_ARCHIVE + " WHERE " + COLUMN_GLOBAL_ID + " = ?", globalId);
+        }
+        if (change.deleted) {
+            if (id == -1) {
+                return false;
+            }
+            db.execSQL("DELETE FROM " + TABLE_INVENTORY + " WHERE " + COLUMN_ITEM_ID + " = ?", new Object[]{id});
+            // The server already has this delete; don't push it back
+            db.execSQL("DELETE FROM " + TABLE_INVENTORY_TOMBSTONES + " WHERE " + COLUMN_TOMBSTONE_GLOBAL_ID +
+                    " = ?", globalId);
+            return true;
+        }
+        if (id != -1 && version > pushedThrough) {
+            db.execSQL("UPDATE " + TABLE_INVENTORY + " SET " + COLUMN_QUANTITY + " = ?, " + COLUMN_SYNCED_QUANTITY +
+                    " = ? WHERE " + COLUMN_ITEM_ID + " = ?",
+                    new Object[]{change.quantity + quantity - syncedQuantity, change.quantity, id});
+            recordSyncMovement(db, id, change.quantity - syncedQuantity);
+            return true;
+        }
+        if (change.sku != null) {
+            // The server's SKU assignment wins; a local item still holding the code gives it up
+            db.execSQL("UPDATE " + TABLE_INVENTORY + " SET " + COLUMN_SKU + " = NULL WHERE " + COLUMN_SKU +
+                    " = ? AND " + COLUMN_GLOBAL_ID + " <> ?", new Object[]{change.sku, change.globalId});
+        }
+        if (id == -1) {
+            db.execSQL("INSERT INTO " + TABLE_INVENTORY + "(" + COLUMN_GLOBAL_ID + ", " + COLUMN_ITEM_NAME + ", " +
+                    COLUMN_QUANTITY + ", " + COLUMN_REORDER_THRESHOLD + ", " + COLUMN_SKU + ", " +
+                    COLUMN_SYNCED_QUANTITY + ") VALUES (?, ?, ?, ?, ?, ?)", new Object[]{change.globalId,
+                    change.name, change.quantity, change.reorderThreshold, change.sku, change.quantity});
+            recordSyncMovement(db, DatabaseUtils.longForQuery(db, "SELECT last_insert_rowid()", null), change.quantity);
+        } else {
+            db.execSQL("UPDATE " + TABLE_INVENTORY + " SET " + COLUMN_ITEM_NAME + " = ?, " + COLUMN_QUANTITY +
+                    " = ?, " + COLUMN_REORDER_THRESHOLD + " = ?, " + COLUMN_SKU + " = ?, " + COLUMN_SYNCED_QUANTITY +
+                    " = ? WHERE " + COLUMN_ITEM_ID + " = ?", new Object[]{change.name, change.quantity,
+                    change.reorderThreshold, change.sku, change.quantity, id});
+            recordSyncMovement(db, id, change.quantity - quantity);
+        }
+        // The row now matches the server, so the triggers' version stamp is not a change to push
+        db.execSQL("UPDATE " + TABLE_INVENTORY + " SET " + COLUMN_VERSION + " = 0 WHERE " + COLUMN_GLOBAL_ID +
+                " = ?", globalId);
+        return true;
+    }
+
     // Retrieve all inventory items for display
     public Cursor getAllInventoryItems() {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.GET_ALL_ITEMS);
         SQLiteDatabase db = this.getReadableDatabase();
         String query = "SELECT * FROM " + TABLE_INVENTORY;
         return db.rawQuery(query, null);
@@ -119,6 +1369,7 @@ public class DBHelper extends SQLiteOpenHelper {
 
     // Retrieve a specific inventory item using its unique ID.
     public Cursor getInventoryItemById(int id) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.GET_ITEM_BY_ID);
         // Get a readable instance of the database.
         SQLiteDatabase db = this.getReadableDatabase();
         // Build the query to select the row with the specified ID.
@@ -127,12 +1378,339 @@ public class DBHelper extends SQLiteOpenHelper {
         return db.rawQuery(query, new String[]{String.valueOf(id)});
     }
 
-    // Retrieve an inventory item by name (case-insensitive)
+    // Retrieve an inventory item by name (case-insensitive).
+    // Comparing with COLLATE NOCASE lets SQLite use idx_inventory_name_nocase.
     public Cursor getInventoryItemByName(String name) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.GET_ITEM_BY_NAME);
         SQLiteDatabase db = this.getReadableDatabase();
-        String query = "SELECT * FROM " + TABLE_INVENTORY + " WHERE LOWER(" + COLUMN_ITEM_NAME + ") = LOWER(?)";
+        String query = "SELECT * FROM " + TABLE_INVENTORY + " WHERE " + COLUMN_ITEM_NAME + " = ? COLLATE NOCASE";
         return db.rawQuery(query, new String[]{name});
     }
 
+    // An item's SKU, or null if it has none or the id doesn't exist.
+    public String getInventoryItemSku(int id) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.GET_ITEM_BY_ID);
+        Cursor cursor = getReadableDatabase().rawQuery("SELECT " + COLUMN_SKU + " FROM " + TABLE_INVENTORY +
+                " WHERE " + COLUMN_ITEM_ID + "=?", new String[]{String.valueOf(id)});
+        try {
+            return cursor.moveToFirst() ? cursor.getString(0) : null;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Retrieve the item with this SKU through idx_inventory_sku. Columns are sku plus the item fields.
+    public Cursor getInventoryItemBySku(String sku) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.GET_ITEMS_BY_SKU);
+        SQLiteDatabase db = this.getReadableDatabase();
+        String query = "SELECT " + COLUMN_SKU + ", " + INVENTORY_COLUMNS + " FROM " + TABLE_INVENTORY +
+                " WHERE " + COLUMN_SKU + " = ?";
+        return db.rawQuery(query, new String[]{sku});
+    }
+
+    // Resolve skus[from, from + count) in one query; SQLite probes the unique index once per
+    // code. count must not exceed MAX_SKUS_PER_QUERY. Unknown codes are simply absent.
+    public Cursor getInventoryItemsBySku(String[] skus, int from, int count) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.GET_ITEMS_BY_SKU);
+        if (count > MAX_SKUS_PER_QUERY) {
+            throw new IllegalArgumentException("At most " + MAX_SKUS_PER_QUERY + " SKUs per query");
+        }
+        String query = "SELECT " + COLUMN_SKU + ", " + INVENTORY_COLUMNS + " FROM " + TABLE_INVENTORY +
+                " WHERE " + COLUMN_SKU + " IN " + placeholders(count);
+        String[] args = new String[count];
+        System.arraycopy(skus, from, args, 0, count);
+        return getReadableDatabase().rawQuery(query, args);
+    }
+
+    // Search-as-you-type: every word typed must prefix-match a word of the item name.
+    // Returns null when the text has no searchable words. Ranking puts exact names first, then
+    // names starting with the text, then shorter names. Matches are ranked inside the FTS query,
+    // on the names it already reads, and only the top limit ids are looked up in the table, so
+    // an exact name is never cut off by a broad prefix however many items match.
+    public Cursor searchInventoryItems(String text, int limit) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.SEARCH);
+        return search(TABLE_INVENTORY, TABLE_INVENTORY_FTS, text, limit);
+    }
+
+    // The same search over archived items, which nothing else reads.
+    public Cursor searchArchivedItems(String text, int limit) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.SEARCH_ARCHIVE);
+        return search(TABLE_INVENTORY_ARCHIVE, TABLE_INVENTORY_ARCHIVE_FTS, text, limit);
+    }
+
+    private Cursor search(String table, String ftsTable, String text, int limit) {
+        String match = toPrefixMatch(text);
+        if (match == null) {
+            return null;
+        }
+        SQLiteDatabase db = this.getReadableDatabase();
+        // IN keeps no order, so the top rows are sorted again by the same rank
+        String rank = " ORDER BY (" + COLUMN_ITEM_NAME + " = ? COLLATE NOCASE) DESC, (" + COLUMN_ITEM_NAME +
+                " LIKE ?) DESC, length(" + COLUMN_ITEM_NAME + "), ";
+        String query = "SELECT " + INVENTORY_COLUMNS + " FROM " + table +
+                " WHERE " + COLUMN_ITEM_ID + " IN (SELECT docid FROM " + ftsTable +
+                " WHERE " + ftsTable + " MATCH ?" + rank + "docid LIMIT ?)" + rank + COLUMN_ITEM_ID;
+        String trimmed = text.trim();
+        String prefix = trimmed.replace("%", "").replace("_", "") + "%";
+        return db.rawQuery(query, new String[]{match, trimmed, prefix, String.valueOf(limit), trimmed, prefix});
+    }
+
+    // Turn free text into an FTS query of prefix terms ("red bo" -> "red* bo*").
+    // Only letters and digits are kept, so user input can't inject FTS operators.
+    static String toPrefixMatch(String text) {
+        StringBuilder match = new StringBuilder();
+        StringBuilder token = new StringBuilder();
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                token.append(c);
+            } else if (token.length() > 0) {
+                if (match.length() > 0) {
+                    match.append(' ');
+                }
+                match.append(token).append('*');
+                token.setLength(0);
+            }
+        }
+        return match.length() == 0 ? null : match.toString();
+    }
+
+    // Number of rows in the inventory table, read from the summary row instead of counting
+    public long getInventoryCount() {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.GET_COUNT);
+        return DatabaseUtils.longForQuery(getReadableDatabase(), "SELECT " + COLUMN_SUMMARY_SKU_COUNT +
+                " FROM " + TABLE_INVENTORY_SUMMARY + " WHERE " + COLUMN_SUMMARY_ID + " = 1", null);
+    }
+
+    // SKU, unit and low-stock totals in one primary-key read.
+    public InventorySummary getInventorySummary() {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.GET_SUMMARY);
+        Cursor cursor = getReadableDatabase().rawQuery("SELECT " + COLUMN_SUMMARY_SKU_COUNT + ", " +
+                COLUMN_SUMMARY_UNIT_COUNT + ", " + COLUMN_SUMMARY_LOW_STOCK_COUNT + " FROM " +
+                TABLE_INVENTORY_SUMMARY + " WHERE " + COLUMN_SUMMARY_ID + " = 1", null);
+        try {
+            if (!cursor.moveToFirst()) {
+                return new InventorySummary(0, 0, 0);
+            }
+            return new InventorySummary(cursor.getLong(0), cursor.getLong(1), cursor.getLong(2));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Recompute the totals with a full scan and compare them with the summary row, rewriting it
+    // if they differ. Returns true when the stored totals were already correct.
+    public boolean verifyInventorySummary() {
+        synchronized (writeLock) {
+            SQLiteDatabase db = getWritableDatabase();
+            db.beginTransaction();
+            try {
+                boolean consistent = DatabaseUtils.longForQuery(db, "SELECT COUNT(*) FROM " +
+                        TABLE_INVENTORY_SUMMARY + " stored JOIN (" + summaryFromScratch() + ") fresh" +
+                        " ON stored." + COLUMN_SUMMARY_SKU_COUNT + " = fresh." + COLUMN_SUMMARY_SKU_COUNT +
+                        " AND stored." + COLUMN_SUMMARY_UNIT_COUNT + " = fresh." + COLUMN_SUMMARY_UNIT_COUNT +
+                        " AND stored." + COLUMN_SUMMARY_LOW_STOCK_COUNT + " = fresh." + COLUMN_SUMMARY_LOW_STOCK_COUNT +
+                        " WHERE stored." + COLUMN_SUMMARY_ID + " = 1", null) == 1;
+                if (!consistent) {
+                    rebuildInventorySummary(db);
+                }
+                db.setTransactionSuccessful();
+                return consistent;
+            } finally {
+                db.endTransaction();
+            }
+        }
+    }
 
+    // Keyset page: up to limit items with id greater than afterId, in id order.
+    // Uses the primary key, so the cost does not depend on how deep into the table the page is.
+    public Cursor getInventoryPageAfter(int afterId, int limit) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.GET_PAGE);
+        SQLiteDatabase db = this.getReadableDatabase();
+        String query = "SELECT " + INVENTORY_COLUMNS + " FROM " + TABLE_INVENTORY +
+                " WHERE " + COLUMN_ITEM_ID + " > ? ORDER BY " + COLUMN_ITEM_ID + " LIMIT ?";
+        return db.rawQuery(query, new String[]{String.valueOf(afterId), String.valueOf(limit)});
+    }
+
+    // Keyset page in reverse: up to limit items with id less than beforeId, highest id first.
+    public Cursor getInventoryPageBefore(int beforeId, int limit) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.GET_PAGE);
+        SQLiteDatabase db = this.getReadableDatabase();
+        String query = "SELECT " + INVENTORY_COLUMNS + " FROM " + TABLE_INVENTORY +
+                " WHERE " + COLUMN_ITEM_ID + " < ? ORDER BY " + COLUMN_ITEM_ID + " DESC LIMIT ?";
+        return db.rawQuery(query, new String[]{String.valueOf(beforeId), String.valueOf(limit)});
+    }
+
+    // Page by position. OFFSET walks the skipped rows, so this is only used to jump to a
+    // position that no keyset page is anchored near.
+    public Cursor getInventoryPageAt(int offset, int limit) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.GET_PAGE);
+        SQLiteDatabase db = this.getReadableDatabase();
+        String query = "SELECT " + INVENTORY_COLUMNS + " FROM " + TABLE_INVENTORY +
+                " ORDER BY " + COLUMN_ITEM_ID + " LIMIT ? OFFSET ?";
+        return db.rawQuery(query, new String[]{String.valueOf(limit), String.valueOf(offset)});
+    }
+
+    // Retrieve items at or below their own reorder threshold. Served from the partial index,
+    // so the cost follows the number of low items rather than the size of the inventory.
+    public Cursor getLowStockItems() {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.GET_LOW_STOCK);
+        SQLiteDatabase db = this.getReadableDatabase();
+        String query = "SELECT " + INVENTORY_COLUMNS + " FROM " + TABLE_INVENTORY +
+                " INDEXED BY idx_inventory_low_stock WHERE " + LOW_STOCK_CONDITION +
+                " ORDER BY " + COLUMN_ITEM_ID;
+        return db.rawQuery(query, null);
+    }
+
+    // Ids of the items LowStockAlertEngine has alerted for and not seen restocked since.
+    public HashSet<Integer> getLowStockAlertIds() {
+        HashSet<Integer> ids = new HashSet<>();
+        Cursor cursor = getReadableDatabase().rawQuery("SELECT " + COLUMN_ALERT_ITEM_ID + " FROM " +
+                TABLE_LOW_STOCK_ALERTS, null);
+        try {
+            while (cursor.moveToNext()) {
+                ids.add(cursor.getInt(0));
+            }
+        } finally {
+            cursor.close();
+        }
+        return ids;
+    }
+
+    // Record that an item's low-stock alert has gone out, or with alerted false that it re-armed.
+    public void setLowStockAlerted(int id, boolean alerted) {
+        synchronized (writeLock) {
+            getWritableDatabase().execSQL(alerted
+                    ? "INSERT OR IGNORE INTO " + TABLE_LOW_STOCK_ALERTS + " VALUES (?)"
+                    : "DELETE FROM " + TABLE_LOW_STOCK_ALERTS + " WHERE " + COLUMN_ALERT_ITEM_ID + " = ?",
+                    new Object[]{id});
+        }
+    }
+
+    // Id-keyed cache of item rows, kept current by every write above.
+    ItemCache getItemCache() {
+        return itemCache;
+    }
+
+    public void addChangeListener(InventoryChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeChangeListener(InventoryChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    private void notifyChange(InventoryChange change) {
+        if (Thread.holdsLock(writeLock) && deferredChanges != null) {
+            // Raised inside runInTransaction; not committed yet
+            deferredChanges.add(change);
+            return;
+        }
+        itemCache.apply(change);
+        for (InventoryChangeListener listener : changeListeners) {
+            listener.onInventoryChanged(change);
+        }
+    }
+
+    // Append one row to the movement ledger. Callers hold writeLock and provide the transaction.
+    private void recordMovement(int itemId, int delta, String reason) {
+        SQLiteStatement statement = compiled(SQL_INSERT_MOVEMENT);
+        statement.bindLong(1, itemId);
+        statement.bindLong(2, delta);
+        if (reason != null) {
+            statement.bindString(3, reason);
+        }
+        statement.bindLong(4, System.currentTimeMillis());
+        statement.executeInsert();
+        statement.clearBindings();
+    }
+
+    // Ledger row for a quantity a pulled change moved by delta. Callers hold writeLock and the transaction.
+    private static void recordSyncMovement(SQLiteDatabase db, long itemId, int delta) {
+        if (delta != 0) {
+            db.execSQL(SQL_INSERT_MOVEMENT, new Object[]{itemId, delta, REASON_SYNC, System.currentTimeMillis()});
+        }
+    }
+
+    // Read the first column of every row as an id, closing the cursor.
+    private static int[] readIds(Cursor cursor) {
+        try {
+            int[] ids = new int[cursor.getCount()];
+            for (int i = 0; cursor.moveToNext(); i++) {
+                ids[i] = cursor.getInt(0);
+            }
+            return ids;
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Bind a string argument that may be null.
+    private static void bindText(SQLiteStatement statement, int index, String value) {
+        if (value == null) {
+            statement.bindNull(index);
+        } else {
+            statement.bindString(index, value);
+        }
+    }
+
+    // Run a single-column id lookup, returning -1 when it matches no row.
+    private static long findId(SQLiteStatement statement) {
+        try {
+            return statement.simpleQueryForLong();
+        } catch (SQLiteDoneException e) {
+            return -1;
+        }
+    }
+
+    // Read an item's current values to describe it in an UPDATED change event.
+    private static InventoryChange readChange(SQLiteDatabase db, int id) {
+        Cursor cursor = db.rawQuery("SELECT " + COLUMN_ITEM_NAME + ", " + COLUMN_QUANTITY + ", " +
+                COLUMN_REORDER_THRESHOLD + " FROM " +
+                TABLE_INVENTORY + " WHERE " + COLUMN_ITEM_ID + "=?", new String[]{String.valueOf(id)});
+        try {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+            return new InventoryChange(InventoryChange.UPDATED, id, cursor.getString(0), cursor.getInt(1),
+                    cursor.getInt(2));
+        } finally {
+            cursor.close();
+        }
+    }
+
+    // Return the cached compiled statement for sql, compiling it on first use.
+    private SQLiteStatement compiled(String sql) {
+        synchronized (statementCache) {
+            SQLiteStatement statement = statementCache.get(sql);
+            if (statement == null) {
+                statement = getWritableDatabase().compileStatement(sql);
+                statementCache.put(sql, statement);
+            }
+            return statement;
+        }
+    }
+
+    // Run an insert, returning -1 on constraint failures like SQLiteDatabase.insert does.
+    private static long executeInsert(SQLiteStatement statement) {
+        try {
+            return statement.executeInsert();
+        } catch (SQLException e) {
+            return -1;
+        } finally {
+            statement.clearBindings();
+        }
+    }
+
+    // Release compiled statements along with the connection.
+    @Override
+    public synchronized void close() {
+        synchronized (statementCache) {
+            for (SQLiteStatement statement : statementCache.values()) {
+                statement.close();
+            }
+            statementCache.clear();
+        }
+        super.close();
+    }
 }
@@ -2,46 +2,100 @@ package com.example.inventoryapp;
 
 import android.Manifest;
 import android.content.DialogInterface;
+import android.content.Intent;
 import android.content.pm.PackageManager;
-import android.database.Cursor;
 import android.os.Bundle;
-import android.telephony.SmsManager;
+import android.os.Handler;
+import android.os.Looper;
+import android.text.Editable;
+import android.text.InputType;
+import android.text.TextWatcher;
 import android.util.Log;
+import android.view.KeyEvent;
 import android.view.LayoutInflater;
 import android.view.View;
+import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
 import android.widget.Button;
+import android.widget.CheckBox;
 import android.widget.EditText;
-import android.widget.GridView;
+import android.widget.ListView;
+import android.widget.TextView;
 import android.widget.Toast;
 
 import androidx.appcompat.app.AlertDialog;
 import androidx.appcompat.app.AppCompatActivity;
 import androidx.core.app.ActivityCompat;
 import androidx.core.content.ContextCompat;
+import androidx.recyclerview.widget.GridLayoutManager;
+import androidx.recyclerview.widget.RecyclerView;
 
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.InputStream;
+import java.text.DateFormat;
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 public class DashboardActivity extends AppCompatActivity {
     private static final int SMS_PERMISSION_CODE = 101;
+    private static final int IMPORT_CSV_REQUEST_CODE = 102;
     private static final String TAG = "DashboardActivity";
+    private static final long SEARCH_DEBOUNCE_MS = 150;
+    private static final int SEARCH_LIMIT = 20;
 
     // UI elements for adding items
     private EditText etItemName, etQuantity;
     private Button btnAdd, btnTestSMS;
 
+    // In scan intake mode each entry is queued and written in batches, without dialogs
+    private CheckBox cbScanIntake;
+    private ScanIntake scanIntake;
+
+    // UI elements for bulk import and export
+    private Button btnImport, btnExport, btnMetrics;
+    private TextView tvStatus;
+
+    // Totals line above the grid
+    private TextView tvSummary;
+
     // UI elements for operations by ID
     private EditText etSearchId;
     private Button btnSearch, btnRemove, btnUpdate;
 
-    private GridView gridView;
-    private DBHelper dbHelper;
-    private ArrayList<String> inventoryList;
-    private ArrayList<Integer> itemIds;
-    private ArrayAdapter<String> adapter;
+    // UI elements for search-as-you-type by name
+    private EditText etSearchName;
+    private ListView lvSearchResults;
+    private Button btnSearchArchive;
+    private ArrayAdapter<String> searchAdapter;
+    private final ArrayList<String> searchResults = new ArrayList<>();
+    private int[] searchResultIds = new int[0];
+    private final Handler searchHandler = new Handler(Looper.getMainLooper());
+    // Live results for the current search text; re-run by InventoryQueries when items change
+    private InventoryQueries.Subscription searchSubscription;
+    private String currentSearch = "";
+
+    // Actions for the items selected on the grid
+    private View selectionBar;
+    private TextView tvSelection;
+    private Button btnBulkDelete, btnBulkSet, btnBulkAdjust, btnClearSelection;
+
+    private RecyclerView recyclerView;
+    private InventoryRepository repository;
+    private InventoryWindow inventoryWindow;
+    private InventoryGridAdapter adapter;
+    private DBHelper.InventoryChangeListener changeListener;
+    private LowStockAlertEngine alertEngine;
+    // Start of the reload being timed, or 0
+    private long loadStartedAt;
+    // Start of this screen, until its first rows are in; then 0
+    private long createdAt;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
+        createdAt = InventoryMetrics.start();
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_dashboard);
 
@@ -49,7 +103,13 @@ public class DashboardActivity extends AppCompatActivity {
         etItemName = findViewById(R.id.etItemName);
         etQuantity = findViewById(R.id.etQuantity);
         btnAdd = findViewById(R.id.btnAdd);
+        cbScanIntake = findViewById(R.id.cbScanIntake);
         btnTestSMS = findViewById(R.id.btnTestSMS);
+        btnImport = findViewById(R.id.btnImport);
+        btnExport = findViewById(R.id.btnExport);
+        btnMetrics = findViewById(R.id.btnMetrics);
+        tvStatus = findViewById(R.id.tvStatus);
+        tvSummary = findViewById(R.id.tvSummary);
 
         // Initialize UI elements for operations (search, remove, update)
         etSearchId = findViewById(R.id.etSearchId);
@@ -57,18 +117,106 @@ public class DashboardActivity extends AppCompatActivity {
         btnRemove = findViewById(R.id.btnRemove);
         btnUpdate = findViewById(R.id.btnUpdate);
 
-        gridView = findViewById(R.id.gridView);
+        etSearchName = findViewById(R.id.etSearchName);
+        lvSearchResults = findViewById(R.id.lvSearchResults);
+        btnSearchArchive = findViewById(R.id.btnSearchArchive);
+        recyclerView = findViewById(R.id.recyclerView);
+        selectionBar = findViewById(R.id.selectionBar);
+        tvSelection = findViewById(R.id.tvSelection);
+        btnBulkDelete = findViewById(R.id.btnBulkDelete);
+        btnBulkSet = findViewById(R.id.btnBulkSet);
+        btnBulkAdjust = findViewById(R.id.btnBulkAdjust);
+        btnClearSelection = findViewById(R.id.btnClearSelection);
+
+        // Initialize repository, alerts and the paged window behind the grid
+        repository = InventoryRepository.getInstance(this);
+        alertEngine = LowStockAlertEngine.getInstance(this);
+        scanIntake = ScanIntake.getInstance(this);
+        inventoryWindow = new InventoryWindow(repository, new InventoryWindow.Listener() {
+            @Override
+            public void onWindowChanged() {
+                // Loading ends once the first screen of rows is in (or the table is empty)
+                if (loadStartedAt != 0 && (inventoryWindow.getCount() == 0 || inventoryWindow.isLoaded(0))) {
+                    InventoryMetrics.stop(InventoryMetrics.LOAD_INVENTORY, loadStartedAt);
+                    loadStartedAt = 0;
+                }
+                if (createdAt != 0 && (inventoryWindow.getCount() == 0 || inventoryWindow.isLoaded(0))) {
+                    // Usually immediate: startup has already read the first page
+                    InventoryMetrics.stop(InventoryMetrics.TIME_TO_FIRST_CONTENT, createdAt);
+                    createdAt = 0;
+                    reportFullyDrawn();
+                }
+                adapter.submit(inventoryWindow.snapshot());
+            }
 
-        // Initialize DB helper and lists
-        dbHelper = new DBHelper(this);
-        inventoryList = new ArrayList<>();
-        itemIds = new ArrayList<>();
-        adapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, inventoryList);
-        gridView.setAdapter(adapter);
+            @Override
+            public void onRowChanged(int position) {
+                adapter.submit(inventoryWindow.snapshot());
+            }
+        });
+        adapter = new InventoryGridAdapter(inventoryWindow, new InventoryGridAdapter.SelectionListener() {
+            @Override
+            public void onSelectionChanged(int count) {
+                selectionBar.setVisibility(count > 0 ? View.VISIBLE : View.GONE);
+                tvSelection.setText(count + " selected");
+            }
+        });
+        recyclerView.setLayoutManager(new GridLayoutManager(this, 2));
+        recyclerView.setHasFixedSize(true);
+        recyclerView.setAdapter(adapter);
+
+        // Apply each write to the grid as a single-row delta instead of reloading
+        changeListener = new DBHelper.InventoryChangeListener() {
+            @Override
+            public void onInventoryChanged(InventoryChange change) {
+                if (change.type == InventoryChange.RELOADED) {
+                    loadInventoryItems();
+                    return;
+                }
+                if (change.type == InventoryChange.DELETED) {
+                    adapter.deselect(change.id);
+                }
+                inventoryWindow.applyChange(change);
+                refreshSummary();
+            }
+        };
+        repository.addChangeListener(changeListener);
 
         // Load current inventory
         loadInventoryItems();
 
+        // Search by name as the user types; picking a result fills in its ID
+        searchAdapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, searchResults);
+        lvSearchResults.setAdapter(searchAdapter);
+        lvSearchResults.setOnItemClickListener(new AdapterView.OnItemClickListener() {
+            @Override
+            public void onItemClick(AdapterView<?> parent, View view, int position, long id) {
+                etSearchId.setText(String.valueOf(searchResultIds[position]));
+            }
+        });
+        etSearchName.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+                scheduleSearch(s.toString().trim());
+            }
+        });
+
+        // Archived items only show up when asked for; picking one restores it
+        btnSearchArchive.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                searchArchive(etSearchName.getText().toString().trim());
+            }
+        });
+
         // Add new inventory item (with duplicate check)
         btnAdd.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -77,16 +225,87 @@ public class DashboardActivity extends AppCompatActivity {
             }
         });
 
+        // Handheld scanners type the code and press Enter, so Enter adds while in intake mode
+        etItemName.setOnEditorActionListener(new TextView.OnEditorActionListener() {
+            @Override
+            public boolean onEditorAction(TextView view, int actionId, KeyEvent event) {
+                if (!cbScanIntake.isChecked()) {
+                    return false;
+                }
+                if (event == null || event.getAction() == KeyEvent.ACTION_DOWN) {
+                    addInventoryItem();
+                }
+                return true;
+            }
+        });
+
         // Test SMS Alert functionality
         btnTestSMS.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
-                sendSMSAlert("Test Item", 1);
+                alertEngine.sendTestAlert();
+                Toast.makeText(DashboardActivity.this, "Test alert queued", Toast.LENGTH_SHORT).show();
             }
         });
 
         checkSMSPermission();
 
+        // Pick a supplier CSV (item_name,quantity per line) to import
+        btnImport.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                Intent intent = new Intent(Intent.ACTION_OPEN_DOCUMENT);
+                intent.addCategory(Intent.CATEGORY_OPENABLE);
+                intent.setType("text/*");
+                startActivityForResult(intent, IMPORT_CSV_REQUEST_CODE);
+            }
+        });
+
+        // Export inventory and users in the chosen format, or back them up and restore them
+        btnExport.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                showExportDialog();
+            }
+        });
+
+        // Debug screen with operation latencies
+        btnMetrics.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                startActivity(new Intent(DashboardActivity.this, MetricsActivity.class));
+            }
+        });
+
+        // Bulk actions on the grid selection; each is one transaction and one grid refresh
+        btnBulkDelete.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                confirmBulkDelete();
+            }
+        });
+
+        btnBulkSet.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                showBulkQuantityDialog(false);
+            }
+        });
+
+        btnBulkAdjust.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                showBulkQuantityDialog(true);
+            }
+        });
+
+        btnClearSelection.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                adapter.clearSelection();
+            }
+        });
+
         // Search for an item by unique ID
         btnSearch.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -103,25 +322,18 @@ public class DashboardActivity extends AppCompatActivity {
                     Toast.makeText(DashboardActivity.this, "Invalid ID format", Toast.LENGTH_SHORT).show();
                     return;
                 }
-                Cursor cursor = dbHelper.getInventoryItemById(searchId);
-                if (cursor != null && cursor.moveToFirst()) {
-                    int nameIndex = cursor.getColumnIndex(DBHelper.COLUMN_ITEM_NAME);
-                    int quantityIndex = cursor.getColumnIndex(DBHelper.COLUMN_QUANTITY);
-                    if (nameIndex == -1 || quantityIndex == -1) {
-                        Toast.makeText(DashboardActivity.this, "Column not found", Toast.LENGTH_SHORT).show();
-                    } else {
-                        String itemName = cursor.getString(nameIndex);
-                        int quantity = cursor.getInt(quantityIndex);
-                        Toast.makeText(DashboardActivity.this,
-                                "Found: " + itemName + " - Quantity: " + quantity,
-                                Toast.LENGTH_LONG).show();
+                repository.getInventoryItemById(searchId, new InventoryRepository.Callback<InventoryItem>() {
+                    @Override
+                    public void onResult(InventoryItem item) {
+                        if (item != null) {
+                            Toast.makeText(DashboardActivity.this,
+                                    "Found: " + item.name + " - Quantity: " + item.quantity,
+                                    Toast.LENGTH_LONG).show();
+                        } else {
+                            Toast.makeText(DashboardActivity.this, "No item found with that ID", Toast.LENGTH_SHORT).show();
+                        }
                     }
-                } else {
-                    Toast.makeText(DashboardActivity.this, "No item found with that ID", Toast.LENGTH_SHORT).show();
-                }
-                if (cursor != null) {
-                    cursor.close();
-                }
+                });
             }
         });
 
@@ -141,13 +353,16 @@ public class DashboardActivity extends AppCompatActivity {
                     Toast.makeText(DashboardActivity.this, "Invalid ID format", Toast.LENGTH_SHORT).show();
                     return;
                 }
-                int result = dbHelper.deleteInventoryItem(id);
-                if (result > 0) {
-                    Toast.makeText(DashboardActivity.this, "Item removed", Toast.LENGTH_SHORT).show();
-                    loadInventoryItems();
-                } else {
-                    Toast.makeText(DashboardActivity.this, "Item not found or could not be removed", Toast.LENGTH_SHORT).show();
-                }
+                repository.deleteInventoryItem(id, new WriteCallback<Integer>() {
+                    @Override
+                    public void onResult(Integer result) {
+                        if (result > 0) {
+                            Toast.makeText(DashboardActivity.this, "Item removed", Toast.LENGTH_SHORT).show();
+                        } else {
+                            Toast.makeText(DashboardActivity.this, "Item not found or could not be removed", Toast.LENGTH_SHORT).show();
+                        }
+                    }
+                });
             }
         });
 
@@ -167,52 +382,321 @@ public class DashboardActivity extends AppCompatActivity {
                     Toast.makeText(DashboardActivity.this, "Invalid ID format", Toast.LENGTH_SHORT).show();
                     return;
                 }
-                Cursor cursor = dbHelper.getInventoryItemById(id);
-                if (cursor != null && cursor.moveToFirst()) {
-                    int nameIndex = cursor.getColumnIndex(DBHelper.COLUMN_ITEM_NAME);
-                    int quantityIndex = cursor.getColumnIndex(DBHelper.COLUMN_QUANTITY);
-                    if (nameIndex == -1 || quantityIndex == -1) {
-                        Toast.makeText(DashboardActivity.this, "Column not found", Toast.LENGTH_SHORT).show();
-                        cursor.close();
-                        return;
+                final int itemId = id;
+                repository.getInventoryItemById(id, new InventoryRepository.Callback<InventoryItem>() {
+                    @Override
+                    public void onResult(final InventoryItem item) {
+                        if (item != null) {
+                            repository.getInventoryItemSku(itemId, new InventoryRepository.Callback<String>() {
+                                @Override
+                                public void onResult(String sku) {
+                                    showUpdateDialog(itemId, item.name, item.quantity, item.reorderThreshold, sku);
+                                }
+                            });
+                        } else {
+                            Toast.makeText(DashboardActivity.this, "No item found with that ID", Toast.LENGTH_SHORT).show();
+                        }
                     }
-                    String currentName = cursor.getString(nameIndex);
-                    int currentQuantity = cursor.getInt(quantityIndex);
-                    cursor.close();
-                    showUpdateDialog(id, currentName, currentQuantity);
-                } else {
-                    Toast.makeText(DashboardActivity.this, "No item found with that ID", Toast.LENGTH_SHORT).show();
-                }
+                });
             }
         });
     }
 
-    // Load all inventory items and refresh the grid view.
+    // Refresh the grid from the first page. Only needed on open; later writes arrive through
+    // the change listener. The grid fetches further pages itself as the user scrolls.
+    // Low-stock alerts follow the database on their own, so nothing here feeds them.
     private void loadInventoryItems() {
-        inventoryList.clear();
-        itemIds.clear();
-        Cursor cursor = dbHelper.getAllInventoryItems();
-        if (cursor != null && cursor.moveToFirst()) {
-            do {
-                int id = cursor.getInt(cursor.getColumnIndex(DBHelper.COLUMN_ITEM_ID));
-                String itemName = cursor.getString(cursor.getColumnIndex(DBHelper.COLUMN_ITEM_NAME));
-                int quantity = cursor.getInt(cursor.getColumnIndex(DBHelper.COLUMN_QUANTITY));
-                inventoryList.add("ID: " + id + "\n" + itemName + ": " + quantity);
-                itemIds.add(id);
-                // Send SMS alert if inventory is low
-                if (quantity < 5) {
-                    sendSMSAlert(itemName, quantity);
+        loadStartedAt = InventoryMetrics.start();
+        inventoryWindow.reload();
+        refreshSummary();
+    }
+
+    private void refreshSummary() {
+        repository.getInventorySummary(new InventoryRepository.Callback<InventorySummary>() {
+            @Override
+            public void onResult(InventorySummary summary) {
+                tvSummary.setText(summary.skuCount + " items · " + summary.unitCount + " units · " +
+                        summary.lowStockCount + " low");
+            }
+        });
+    }
+
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        if (requestCode == IMPORT_CSV_REQUEST_CODE && resultCode == RESULT_OK && data != null) {
+            importCsv(data);
+        }
+    }
+
+    // Stream the chosen CSV into the inventory, showing progress in the status line.
+    private void importCsv(Intent data) {
+        InputStream input;
+        try {
+            input = getContentResolver().openInputStream(data.getData());
+        } catch (FileNotFoundException e) {
+            Toast.makeText(this, "Could not open file", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        tvStatus.setVisibility(View.VISIBLE);
+        tvStatus.setText("Importing…");
+        btnImport.setEnabled(false);
+        repository.importCsv(input, new CsvImporter.Listener() {
+            @Override
+            public void onProgress(int linesRead, int inserted, int updated) {
+                tvStatus.setText("Importing… " + linesRead + " lines (" + inserted + " new, " + updated + " updated)");
+            }
+
+            @Override
+            public void onRowErrors(List<CsvImporter.RowError> errors) {
+                for (CsvImporter.RowError error : errors) {
+                    Log.w(TAG, "Import line " + error.lineNumber + ": " + error.message);
                 }
-            } while (cursor.moveToNext());
+            }
+        }, new InventoryRepository.Callback<CsvImporter.Result>() {
+            @Override
+            public void onResult(CsvImporter.Result result) {
+                btnImport.setEnabled(true);
+                tvStatus.setText("Imported " + result.linesRead + " lines: " + result.inserted + " new, " +
+                        result.updated + " updated, " + result.errors + " skipped");
+            }
+
+            @Override
+            public void onError(Exception error) {
+                btnImport.setEnabled(true);
+                tvStatus.setText("Import failed: " + error.getMessage());
+            }
+        });
+    }
+
+    private void showExportDialog() {
+        final String[] choices = {"CSV", "CSV (gzip)", "JSON Lines", "JSON Lines (gzip)",
+                "Back Up Now", "Restore a Backup"};
+        new AlertDialog.Builder(this)
+                .setTitle("Export or Back Up")
+                .setItems(choices, new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        if (which == 4) {
+                            backUp();
+                            return;
+                        }
+                        if (which == 5) {
+                            chooseBackup();
+                            return;
+                        }
+                        InventoryExporter.Format format = which < 2
+                                ? InventoryExporter.Format.CSV : InventoryExporter.Format.JSON_LINES;
+                        exportAll(format, which % 2 == 1);
+                    }
+                })
+                .show();
+    }
+
+    // Stream both tables into the app's external files directory.
+    private void exportAll(InventoryExporter.Format format, boolean gzip) {
+        File directory = getExternalFilesDir(null);
+        if (directory == null) {
+            directory = getFilesDir();
         }
-        if (cursor != null) {
-            cursor.close();
+        tvStatus.setVisibility(View.VISIBLE);
+        tvStatus.setText("Exporting…");
+        btnExport.setEnabled(false);
+        repository.exportAll(directory, format, gzip, new InventoryRepository.Callback<File[]>() {
+            @Override
+            public void onResult(File[] files) {
+                btnExport.setEnabled(true);
+                tvStatus.setText("Exported to " + files[0].getParent());
+            }
+
+            @Override
+            public void onError(Exception error) {
+                btnExport.setEnabled(true);
+                tvStatus.setText("Export failed: " + error.getMessage());
+            }
+        });
+    }
+
+    // Snapshot inventory and users to the app's backup file.
+    private void backUp() {
+        tvStatus.setVisibility(View.VISIBLE);
+        tvStatus.setText("Backing up…");
+        btnExport.setEnabled(false);
+        repository.backUp(new InventoryRepository.Callback<Long>() {
+            @Override
+            public void onResult(Long items) {
+                btnExport.setEnabled(true);
+                tvStatus.setText("Backed up " + items + " items");
+            }
+
+            @Override
+            public void onError(Exception error) {
+                btnExport.setEnabled(true);
+                tvStatus.setText("Backup failed: " + error.getMessage());
+            }
+        });
+    }
+
+    // Offer the kept snapshots by date, newest first.
+    private void chooseBackup() {
+        final List<File> backups = repository.getBackupFiles();
+        if (backups.isEmpty()) {
+            Toast.makeText(this, "No backup yet", Toast.LENGTH_SHORT).show();
+            return;
         }
-        adapter.notifyDataSetChanged();
+        String[] dates = new String[backups.size()];
+        for (int i = 0; i < dates.length; i++) {
+            dates[i] = DateFormat.getDateTimeInstance().format(new Date(backups.get(i).lastModified()));
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Restore Backup")
+                .setItems(dates, new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        confirmRestore(backups.get(which));
+                    }
+                })
+                .show();
+    }
+
+    // Restoring replaces every item and user, so it asks first.
+    private void confirmRestore(final File backup) {
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle("Restore Backup");
+        builder.setMessage("Replace all items and users with the backup from " +
+                DateFormat.getDateTimeInstance().format(new Date(backup.lastModified())) + "?");
+        builder.setPositiveButton("Restore", new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                tvStatus.setVisibility(View.VISIBLE);
+                tvStatus.setText("Restoring…");
+                btnExport.setEnabled(false);
+                repository.restoreBackup(backup, new InventoryRepository.Callback<Integer>() {
+                    @Override
+                    public void onResult(Integer items) {
+                        btnExport.setEnabled(true);
+                        tvStatus.setText("Restored " + items + " items");
+                    }
+
+                    @Override
+                    public void onError(Exception error) {
+                        btnExport.setEnabled(true);
+                        tvStatus.setText("Restore failed; nothing was changed (" + error.getMessage() + ")");
+                    }
+                });
+            }
+        });
+        builder.setNegativeButton("Cancel", null);
+        builder.show();
+    }
+
+    // Debounce keystrokes: only subscribe to the search once typing pauses for SEARCH_DEBOUNCE_MS.
+    private void scheduleSearch(String text) {
+        currentSearch = text;
+        searchHandler.removeCallbacks(searchRunnable);
+        if (searchSubscription != null) {
+            // Stop following results for older text
+            searchSubscription.close();
+            searchSubscription = null;
+        }
+        if (text.isEmpty()) {
+            showSearchResults(new ArrayList<InventoryItem>());
+            return;
+        }
+        searchHandler.postDelayed(searchRunnable, SEARCH_DEBOUNCE_MS);
+    }
+
+    private final Runnable searchRunnable = new Runnable() {
+        @Override
+        public void run() {
+            // Results arrive now and again after every write that could change them
+            searchSubscription = InventoryQueries.getInstance(DashboardActivity.this).observeSearch(
+                    currentSearch, SEARCH_LIMIT, new InventoryRepository.Callback<List<InventoryItem>>() {
+                        @Override
+                        public void onResult(List<InventoryItem> items) {
+                            showSearchResults(items);
+                        }
+                    });
+        }
+    };
+
+    private void searchArchive(String text) {
+        if (text.isEmpty()) {
+            Toast.makeText(this, "Enter a name to search the archive", Toast.LENGTH_SHORT).show();
+            return;
+        }
+        repository.searchArchivedItems(text, SEARCH_LIMIT, new InventoryRepository.Callback<List<InventoryItem>>() {
+            @Override
+            public void onResult(List<InventoryItem> items) {
+                if (items.isEmpty()) {
+                    Toast.makeText(DashboardActivity.this, "No archived items match", Toast.LENGTH_SHORT).show();
+                } else {
+                    showArchiveDialog(items);
+                }
+            }
+        });
+    }
+
+    private void showArchiveDialog(final List<InventoryItem> items) {
+        String[] choices = new String[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            InventoryItem item = items.get(i);
+            choices[i] = item.name + " (ID: " + item.id + ", Qty: " + item.quantity + ")";
+        }
+        new AlertDialog.Builder(this)
+                .setTitle("Restore Archived Item")
+                .setItems(choices, new DialogInterface.OnClickListener() {
+                    @Override
+                    public void onClick(DialogInterface dialog, int which) {
+                        repository.restoreArchivedItem(items.get(which).id, new WriteCallback<Integer>() {
+                            @Override
+                            public void onResult(Integer result) {
+                                Toast.makeText(DashboardActivity.this,
+                                        result > 0 ? "Item restored" : "Item is no longer archived",
+                                        Toast.LENGTH_SHORT).show();
+                            }
+                        });
+                    }
+                })
+                .setNegativeButton("Cancel", null)
+                .show();
+    }
+
+    private void showSearchResults(List<InventoryItem> items) {
+        searchResults.clear();
+        searchResultIds = new int[items.size()];
+        for (int i = 0; i < items.size(); i++) {
+            InventoryItem item = items.get(i);
+            searchResults.add(item.name + " (ID: " + item.id + ", Qty: " + item.quantity + ")");
+            searchResultIds[i] = item.id;
+        }
+        searchAdapter.notifyDataSetChanged();
+        lvSearchResults.setVisibility(items.isEmpty() ? View.GONE : View.VISIBLE);
+    }
+
+    @Override
+    protected void onPause() {
+        // Don't leave scans waiting in memory while the app is in the background
+        scanIntake.flushNow();
+        super.onPause();
+    }
+
+    @Override
+    protected void onDestroy() {
+        searchHandler.removeCallbacks(searchRunnable);
+        if (searchSubscription != null) {
+            searchSubscription.close();
+        }
+        repository.removeChangeListener(changeListener);
+        super.onDestroy();
     }
 
     // Add a new inventory item. Check for duplicates by name (case-insensitive) before adding.
     private void addInventoryItem() {
+        if (cbScanIntake.isChecked()) {
+            queueScan();
+            return;
+        }
         String itemName = etItemName.getText().toString().trim();
         String quantityStr = etQuantity.getText().toString().trim();
         if (itemName.isEmpty() || quantityStr.isEmpty()) {
@@ -232,64 +716,194 @@ public class DashboardActivity extends AppCompatActivity {
         etQuantity.setText("");
     }
 
+    // Queue a scan of the entered code, an item's SKU or name; an empty quantity means one unit.
+    // Merging into existing items happens in the batch, so there is no duplicate prompt, and the
+    // quantity is kept for the next scan.
+    private void queueScan() {
+        String itemName = etItemName.getText().toString().trim();
+        String quantityStr = etQuantity.getText().toString().trim();
+        if (itemName.isEmpty()) {
+            return;
+        }
+        int quantity = 1;
+        if (!quantityStr.isEmpty()) {
+            try {
+                quantity = Integer.parseInt(quantityStr);
+            } catch (NumberFormatException e) {
+                Toast.makeText(this, "Quantity must be a number", Toast.LENGTH_SHORT).show();
+                return;
+            }
+        }
+        scanIntake.scan(itemName, quantity);
+        etItemName.setText("");
+        int dropped = scanIntake.takeDroppedScans();
+        if (dropped > 0) {
+            Toast.makeText(this, dropped + " earlier scans could not be saved", Toast.LENGTH_LONG).show();
+        }
+    }
+
     // Check for duplicate item name (case-insensitive). If found, prompt the user whether to update or add new.
     private void checkDuplicateAndAddOrUpdate(final String itemName, final int quantity) {
-        Cursor cursor = dbHelper.getInventoryItemByName(itemName);
-        if (cursor != null && cursor.moveToFirst()) {
-            // Duplicate found – use the first found record.
-            final int existingId = cursor.getInt(cursor.getColumnIndex(DBHelper.COLUMN_ITEM_ID));
-            final int existingQuantity = cursor.getInt(cursor.getColumnIndex(DBHelper.COLUMN_QUANTITY));
-            cursor.close();
-
-            AlertDialog.Builder builder = new AlertDialog.Builder(this);
-            builder.setTitle("Duplicate Item Found");
-            builder.setMessage("An item with the name '" + itemName + "' already exists (Quantity: " + existingQuantity + ").\n" +
-                    "Would you like to update the existing item (adding the new quantity) or add a separate new item?");
-            builder.setPositiveButton("Update Existing", new DialogInterface.OnClickListener() {
-                @Override
-                public void onClick(DialogInterface dialog, int which) {
-                    // Update: add new quantity to existing quantity.
-                    int newQuantity = existingQuantity + quantity;
-                    int result = dbHelper.updateInventoryItem(existingId, itemName, newQuantity);
-                    if (result > 0) {
-                        Toast.makeText(DashboardActivity.this, "Item updated", Toast.LENGTH_SHORT).show();
-                        loadInventoryItems();
-                    } else {
-                        Toast.makeText(DashboardActivity.this, "Error updating item", Toast.LENGTH_SHORT).show();
+        repository.getInventoryItemByName(itemName, new InventoryRepository.Callback<InventoryItem>() {
+            @Override
+            public void onResult(InventoryItem existing) {
+                if (existing != null) {
+                    showDuplicateDialog(itemName, quantity, existing.id, existing.quantity);
+                } else {
+                    // No duplicate found; add item directly.
+                    addNewItem(itemName, quantity, "Item added", "Error adding item");
+                }
+            }
+        });
+    }
+
+    // Duplicate found – ask whether to add to the existing record or create a separate one.
+    private void showDuplicateDialog(final String itemName, final int quantity,
+                                     final int existingId, final int existingQuantity) {
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle("Duplicate Item Found");
+        builder.setMessage("An item with the name '" + itemName + "' already exists (Quantity: " + existingQuantity + ").\n" +
+                "Would you like to update the existing item (adding the new quantity) or add a separate new item?");
+        builder.setPositiveButton("Update Existing", new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                // Update: add new quantity to existing quantity in one atomic step.
+                repository.adjustQuantity(existingId, quantity, "restock", new WriteCallback<Integer>() {
+                    @Override
+                    public void onResult(Integer result) {
+                        if (result > 0) {
+                            Toast.makeText(DashboardActivity.this, "Item updated", Toast.LENGTH_SHORT).show();
+                        } else {
+                            Toast.makeText(DashboardActivity.this, "Error updating item", Toast.LENGTH_SHORT).show();
+                        }
+                    }
+                });
+            }
+        });
+        builder.setNegativeButton("Add New", new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                addNewItem(itemName, quantity, "New item added", "Error adding new item");
+            }
+        });
+        builder.setNeutralButton("Cancel", null);
+        builder.show();
+    }
+
+    // Callback for a write that tells the user when it was refused because writes are backed up,
+    // or when it failed.
+    private abstract class WriteCallback<T> implements InventoryRepository.Callback<T> {
+        @Override
+        public void onError(Exception error) {
+            Toast.makeText(DashboardActivity.this, error instanceof RejectedExecutionException
+                    ? "Too many changes at once, please try again" : "Could not save the change",
+                    Toast.LENGTH_SHORT).show();
+        }
+    }
+
+    // Insert a new item in the background and report the outcome.
+    private void addNewItem(String itemName, int quantity, final String successMessage, final String errorMessage) {
+        repository.addInventoryItem(itemName, quantity, new WriteCallback<Long>() {
+            @Override
+            public void onResult(Long result) {
+                if (result != -1) {
+                    Toast.makeText(DashboardActivity.this, successMessage, Toast.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(DashboardActivity.this, errorMessage, Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+    }
+
+    // Write new values for an item in the background and report the outcome.
+    private void updateItem(int itemId, String itemName, int quantity, int reorderThreshold) {
+        repository.updateInventoryItem(itemId, itemName, quantity, reorderThreshold, new WriteCallback<Integer>() {
+            @Override
+            public void onResult(Integer result) {
+                if (result > 0) {
+                    Toast.makeText(DashboardActivity.this, "Item updated", Toast.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(DashboardActivity.this, "Error updating item", Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+    }
+
+    // Set (or, when empty, clear) an item's SKU in the background and report a clash.
+    private void updateSku(int itemId, String sku) {
+        repository.setInventoryItemSku(itemId, sku, new WriteCallback<Integer>() {
+            @Override
+            public void onResult(Integer result) {
+                if (result < 0) {
+                    Toast.makeText(DashboardActivity.this, "Another item already has that SKU", Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
+    }
+
+    private void confirmBulkDelete() {
+        final int[] ids = adapter.getSelectedIds();
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle("Delete Items");
+        builder.setMessage("Delete " + ids.length + (ids.length == 1 ? " item?" : " items?"));
+        builder.setPositiveButton("Delete", new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                adapter.clearSelection();
+                repository.deleteInventoryItems(ids, new WriteCallback<Integer>() {
+                    @Override
+                    public void onResult(Integer result) {
+                        Toast.makeText(DashboardActivity.this, "Deleted " + result + " items", Toast.LENGTH_SHORT).show();
                     }
+                });
+            }
+        });
+        builder.setNegativeButton("Cancel", null);
+        builder.show();
+    }
+
+    // Ask for a quantity and set it on, or (with adjust) add it to, every selected item.
+    private void showBulkQuantityDialog(final boolean adjust) {
+        final int[] ids = adapter.getSelectedIds();
+        final EditText etBulkQuantity = new EditText(this);
+        etBulkQuantity.setInputType(adjust
+                ? InputType.TYPE_CLASS_NUMBER | InputType.TYPE_NUMBER_FLAG_SIGNED
+                : InputType.TYPE_CLASS_NUMBER);
+        etBulkQuantity.setHint(adjust ? "Change (e.g. -3)" : "New quantity");
+        AlertDialog.Builder builder = new AlertDialog.Builder(this);
+        builder.setTitle((adjust ? "Adjust " : "Set ") + ids.length + (ids.length == 1 ? " Item" : " Items"));
+        builder.setView(etBulkQuantity);
+        builder.setPositiveButton("Apply", new DialogInterface.OnClickListener() {
+            @Override
+            public void onClick(DialogInterface dialog, int which) {
+                int value;
+                try {
+                    value = Integer.parseInt(etBulkQuantity.getText().toString().trim());
+                } catch (NumberFormatException e) {
+                    Toast.makeText(DashboardActivity.this, "Invalid quantity", Toast.LENGTH_SHORT).show();
+                    return;
                 }
-            });
-            builder.setNegativeButton("Add New", new DialogInterface.OnClickListener() {
-                @Override
-                public void onClick(DialogInterface dialog, int which) {
-                    long result = dbHelper.addInventoryItem(itemName, quantity);
-                    if (result != -1) {
-                        Toast.makeText(DashboardActivity.this, "New item added", Toast.LENGTH_SHORT).show();
-                        loadInventoryItems();
-                    } else {
-                        Toast.makeText(DashboardActivity.this, "Error adding new item", Toast.LENGTH_SHORT).show();
+                InventoryRepository.Callback<Integer> callback = new WriteCallback<Integer>() {
+                    @Override
+                    public void onResult(Integer result) {
+                        Toast.makeText(DashboardActivity.this, "Updated " + result + " items", Toast.LENGTH_SHORT).show();
                     }
+                };
+                adapter.clearSelection();
+                if (adjust) {
+                    repository.adjustQuantities(ids, value, "bulk adjust", callback);
+                } else {
+                    repository.setQuantities(ids, value, callback);
                 }
-            });
-            builder.setNeutralButton("Cancel", null);
-            builder.show();
-        } else {
-            if (cursor != null) {
-                cursor.close();
-            }
-            // No duplicate found; add item directly.
-            long result = dbHelper.addInventoryItem(itemName, quantity);
-            if (result != -1) {
-                Toast.makeText(DashboardActivity.this, "Item added", Toast.LENGTH_SHORT).show();
-                loadInventoryItems();
-            } else {
-                Toast.makeText(DashboardActivity.this, "Error adding item", Toast.LENGTH_SHORT).show();
             }
-        }
+        });
+        builder.setNegativeButton("Cancel", null);
+        builder.show();
     }
 
     // Display a dialog for updating an inventory item.
-    private void showUpdateDialog(final int itemId, String currentName, int currentQuantity) {
+    private void showUpdateDialog(final int itemId, String currentName, int currentQuantity, int currentThreshold,
+                                  final String currentSku) {
         AlertDialog.Builder builder = new AlertDialog.Builder(this);
         builder.setTitle("Update Item");
 
@@ -297,8 +911,12 @@ public class DashboardActivity extends AppCompatActivity {
         View dialogView = LayoutInflater.from(this).inflate(R.layout.dialog_update_item, null);
         final EditText etUpdateName = dialogView.findViewById(R.id.etUpdateName);
         final EditText etUpdateQuantity = dialogView.findViewById(R.id.etUpdateQuantity);
+        final EditText etUpdateThreshold = dialogView.findViewById(R.id.etUpdateThreshold);
+        final EditText etUpdateSku = dialogView.findViewById(R.id.etUpdateSku);
         etUpdateName.setText(currentName);
         etUpdateQuantity.setText(String.valueOf(currentQuantity));
+        etUpdateThreshold.setText(String.valueOf(currentThreshold));
+        etUpdateSku.setText(currentSku);
         builder.setView(dialogView);
 
         builder.setPositiveButton("Update", new DialogInterface.OnClickListener() {
@@ -306,23 +924,29 @@ public class DashboardActivity extends AppCompatActivity {
             public void onClick(DialogInterface dialog, int which) {
                 String newName = etUpdateName.getText().toString().trim();
                 String newQuantityStr = etUpdateQuantity.getText().toString().trim();
-                if (newName.isEmpty() || newQuantityStr.isEmpty()) {
+                String newThresholdStr = etUpdateThreshold.getText().toString().trim();
+                if (newName.isEmpty() || newQuantityStr.isEmpty() || newThresholdStr.isEmpty()) {
                     Toast.makeText(DashboardActivity.this, "Fields cannot be empty", Toast.LENGTH_SHORT).show();
                     return;
                 }
                 int newQuantity;
+                int newThreshold;
                 try {
                     newQuantity = Integer.parseInt(newQuantityStr);
                 } catch (NumberFormatException e) {
                     Toast.makeText(DashboardActivity.this, "Invalid quantity", Toast.LENGTH_SHORT).show();
                     return;
                 }
-                int updateResult = dbHelper.updateInventoryItem(itemId, newName, newQuantity);
-                if (updateResult > 0) {
-                    Toast.makeText(DashboardActivity.this, "Item updated", Toast.LENGTH_SHORT).show();
-                    loadInventoryItems();
-                } else {
-                    Toast.makeText(DashboardActivity.this, "Error updating item", Toast.LENGTH_SHORT).show();
+                try {
+                    newThreshold = Integer.parseInt(newThresholdStr);
+                } catch (NumberFormatException e) {
+                    Toast.makeText(DashboardActivity.this, "Invalid threshold", Toast.LENGTH_SHORT).show();
+                    return;
+                }
+                updateItem(itemId, newName, newQuantity, newThreshold);
+                String newSku = etUpdateSku.getText().toString().trim();
+                if (!newSku.equals(currentSku == null ? "" : currentSku)) {
+                    updateSku(itemId, newSku);
                 }
             }
         });
@@ -352,23 +976,4 @@ public class DashboardActivity extends AppCompatActivity {
             }
         }
     }
-
-    // Send an SMS alert if inventory is low.
-    private void sendSMSAlert(String itemName, int quantity) {
-        if (ContextCompat.checkSelfPermission(this, Manifest.permission.SEND_SMS)
-                == PackageManager.PERMISSION_GRANTED) {
-            String phoneNumber = "1234567890"; // Replace with a valid number or user-configurable value
-            String message = "Alert: Low inventory for " + itemName + ". Only " + quantity + " left.";
-            try {
-                SmsManager smsManager = SmsManager.getDefault();
-                smsManager.sendTextMessage(phoneNumber, null, message, null, null);
-                Toast.makeText(this, "SMS alert sent", Toast.LENGTH_SHORT).show();
-            } catch (Exception e) {
-                Toast.makeText(this, "SMS failed, please try again later!", Toast.LENGTH_SHORT).show();
-                Log.e(TAG, "Error sending SMS", e);
-            }
-        } else {
-            Log.d(TAG, "SMS permission not granted; skipping alert.");
-        }
-    }
 }
\ No newline at end of file
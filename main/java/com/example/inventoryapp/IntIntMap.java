@@ -0,0 +1,126 @@
+package com.example.inventoryapp;
+
+import java.util.Arrays;
+
+// IntIntMap is an open-addressing hash map from int to int with no boxing. Key 0 is reserved
+// as the empty marker (inventory ids start at 1). Removal shifts later entries back instead
+// of leaving tombstones, so lookups stay short after many deletes.
+final class IntIntMap {
+    static final int MISSING = -1;
+
+    private int[] keys;
+    private int[] values;
+    private int mask;
+    private int shift;
+    private int size;
+
+    IntIntMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(4, expectedSize * 2 - 1)) << 1;
+        keys = new int[capacity];
+        values = new int[capacity];
+        resize(capacity);
+    }
+
+    int size() {
+        return size;
+    }
+
+    // Returns the value for key, or MISSING.
+    int get(int key) {
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                return values[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    boolean containsKey(int key) {
+        return get(key) != MISSING;
+    }
+
+    void put(int key, int value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("Key 0 is reserved");
+        }
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    // Returns the removed value, or MISSING.
+    int remove(int key) {
+        int slot = slot(key);
+        while (keys[slot] != 0) {
+            if (keys[slot] == key) {
+                int removed = values[slot];
+                shiftBack(slot);
+                size--;
+                return removed;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return MISSING;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0);
+        size = 0;
+    }
+
+    // Close the gap at slot by moving back any later entry whose probe run passes through it.
+    private void shiftBack(int gap) {
+        int slot = gap;
+        while (true) {
+            slot = (slot + 1) & mask;
+            int key = keys[slot];
+            if (key == 0) {
+                break;
+            }
+            int home = slot(key);
+            // Move the entry if its home is not cyclically within (gap, slot]
+            if (gap <= slot ? (home <= gap || home > slot) : (home <= gap && home > slot)) {
+                keys[gap] = key;
+                values[gap] = values[slot];
+                gap = slot;
+            }
+        }
+        keys[gap] = 0;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldValues.length * 2];
+        resize(keys.length);
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+
+    private void resize(int capacity) {
+        mask = capacity - 1;
+        shift = Integer.numberOfLeadingZeros(capacity) + 1;
+    }
+
+    private int slot(int key) {
+        // Fibonacci hashing: the top bits of key * golden ratio spread sequential ids evenly
+        return (key * 0x9E3779B9) >>> shift;
+    }
+}
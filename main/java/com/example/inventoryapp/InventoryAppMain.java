@@ -15,12 +15,14 @@ import androidx.core.content.ContextCompat;
 
 public class InventoryAppMain extends AppCompatActivity {
     private EditText usernameField, passwordField;
+    private InventoryRepository repository;
     private static final int SMS_PERMISSION_CODE = 1;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_login);
+        repository = InventoryRepository.getInstance(this);
 
         usernameField = findViewById(R.id.username);
         passwordField = findViewById(R.id.password);
@@ -50,8 +52,15 @@ public class InventoryAppMain extends AppCompatActivity {
             return;
         }
 
-        Toast.makeText(InventoryAppMain.this, "Login successful", Toast.LENGTH_SHORT).show();
-        startActivity(new Intent(InventoryAppMain.this, DashboardActivity.class));
+        // Credentials are checked on the repository's worker thread
+        repository.checkUser(username, password, exists -> {
+            if (exists) {
+                Toast.makeText(InventoryAppMain.this, "Login successful", Toast.LENGTH_SHORT).show();
+                startActivity(new Intent(InventoryAppMain.this, DashboardActivity.class));
+            } else {
+                Toast.makeText(InventoryAppMain.this, "Login failed. Incorrect username or password.", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 
     private void checkSmsPermission() {
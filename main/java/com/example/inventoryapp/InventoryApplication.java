@@ -0,0 +1,55 @@
+package com.example.inventoryapp;
+
+import android.app.Application;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+// InventoryApplication runs the startup pipeline. Before any activity exists it restores the
+// metrics switch and hands the repository a warm-up job, which opens (and if needed creates or
+// migrates) the database, compiles the hot statements and reads the first grid page while the
+// login screen is shown. It also anchors the time-to-first-frame metric of a cold start.
+public class InventoryApplication extends Application {
+    private static final String PREFS_NAME = "metrics";
+    private static final String PREF_METRICS_ENABLED = "enabled";
+
+    // Taken as the process is being set up; the baseline for time to first frame
+    private static final long processStartNanos = System.nanoTime();
+    private static boolean firstFrameReported;
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        InventoryMetrics.setEnabled(getSharedPreferences(PREFS_NAME, MODE_PRIVATE)
+                .getBoolean(PREF_METRICS_ENABLED, false));
+        InventoryRepository.getInstance(this).warmUp(InventoryWindow.PAGE_SIZE);
+    }
+
+    // Remember the metrics switch across restarts, so a cold start can be measured.
+    static void saveMetricsEnabled(Application application, boolean enabled) {
+        application.getSharedPreferences(PREFS_NAME, MODE_PRIVATE).edit()
+                .putBoolean(PREF_METRICS_ENABLED, enabled).apply();
+    }
+
+    // Record time to first frame when root is first about to draw. Only the first screen of the
+    // process counts; later calls do nothing.
+    static void reportFirstFrame(final View root) {
+        if (firstFrameReported) {
+            return;
+        }
+        firstFrameReported = true;
+        final ViewTreeObserver observer = root.getViewTreeObserver();
+        observer.addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                root.getViewTreeObserver().removeOnPreDrawListener(this);
+                InventoryMetrics.stop(InventoryMetrics.TIME_TO_FIRST_FRAME, startNanos());
+                return true;
+            }
+        });
+    }
+
+    // stop() treats 0 as "not timed", so only hand out the baseline while metrics are on.
+    private static long startNanos() {
+        return InventoryMetrics.isEnabled() ? processStartNanos : 0;
+    }
+}
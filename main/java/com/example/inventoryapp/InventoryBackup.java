@@ -0,0 +1,344 @@
+package com.example.inventoryapp;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+// InventoryBackup is the binary snapshot format for the inventory and users tables (see
+// DBHelper.writeBackup and restoreBackup). A snapshot is a header, one tagged record per row and
+// a trailer holding the row counts and a CRC32 of everything before it:
+//
+//   header   int magic, int format, long created-at millis
+//   item     byte 1, int id, string name, int quantity, int reorder threshold, string sku,
+//            string global id, int synced quantity, long updated-at millis
+//   user     byte 2, int id, string username, string password
+//   trailer  byte 0, long item count, long user count, int crc32
+//
+// Numbers are big-endian; a string is an int byte length (-1 for null) and UTF-8 bytes. A Writer
+// streams into a temporary file and renames it over the target only once it is complete and
+// synced, so a crash never leaves a torn snapshot under the real name. The snapshots it replaces
+// move down to numbered generations (target.1, target.2, ...), so one bad snapshot never costs
+// the only good one. A Reader memory-maps the file and checks the trailer and checksum before
+// handing out a single row, so a damaged snapshot is refused before restore touches the
+// database. Nothing here depends on Android.
+public final class InventoryBackup {
+    static final int MAGIC = 0x494e5642;
+    static final int FORMAT = 1;
+
+    // Record tags
+    static final int END = 0;
+    static final int ITEM = 1;
+    static final int USER = 2;
+
+    private static final int HEADER_SIZE = 16;
+    private static final int TRAILER_SIZE = 21;
+    private static final int BUFFER_SIZE = 256 * 1024;
+
+    private InventoryBackup() {
+    }
+
+    // The file holding generation n of the snapshot at target: 0 is target itself, the newest.
+    public static File generation(File target, int n) {
+        return n == 0 ? target : new File(target.getPath() + "." + n);
+    }
+
+    // The snapshots that exist among the first count generations of target, newest first.
+    public static List<File> generations(File target, int count) {
+        List<File> files = new ArrayList<>();
+        for (int n = 0; n < count; n++) {
+            File file = generation(target, n);
+            if (file.exists()) {
+                files.add(file);
+            }
+        }
+        return files;
+    }
+
+    // Writes one snapshot. Call item and user for every row, then commit; closing a writer that
+    // was not committed deletes the partial file and leaves the earlier snapshots in place.
+    public static final class Writer implements Closeable {
+        private final File target;
+        private final int generations;
+        private final File temporary;
+        private final FileOutputStream output;
+        private final FileChannel channel;
+        private final CRC32 crc = new CRC32();
+        private ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        private long items;
+        private long users;
+        private boolean committed;
+
+        public Writer(File target) throws IOException {
+            this(target, 1);
+        }
+
+        // Keep the newest generations snapshots: on commit the oldest is dropped and the rest
+        // move down one generation to make room for the new one.
+        public Writer(File target, int generations) throws IOException {
+            this.target = target;
+            this.generations = generations;
+            temporary = new File(target.getPath() + ".tmp");
+            output = new FileOutputStream(temporary);
+            channel = output.getChannel();
+            buffer.putInt(MAGIC).putInt(FORMAT).putLong(System.currentTimeMillis());
+        }
+
+        public void item(int id, String name, int quantity, int reorderThreshold, String sku, String globalId,
+                         int syncedQuantity, long updatedAt) throws IOException {
+            ensure(1 + 4);
+            buffer.put((byte) ITEM).putInt(id);
+            putString(name);
+            ensure(8);
+            buffer.putInt(quantity).putInt(reorderThreshold);
+            putString(sku);
+            putString(globalId);
+            ensure(12);
+            buffer.putInt(syncedQuantity).putLong(updatedAt);
+            items++;
+        }
+
+        public void user(int id, String username, String password) throws IOException {
+            ensure(1 + 4);
+            buffer.put((byte) USER).putInt(id);
+            putString(username);
+            putString(password);
+            users++;
+        }
+
+        public long getItemCount() {
+            return items;
+        }
+
+        public long getUserCount() {
+            return users;
+        }
+
+        // Finish the file, force it to disk and move it into place, shifting the older
+        // generations down. Returns the snapshot's size.
+        public long commit() throws IOException {
+            ensure(TRAILER_SIZE);
+            buffer.put((byte) END).putLong(items).putLong(users);
+            flush();
+            buffer.putInt((int) crc.getValue());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+            long size = channel.size();
+            output.close();
+            for (int n = generations - 1; n > 0; n--) {
+                File older = generation(target, n - 1);
+                if (older.exists() && !older.renameTo(generation(target, n))) {
+                    throw new IOException("Could not keep " + older);
+                }
+            }
+            if (!temporary.renameTo(target)) {
+                throw new IOException("Could not replace " + target);
+            }
+            committed = true;
+            return size;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!committed) {
+                output.close();
+                temporary.delete();
+            }
+        }
+
+        private void putString(String value) throws IOException {
+            if (value == null) {
+                ensure(4);
+                buffer.putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(4 + bytes.length);
+            buffer.putInt(bytes.length).put(bytes);
+        }
+
+        // Make room for size more bytes, growing the buffer for an unusually long row.
+        private void ensure(int size) throws IOException {
+            if (buffer.remaining() >= size) {
+                return;
+            }
+            flush();
+            if (buffer.capacity() < size) {
+                buffer = ByteBuffer.allocate(size);
+            }
+        }
+
+        // Write out and checksum everything buffered so far.
+        private void flush() throws IOException {
+            crc.update(buffer.array(), 0, buffer.position());
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+    }
+
+    // Reads a snapshot through a read-only memory mapping. open verifies it; then next returns
+    // ITEM, USER or END and loads the row into the public fields, like a cursor.
+    public static final class Reader implements Closeable {
+        private final RandomAccessFile file;
+        private final MappedByteBuffer mapped;
+        private final long createdAt;
+        private final long itemCount;
+        private final long userCount;
+        private final int end;
+        private byte[] bytes = new byte[256];
+        private long items;
+        private long users;
+
+        public int id;
+        public String name;
+        public int quantity;
+        public int reorderThreshold;
+        public String sku;
+        public String globalId;
+        public int syncedQuantity;
+        public long updatedAt;
+        public String username;
+        public String password;
+
+        private Reader(RandomAccessFile file, MappedByteBuffer mapped) throws IOException {
+            this.file = file;
+            this.mapped = mapped;
+            int size = mapped.capacity();
+            if (size < HEADER_SIZE + TRAILER_SIZE || mapped.getInt(0) != MAGIC) {
+                throw new IOException("Not an inventory snapshot");
+            }
+            if (mapped.getInt(4) != FORMAT) {
+                throw new IOException("Unknown snapshot format " + mapped.getInt(4));
+            }
+            int checksum = mapped.getInt(size - 4);
+            if (checksum != checksum(mapped, size - 4)) {
+                throw new IOException("Snapshot checksum mismatch");
+            }
+            end = size - TRAILER_SIZE;
+            if (mapped.get(end) != END) {
+                throw new IOException("Snapshot trailer missing");
+            }
+            createdAt = mapped.getLong(8);
+            itemCount = mapped.getLong(end + 1);
+            userCount = mapped.getLong(end + 9);
+            mapped.position(HEADER_SIZE);
+        }
+
+        public static Reader open(File snapshot) throws IOException {
+            RandomAccessFile file = new RandomAccessFile(snapshot, "r");
+            try {
+                long size = file.length();
+                if (size > Integer.MAX_VALUE) {
+                    throw new IOException("Snapshot too large to map: " + size + " bytes");
+                }
+                return new Reader(file, file.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size));
+            } catch (IOException | RuntimeException e) {
+                file.close();
+                throw e;
+            }
+        }
+
+        public long getCreatedAt() {
+            return createdAt;
+        }
+
+        public long getItemCount() {
+            return itemCount;
+        }
+
+        public long getUserCount() {
+            return userCount;
+        }
+
+        // Go back to the first row, so a restore that rolled back can read the snapshot again.
+        public void rewind() {
+            mapped.position(HEADER_SIZE);
+            items = 0;
+            users = 0;
+        }
+
+        public int next() throws IOException {
+            try {
+                int tag = mapped.get();
+                switch (tag) {
+                    case ITEM:
+                        id = mapped.getInt();
+                        name = getString();
+                        quantity = mapped.getInt();
+                        reorderThreshold = mapped.getInt();
+                        sku = getString();
+                        globalId = getString();
+                        syncedQuantity = mapped.getInt();
+                        updatedAt = mapped.getLong();
+                        items++;
+                        break;
+                    case USER:
+                        id = mapped.getInt();
+                        username = getString();
+                        password = getString();
+                        users++;
+                        break;
+                    case END:
+                        if (mapped.position() != end + 1 || items != itemCount || users != userCount) {
+                            throw new IOException("Snapshot row counts do not match its trailer");
+                        }
+                        mapped.position(end);
+                        break;
+                    default:
+                        throw new IOException("Bad snapshot record tag " + tag);
+                }
+                return tag;
+            } catch (RuntimeException e) {
+                // Only reachable if the checksum collided on a damaged file
+                throw new IOException("Malformed snapshot", e);
+            }
+        }
+
+        @Override
+        public void close() throws IOException {
+            file.close();
+        }
+
+        private String getString() {
+            int length = mapped.getInt();
+            if (length < 0) {
+                return null;
+            }
+            if (bytes.length < length) {
+                bytes = new byte[Math.max(length, bytes.length * 2)];
+            }
+            mapped.get(bytes, 0, length);
+            return new String(bytes, 0, length, StandardCharsets.UTF_8);
+        }
+
+        // CRC32 of the first length bytes, read through a duplicate so the position is untouched.
+        private static int checksum(ByteBuffer mapped, int length) {
+            ByteBuffer view = mapped.duplicate();
+            view.position(0);
+            CRC32 crc = new CRC32();
+            byte[] chunk = new byte[64 * 1024];
+            int remaining = length;
+            while (remaining > 0) {
+                int count = Math.min(chunk.length, remaining);
+                view.get(chunk, 0, count);
+                crc.update(chunk, 0, count);
+                remaining -= count;
+            }
+            return (int) crc.getValue();
+        }
+    }
+}
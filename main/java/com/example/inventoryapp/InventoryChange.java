@@ -0,0 +1,25 @@
+package com.example.inventoryapp;
+
+// InventoryChange describes one row-level write to the inventory table.
+// For deletes only the id is meaningful. RELOADED marks a bulk write that touched too many
+// rows to describe one by one; listeners should re-read whatever they show.
+public class InventoryChange {
+    public static final int INSERTED = 1;
+    public static final int UPDATED = 2;
+    public static final int DELETED = 3;
+    public static final int RELOADED = 4;
+
+    public final int type;
+    public final int id;
+    public final String name;
+    public final int quantity;
+    public final int reorderThreshold;
+
+    public InventoryChange(int type, int id, String name, int quantity, int reorderThreshold) {
+        this.type = type;
+        this.id = id;
+        this.name = name;
+        this.quantity = quantity;
+        this.reorderThreshold = reorderThreshold;
+    }
+}
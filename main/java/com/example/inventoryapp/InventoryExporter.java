@@ -0,0 +1,212 @@
+package com.example.inventoryapp;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.GZIPOutputStream;
+
+// InventoryExporter streams a table to CSV or JSON Lines, optionally gzipped. Rows are pulled
+// from a RowSource in fixed-size keyset chunks and written straight to a buffered file channel,
+// so memory use is the same for a hundred rows or a million. Nothing here depends on Android:
+// any RowSource (SQLite-backed or generated) can be exported on a plain JVM.
+public class InventoryExporter {
+    static final int CHUNK_SIZE = 1000;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    public enum Format {
+        CSV(".csv"),
+        JSON_LINES(".jsonl");
+
+        final String extension;
+
+        Format(String extension) {
+            this.extension = extension;
+        }
+    }
+
+    // Supplies the rows of one table in ascending key order.
+    public interface RowSource {
+        String name();
+
+        String[] columns();
+
+        // Write up to limit rows with key greater than afterKey to sink. Returns the key of
+        // the last row written, or -1 when there are no more rows.
+        long writeChunk(long afterKey, int limit, RowSink sink) throws IOException;
+    }
+
+    // Receives row values in column order; endRow() closes each row.
+    public interface RowSink {
+        void text(String value) throws IOException;
+
+        void number(long value) throws IOException;
+
+        void endRow() throws IOException;
+    }
+
+    // Export source to <directory>/<name>.<csv|jsonl>[.gz]. Returns the file written.
+    public File export(RowSource source, Format format, boolean gzip, File directory) throws IOException {
+        File target = new File(directory, source.name() + format.extension + (gzip ? ".gz" : ""));
+        try (FileChannel channel = new FileOutputStream(target).getChannel()) {
+            OutputStream out = Channels.newOutputStream(channel);
+            if (gzip) {
+                out = new GZIPOutputStream(out, BUFFER_SIZE);
+            }
+            try (Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), BUFFER_SIZE)) {
+                exportTo(source, format, writer);
+            }
+        }
+        return target;
+    }
+
+    // Export source to an already open writer. Returns the number of rows written.
+    public long exportTo(RowSource source, Format format, Writer writer) throws IOException {
+        String[] columns = source.columns();
+        RowEncoder encoder = format == Format.CSV ? new CsvEncoder(writer) : new JsonLinesEncoder(writer, columns);
+        if (format == Format.CSV) {
+            for (int i = 0; i < columns.length; i++) {
+                encoder.text(columns[i]);
+            }
+            encoder.endRow();
+        }
+        long afterKey = 0;
+        long rows = 0;
+        while (true) {
+            long before = encoder.rows;
+            afterKey = source.writeChunk(afterKey, CHUNK_SIZE, encoder);
+            rows += encoder.rows - before;
+            if (afterKey == -1 || encoder.rows - before < CHUNK_SIZE) {
+                break;
+            }
+        }
+        writer.flush();
+        return rows;
+    }
+
+    private abstract static class RowEncoder implements RowSink {
+        final Writer writer;
+        int column;
+        long rows;
+
+        RowEncoder(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void endRow() throws IOException {
+            writer.write('\n');
+            column = 0;
+            rows++;
+        }
+    }
+
+    private static final class CsvEncoder extends RowEncoder {
+        CsvEncoder(Writer writer) {
+            super(writer);
+        }
+
+        @Override
+        public void text(String value) throws IOException {
+            separator();
+            if (value == null) {
+                return;
+            }
+            boolean quote = value.indexOf(',') >= 0 || value.indexOf('"') >= 0 ||
+                    value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0;
+            if (!quote) {
+                writer.write(value);
+                return;
+            }
+            writer.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    writer.write('"');
+                }
+                writer.write(c);
+            }
+            writer.write('"');
+        }
+
+        @Override
+        public void number(long value) throws IOException {
+            separator();
+            writer.write(Long.toString(value));
+        }
+
+        private void separator() throws IOException {
+            if (column++ > 0) {
+                writer.write(',');
+            }
+        }
+    }
+
+    private static final class JsonLinesEncoder extends RowEncoder {
+        private final String[] keys;
+
+        JsonLinesEncoder(Writer writer, String[] columns) {
+            super(writer);
+            // Pre-encode "column": prefixes once instead of per row
+            keys = new String[columns.length];
+            for (int i = 0; i < columns.length; i++) {
+                keys[i] = (i == 0 ? "{\"" : ",\"") + columns[i] + "\":";
+            }
+        }
+
+        @Override
+        public void text(String value) throws IOException {
+            writer.write(keys[column++]);
+            if (value == null) {
+                writer.write("null");
+                return;
+            }
+            writer.write('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                switch (c) {
+                    case '"':
+                        writer.write("\\\"");
+                        break;
+                    case '\\':
+                        writer.write("\\\\");
+                        break;
+                    case '\n':
+                        writer.write("\\n");
+                        break;
+                    case '\r':
+                        writer.write("\\r");
+                        break;
+                    case '\t':
+                        writer.write("\\t");
+                        break;
+                    default:
+                        if (c < 0x20) {
+                            writer.write(String.format("\\u%04x", (int) c));
+                        } else {
+                            writer.write(c);
+                        }
+                }
+            }
+            writer.write('"');
+        }
+
+        @Override
+        public void number(long value) throws IOException {
+            writer.write(keys[column++]);
+            writer.write(Long.toString(value));
+        }
+
+        @Override
+        public void endRow() throws IOException {
+            writer.write('}');
+            super.endRow();
+        }
+    }
+}
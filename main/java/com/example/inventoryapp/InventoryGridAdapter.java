@@ -0,0 +1,259 @@
+package com.example.inventoryapp;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import androidx.recyclerview.widget.DiffUtil;
+import androidx.recyclerview.widget.ListUpdateCallback;
+import androidx.recyclerview.widget.RecyclerView;
+
+import java.util.HashSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// InventoryGridAdapter binds InventoryWindow snapshots to the dashboard RecyclerView. Each new
+// snapshot is diffed against the shown one on a background thread and only the cells that
+// changed are rebound. Only the span covering both loaded runs is diffed; outside it both lists
+// are placeholders, so the diff costs the window size, not the row count. When the runs do not
+// overlap (a jump to a far page, or a reload) there is nothing to match, and both runs are
+// simply rebound. Positions outside the loaded run show a placeholder and ask the window to
+// fetch their page. Placeholders have no identity of their own, so the adapter has no stable
+// ids and relies on the diff instead. Long-pressing a loaded cell starts a multi-selection,
+// which further taps extend. All methods except the diff itself run on the main thread.
+class InventoryGridAdapter extends RecyclerView.Adapter<InventoryGridAdapter.CellHolder> {
+    interface SelectionListener {
+        void onSelectionChanged(int count);
+    }
+
+    // One diff thread for the process; diffs are short and at most one matters at a time
+    private static final ExecutorService diffExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "inventory-diff");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final InventoryWindow window;
+    private final SelectionListener selectionListener;
+    // Selected item ids; kept by id so selection survives reloads and diffs
+    private final HashSet<Integer> selected = new HashSet<>();
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private InventorySnapshot shown = InventorySnapshot.EMPTY;
+    // Bumped per submit so a diff finished after a newer submit is dropped
+    private int generation;
+
+    static class CellHolder extends RecyclerView.ViewHolder {
+        final TextView textView;
+
+        CellHolder(TextView textView) {
+            super(textView);
+            this.textView = textView;
+        }
+    }
+
+    InventoryGridAdapter(InventoryWindow window, SelectionListener selectionListener) {
+        this.window = window;
+        this.selectionListener = selectionListener;
+    }
+
+    int[] getSelectedIds() {
+        int[] ids = new int[selected.size()];
+        int i = 0;
+        for (int id : selected) {
+            ids[i++] = id;
+        }
+        return ids;
+    }
+
+    void clearSelection() {
+        if (!selected.isEmpty()) {
+            selected.clear();
+            notifyItemRangeChanged(0, shown.total);
+            selectionListener.onSelectionChanged(0);
+        }
+    }
+
+    // Drop an item that no longer exists, e.g. after a single delete.
+    void deselect(int id) {
+        if (selected.remove(id)) {
+            selectionListener.onSelectionChanged(selected.size());
+        }
+    }
+
+    // Show the window's current contents once the diff against what is on screen is ready.
+    // With nothing on screen yet there is nothing to diff, so the first rows show at once.
+    void submit(final InventorySnapshot next) {
+        final int submitted = ++generation;
+        final InventorySnapshot previous = shown;
+        if (previous.total == 0) {
+            shown = next;
+            notifyItemRangeInserted(0, next.total);
+            return;
+        }
+        if (!overlaps(previous, next)) {
+            shown = next;
+            if (next.total > previous.total) {
+                notifyItemRangeInserted(previous.total, next.total - previous.total);
+            } else if (next.total < previous.total) {
+                notifyItemRangeRemoved(next.total, previous.total - next.total);
+            }
+            rebind(previous.start, previous.size);
+            rebind(next.start, next.size);
+            return;
+        }
+        diffExecutor.execute(() -> {
+            final SnapshotDiff diff = new SnapshotDiff(previous, next);
+            final DiffUtil.DiffResult result = DiffUtil.calculateDiff(diff, false);
+            mainHandler.post(() -> {
+                if (submitted == generation) {
+                    shown = next;
+                    result.dispatchUpdatesTo(new ListUpdateCallback() {
+                        @Override
+                        public void onInserted(int position, int count) {
+                            notifyItemRangeInserted(diff.from + position, count);
+                        }
+
+                        @Override
+                        public void onRemoved(int position, int count) {
+                            notifyItemRangeRemoved(diff.from + position, count);
+                        }
+
+                        @Override
+                        public void onMoved(int fromPosition, int toPosition) {
+                            notifyItemMoved(diff.from + fromPosition, diff.from + toPosition);
+                        }
+
+                        @Override
+                        public void onChanged(int position, int count, Object payload) {
+                            notifyItemRangeChanged(diff.from + position, count, payload);
+                        }
+                    });
+                }
+            });
+        });
+    }
+
+    private static boolean overlaps(InventorySnapshot a, InventorySnapshot b) {
+        return a.size > 0 && b.size > 0 && a.start < b.start + b.size && b.start < a.start + a.size;
+    }
+
+    // Rebind the positions of [start, start + count) that still exist.
+    private void rebind(int start, int count) {
+        int end = Math.min(start + count, shown.total);
+        if (start < end) {
+            notifyItemRangeChanged(start, end - start);
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return shown.total;
+    }
+
+    @Override
+    public CellHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        View view = LayoutInflater.from(parent.getContext())
+                .inflate(android.R.layout.simple_list_item_activated_1, parent, false);
+        final CellHolder holder = new CellHolder((TextView) view);
+        view.setOnLongClickListener(new View.OnLongClickListener() {
+            @Override
+            public boolean onLongClick(View v) {
+                return toggle(holder.getAdapterPosition());
+            }
+        });
+        view.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View v) {
+                // Plain taps only select once a selection has been started
+                if (!selected.isEmpty()) {
+                    toggle(holder.getAdapterPosition());
+                }
+            }
+        });
+        return holder;
+    }
+
+    private boolean toggle(int position) {
+        if (position == RecyclerView.NO_POSITION || !shown.isLoaded(position)) {
+            return false;
+        }
+        int id = shown.getId(position);
+        if (!selected.remove(id)) {
+            selected.add(id);
+        }
+        notifyItemChanged(position);
+        selectionListener.onSelectionChanged(selected.size());
+        return true;
+    }
+
+    @Override
+    public void onBindViewHolder(CellHolder holder, int position) {
+        if (shown.isLoaded(position)) {
+            holder.textView.setText("ID: " + shown.getId(position) + "\n" +
+                    shown.getName(position) + ": " + shown.getQuantity(position));
+            holder.textView.setActivated(selected.contains(shown.getId(position)));
+        } else {
+            holder.textView.setText("Loading…");
+            holder.textView.setActivated(false);
+            window.requestPosition(position);
+        }
+    }
+
+    // Placeholders match anything, so a page arriving is a change of those cells, not a
+    // remove-and-insert. For two overlapping runs, the diff covers old [from, oldEnd) against
+    // new [from, newEnd): every loaded row of either snapshot, plus whatever placeholders make
+    // up a change in the row count. Before from, and after the ends (an equally long run in
+    // both), there are only placeholders, which cannot differ. Positions are relative to from.
+    private static final class SnapshotDiff extends DiffUtil.Callback {
+        private final InventorySnapshot previous;
+        private final InventorySnapshot next;
+        final int from;
+        private final int oldEnd;
+        private final int newEnd;
+
+        SnapshotDiff(InventorySnapshot previous, InventorySnapshot next) {
+            this.previous = previous;
+            this.next = next;
+            from = Math.min(previous.start, next.start);
+            int end = Math.max(previous.start + previous.size, next.start + next.size);
+            int tail = Math.max(0, Math.min(previous.total - end, next.total - end));
+            oldEnd = previous.total - tail;
+            newEnd = next.total - tail;
+        }
+
+        @Override
+        public int getOldListSize() {
+            return oldEnd - from;
+        }
+
+        @Override
+        public int getNewListSize() {
+            return newEnd - from;
+        }
+
+        @Override
+        public boolean areItemsTheSame(int oldIndex, int newIndex) {
+            int oldPosition = from + oldIndex;
+            int newPosition = from + newIndex;
+            if (previous.isLoaded(oldPosition) && next.isLoaded(newPosition)) {
+                return previous.getId(oldPosition) == next.getId(newPosition);
+            }
+            return true;
+        }
+
+        @Override
+        public boolean areContentsTheSame(int oldIndex, int newIndex) {
+            int oldPosition = from + oldIndex;
+            int newPosition = from + newIndex;
+            boolean oldLoaded = previous.isLoaded(oldPosition);
+            if (oldLoaded != next.isLoaded(newPosition)) {
+                return false;
+            }
+            return !oldLoaded || (previous.getQuantity(oldPosition) == next.getQuantity(newPosition) &&
+                    previous.getName(oldPosition).equals(next.getName(newPosition)));
+        }
+    }
+}
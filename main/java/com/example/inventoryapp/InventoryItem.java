@@ -0,0 +1,17 @@
+package com.example.inventoryapp;
+
+// InventoryItem is an immutable copy of one row of the inventory table.
+public class InventoryItem {
+    public final int id;
+    public final String name;
+    public final int quantity;
+    // The item counts as low on stock while quantity <= reorderThreshold
+    public final int reorderThreshold;
+
+    public InventoryItem(int id, String name, int quantity, int reorderThreshold) {
+        this.id = id;
+        this.name = name;
+        this.quantity = quantity;
+        this.reorderThreshold = reorderThreshold;
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.inventoryapp;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// InventoryMetrics collects per-operation latency histograms, rows-read counters and main-thread
+// violations. It is off by default; while off, start() returns 0 and every other hook returns
+// after one volatile read, so instrumented code pays nothing measurable. Turn it on from
+// MetricsActivity, which also shows and saves the report.
+public final class InventoryMetrics {
+    private static final String TAG = "InventoryMetrics";
+
+    // Operation ids, indexes into NAMES and the per-operation arrays
+    static final int CHECK_USER = 0;
+    static final int ADD_USER = 1;
+    static final int ADD_ITEM = 2;
+    static final int UPDATE_ITEM = 3;
+    static final int ADJUST_QUANTITY = 4;
+    static final int DELETE_ITEM = 5;
+    static final int GET_ALL_ITEMS = 6;
+    static final int GET_ITEM_BY_ID = 7;
+    static final int GET_ITEM_BY_NAME = 8;
+    static final int GET_COUNT = 9;
+    static final int GET_PAGE = 10;
+    static final int GET_LOW_STOCK = 11;
+    static final int SEARCH = 12;
+    static final int IMPORT_BATCH = 13;
+    static final int EXPORT = 14;
+    static final int LEDGER_COMPACTION = 15;
+    static final int LOAD_INVENTORY = 16;
+    static final int SEND_ALERT = 17;
+    static final int MAIN_THREAD_LAG = 18;
+    static final int GET_SUMMARY = 19;
+    static final int SCAN_FLUSH = 20;
+    static final int GET_ITEMS_BY_SKU = 21;
+    static final int BULK_WRITE = 22;
+    static final int TIME_TO_FIRST_FRAME = 23;
+    static final int TIME_TO_FIRST_CONTENT = 24;
+    static final int STARTUP_WARM_UP = 25;
+    static final int SYNC = 26;
+    static final int ARCHIVE = 27;
+    static final int SEARCH_ARCHIVE = 28;
+    static final int RESTORE_ITEM = 29;
+    static final int WRITE_GROUP = 30;
+    static final int WRITE_BACKUP = 31;
+    static final int RESTORE_BACKUP = 32;
+
+    private static final String[] NAMES = {
+            "checkUser", "addUser", "addInventoryItem", "updateInventoryItem", "adjustQuantity",
+            "deleteInventoryItem", "getAllInventoryItems", "getInventoryItemById", "getInventoryItemByName",
+            "getInventoryCount", "getInventoryPage", "getLowStockItems", "searchInventoryItems",
+            "importBatch", "exportAll", "compactStockLedger", "loadInventoryItems", "sendAlert",
+            "mainThreadLag", "getInventorySummary", "flushScans",
+            "getInventoryItemsBySku", "bulkWrite",
+            "timeToFirstFrame", "timeToFirstContent", "startupWarmUp", "sync",
+            "archiveInactiveItems", "searchArchivedItems", "restoreArchivedItem", "writeGroup",
+            "writeBackup", "restoreBackup"};
+
+    // The main thread is polled this often; a heartbeat this late counts as a stall
+    private static final long HEARTBEAT_MILLIS = 500;
+    private static final long STALL_THRESHOLD_MILLIS = 100;
+
+    private static final LatencyHistogram[] histograms = new LatencyHistogram[NAMES.length];
+    private static final AtomicLongArray rowsRead = new AtomicLongArray(NAMES.length);
+    private static final AtomicLongArray mainThreadCalls = new AtomicLongArray(NAMES.length);
+    private static final AtomicLong mainThreadStalls = new AtomicLong();
+    private static volatile boolean enabled;
+
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private static long heartbeatDueAt;
+    private static final Runnable heartbeat = new Runnable() {
+        @Override
+        public void run() {
+            long lagMillis = SystemClock.uptimeMillis() - heartbeatDueAt;
+            histograms[MAIN_THREAD_LAG].record(Math.max(0, lagMillis) * 1_000_000L);
+            if (lagMillis >= STALL_THRESHOLD_MILLIS) {
+                mainThreadStalls.incrementAndGet();
+                Log.w(TAG, "Main thread stalled for " + lagMillis + " ms");
+            }
+            if (enabled) {
+                scheduleHeartbeat();
+            }
+        }
+    };
+
+    static {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    private InventoryMetrics() {
+    }
+
+    static String name(int operation) {
+        return NAMES[operation];
+    }
+
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    public static synchronized void setEnabled(boolean enable) {
+        if (enable == enabled) {
+            return;
+        }
+        enabled = enable;
+        if (enable) {
+            mainHandler.post(new Runnable() {
+                @Override
+                public void run() {
+                    mainHandler.removeCallbacks(heartbeat);
+                    if (enabled) {
+                        scheduleHeartbeat();
+                    }
+                }
+            });
+        } else {
+            mainHandler.removeCallbacks(heartbeat);
+        }
+    }
+
+    // Returns a start timestamp to pass to stop(), or 0 while disabled.
+    static long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    static void stop(int operation, long startNanos) {
+        if (startNanos != 0) {
+            histograms[operation].record(System.nanoTime() - startNanos);
+        }
+    }
+
+    static void addRows(int operation, long rows) {
+        if (enabled) {
+            rowsRead.addAndGet(operation, rows);
+        }
+    }
+
+    // Database and SMS work must stay off the UI thread; log the caller when it does not.
+    static void checkNotMainThread(int operation) {
+        if (enabled && Looper.myLooper() == Looper.getMainLooper()) {
+            mainThreadCalls.incrementAndGet(operation);
+            Log.w(TAG, NAMES[operation] + " called on the main thread", new Throwable());
+        }
+    }
+
+    public static void reset() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i].reset();
+            rowsRead.set(i, 0);
+            mainThreadCalls.set(i, 0);
+        }
+        mainThreadStalls.set(0);
+    }
+
+    // One line per operation that has been seen, latencies in milliseconds.
+    public static String report() {
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%-22s %7s %8s %8s %8s %8s %9s %4s%n",
+                "operation", "count", "p50", "p90", "p99", "max", "rows", "main"));
+        for (int i = 0; i < NAMES.length; i++) {
+            LatencyHistogram histogram = histograms[i];
+            if (histogram.getCount() == 0 && mainThreadCalls.get(i) == 0) {
+                continue;
+            }
+            report.append(String.format("%-22s %7d %8.2f %8.2f %8.2f %8.2f %9d %4d%n", NAMES[i],
+                    histogram.getCount(), millis(histogram.getPercentileNanos(50)),
+                    millis(histogram.getPercentileNanos(90)), millis(histogram.getPercentileNanos(99)),
+                    millis(histogram.getMaxNanos()), rowsRead.get(i), mainThreadCalls.get(i)));
+        }
+        report.append("main thread stalls >= ").append(STALL_THRESHOLD_MILLIS).append(" ms: ")
+                .append(mainThreadStalls.get()).append('\n');
+        return report.toString();
+    }
+
+    // Write the report, followed by extra lines, to <directory>/metrics-<timestamp>.txt and
+    // return the file.
+    public static File dump(File directory, String extra) throws IOException {
+        File file = new File(directory, "metrics-" + System.currentTimeMillis() + ".txt");
+        try (Writer writer = new FileWriter(file)) {
+            writer.write(report());
+            writer.write(extra);
+        }
+        return file;
+    }
+
+    private static void scheduleHeartbeat() {
+        heartbeatDueAt = SystemClock.uptimeMillis() + HEARTBEAT_MILLIS;
+        mainHandler.postDelayed(heartbeat, HEARTBEAT_MILLIS);
+    }
+
+    private static double millis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.inventoryapp;
+
+// InventoryPage holds one page of inventory rows as parallel arrays, in the order the query returned them.
+public class InventoryPage {
+    public final int[] ids;
+    public final String[] names;
+    public final int[] quantities;
+    public final int[] reorderThresholds;
+    public final int size;
+
+    public InventoryPage(int[] ids, String[] names, int[] quantities, int[] reorderThresholds, int size) {
+        this.ids = ids;
+        this.names = names;
+        this.quantities = quantities;
+        this.reorderThresholds = reorderThresholds;
+        this.size = size;
+    }
+}
@@ -0,0 +1,212 @@
+package com.example.inventoryapp;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// InventoryQueries runs item queries that stay current: a screen subscribes once and is handed
+// fresh results whenever a write could have changed them. Every change event is tested against
+// each live subscription, by row where the query allows it, so writes that cannot affect a
+// result never re-run it. A stale query re-runs on a background thread after a short quiet
+// period, so a burst of writes costs one re-query. Results are posted to the main thread.
+// The dashboard's search list observes a search. The grid does not use these: it pages through
+// InventoryWindow and applies change events itself, which a whole-table re-run could not match.
+public class InventoryQueries {
+    private static final String TAG = "InventoryQueries";
+
+    // Quiet period that merges a burst of writes into one re-query
+    static final long COALESCE_MILLIS = 50;
+
+    private static InventoryQueries instance;
+
+    private final DBHelper dbHelper;
+    private final ScheduledExecutorService executor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final CopyOnWriteArrayList<Subscription> subscriptions = new CopyOnWriteArrayList<>();
+
+    // Decides whether a change can alter a result that currently holds resultIds.
+    interface Relevance {
+        boolean affects(InventoryChange change, HashSet<Integer> resultIds);
+    }
+
+    // Every item: any write re-runs it
+    static final Relevance ALL_ITEMS = (change, resultIds) -> true;
+
+    // Items at or below their reorder threshold: only writes that leave an item low, or touch one
+    // that was listed, re-run it
+    static final Relevance LOW_STOCK = (change, resultIds) -> resultIds.contains(change.id) ||
+            (change.type != InventoryChange.DELETED && change.quantity <= change.reorderThreshold);
+
+    // A live query. Close it when the screen no longer needs results.
+    public final class Subscription {
+        private final int operation;
+        private final Callable<List<InventoryItem>> query;
+        private final Relevance relevance;
+        private final InventoryRepository.Callback<List<InventoryItem>> callback;
+        // Guarded by this
+        private HashSet<Integer> resultIds = new HashSet<>();
+        private boolean scheduled;
+        // While a run reads, resultIds is about to be replaced, so every change re-runs
+        private boolean running;
+        private boolean closed;
+
+        private Subscription(int operation, Callable<List<InventoryItem>> query, Relevance relevance,
+                             InventoryRepository.Callback<List<InventoryItem>> callback) {
+            this.operation = operation;
+            this.query = query;
+            this.relevance = relevance;
+            this.callback = callback;
+        }
+
+        public void close() {
+            synchronized (this) {
+                closed = true;
+            }
+            subscriptions.remove(this);
+        }
+
+        private void onChange(InventoryChange change) {
+            synchronized (this) {
+                if (!closed && (running || change.type == InventoryChange.RELOADED ||
+                        relevance.affects(change, resultIds))) {
+                    rerun(COALESCE_MILLIS);
+                }
+            }
+        }
+
+        // Callers hold this. A run already waiting picks up the change too.
+        private void rerun(long delayMillis) {
+            if (!scheduled) {
+                scheduled = true;
+                executor.schedule(this::run, delayMillis, TimeUnit.MILLISECONDS);
+            }
+        }
+
+        // Runs on the query thread. Changes landing while it reads schedule the next run.
+        private void run() {
+            synchronized (this) {
+                scheduled = false;
+                if (closed) {
+                    return;
+                }
+                running = true;
+            }
+            List<InventoryItem> items = null;
+            HashSet<Integer> ids = new HashSet<>();
+            long start = InventoryMetrics.start();
+            try {
+                items = query.call();
+                for (InventoryItem item : items) {
+                    ids.add(item.id);
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Observed query failed", e);
+            } finally {
+                InventoryMetrics.stop(operation, start);
+                synchronized (this) {
+                    running = false;
+                    if (items != null) {
+                        resultIds = ids;
+                    }
+                }
+            }
+            if (items == null) {
+                return;
+            }
+            InventoryMetrics.addRows(operation, items.size());
+            final List<InventoryItem> result = items;
+            mainHandler.post(() -> {
+                synchronized (Subscription.this) {
+                    if (closed) {
+                        return;
+                    }
+                }
+                callback.onResult(result);
+            });
+        }
+    }
+
+    public static synchronized InventoryQueries getInstance(Context context) {
+        if (instance == null) {
+            instance = new InventoryQueries(DBHelper.getInstance(context));
+        }
+        return instance;
+    }
+
+    private InventoryQueries(DBHelper dbHelper) {
+        this.dbHelper = dbHelper;
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-queries");
+            thread.setDaemon(true);
+            return thread;
+        });
+        dbHelper.addChangeListener(new DBHelper.InventoryChangeListener() {
+            @Override
+            public void onInventoryChanged(InventoryChange change) {
+                for (Subscription subscription : subscriptions) {
+                    subscription.onChange(change);
+                }
+            }
+        });
+    }
+
+    // Every item, in id order.
+    public Subscription observeAllItems(InventoryRepository.Callback<List<InventoryItem>> callback) {
+        return subscribe(InventoryMetrics.GET_ALL_ITEMS,
+                () -> SQLiteInventoryStore.readItems(dbHelper.getAllInventoryItems()), ALL_ITEMS, callback);
+    }
+
+    // Items at or below their own reorder threshold, read through the low-stock index.
+    public Subscription observeLowStockItems(InventoryRepository.Callback<List<InventoryItem>> callback) {
+        return subscribe(InventoryMetrics.GET_LOW_STOCK,
+                () -> SQLiteInventoryStore.readItems(dbHelper.getLowStockItems()), LOW_STOCK, callback);
+    }
+
+    // Search results for text, as searchInventoryItems.
+    public Subscription observeSearch(String text, final int limit,
+                                      InventoryRepository.Callback<List<InventoryItem>> callback) {
+        final String trimmed = text.trim();
+        return subscribe(InventoryMetrics.SEARCH,
+                () -> SQLiteInventoryStore.readItems(dbHelper.searchInventoryItems(trimmed, limit)),
+                search(trimmed), callback);
+    }
+
+    // Only writes to a listed item, or to an item whose name contains every word typed, re-run a
+    // search for text.
+    static Relevance search(String text) {
+        final String[] words = text.trim().toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+");
+        return (change, resultIds) -> resultIds.contains(change.id) ||
+                (change.type != InventoryChange.DELETED && containsWords(change.name, words));
+    }
+
+    private Subscription subscribe(int operation, Callable<List<InventoryItem>> query, Relevance relevance,
+                                   InventoryRepository.Callback<List<InventoryItem>> callback) {
+        Subscription subscription = new Subscription(operation, query, relevance, callback);
+        subscriptions.add(subscription);
+        synchronized (subscription) {
+            subscription.rerun(0);
+        }
+        return subscription;
+    }
+
+    // A looser test than the FTS prefix match, so it never misses an item the search would find.
+    private static boolean containsWords(String name, String[] words) {
+        String folded = name.toLowerCase(Locale.ROOT);
+        for (String word : words) {
+            if (!folded.contains(word)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,632 @@
+package com.example.inventoryapp;
+
+import android.content.Context;
+import android.database.Cursor;
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// InventoryRepository runs every DBHelper read on a small background pool and every mutation
+// through the InventoryWriter queue, and hands the result back on the main thread, so
+// activities never touch SQLite directly.
+public class InventoryRepository implements InventoryWindow.PageSource {
+    private static final String TAG = "InventoryRepository";
+
+    // Two workers: WAL lets one read run next to a write
+    private static final int THREAD_COUNT = 2;
+    private static final int QUEUE_CAPACITY = 64;
+
+    // Movements older than this are folded into ledger snapshots, checked every few hours
+    private static final long LEDGER_RETENTION_MILLIS = TimeUnit.DAYS.toMillis(7);
+    private static final long LEDGER_COMPACTION_PERIOD_MILLIS = TimeUnit.HOURS.toMillis(6);
+    // The trigger-maintained summary is checked against a full scan once a day
+    private static final long SUMMARY_CHECK_PERIOD_MILLIS = TimeUnit.DAYS.toMillis(1);
+    // Items left at zero this long, or untouched this long at any quantity, move to the archive
+    private static final long ARCHIVE_EMPTY_AFTER_MILLIS = TimeUnit.DAYS.toMillis(30);
+    private static final long ARCHIVE_IDLE_AFTER_MILLIS = TimeUnit.DAYS.toMillis(180);
+    private static final long ARCHIVE_PERIOD_MILLIS = TimeUnit.DAYS.toMillis(1);
+    // A fresh snapshot of the inventory and users is taken daily, and the two before it are kept
+    // in case the newest already holds bad data. They live outside Android auto-backup, whose
+    // quota a large catalog would blow.
+    private static final String BACKUP_FILE_NAME = "inventory.snapshot";
+    private static final int BACKUP_GENERATIONS = 3;
+    private static final long BACKUP_PERIOD_MILLIS = TimeUnit.DAYS.toMillis(1);
+
+    // Receives the result of a background operation on the main thread, or instead the error that
+    // stopped it: the pool or write queue was full, or the operation threw. The repository has
+    // already logged the error, so callers with nothing to show can leave onError alone.
+    public interface Callback<T> {
+        void onResult(T result);
+
+        default void onError(Exception error) {
+        }
+    }
+
+    // The row count and first grid page, read at startup before the dashboard exists
+    static final class FirstPage {
+        final int count;
+        final InventoryPage page;
+
+        FirstPage(int count, InventoryPage page) {
+            this.count = count;
+            this.page = page;
+        }
+    }
+
+    private static InventoryRepository instance;
+
+    private final DBHelper dbHelper;
+    private final InventoryWriter writer;
+    private final File backupFile;
+    private final ThreadPoolExecutor executor;
+    // Long bulk jobs (import/export, backup/restore) run here so they never occupy the interactive pool
+    private final ExecutorService bulkExecutor;
+    private final Handler mainHandler = new Handler(Looper.getMainLooper());
+    private final HashMap<DBHelper.InventoryChangeListener, DBHelper.InventoryChangeListener> mainThreadListeners =
+            new HashMap<>();
+    // Guarded by this. Any write drops the prefetched page, and the change count tells a
+    // prefetch still in flight that it read stale rows.
+    private FirstPage firstPage;
+    private long changes;
+
+    public static synchronized InventoryRepository getInstance(Context context) {
+        if (instance == null) {
+            instance = new InventoryRepository(DBHelper.getInstance(context), InventoryWriter.getInstance(context),
+                    new File(context.getNoBackupFilesDir(), BACKUP_FILE_NAME),
+                    MaintenanceScheduler.getInstance(context));
+        }
+        return instance;
+    }
+
+    private InventoryRepository(DBHelper dbHelper, InventoryWriter writer, File backupFile,
+                                MaintenanceScheduler scheduler) {
+        this.dbHelper = dbHelper;
+        this.writer = writer;
+        this.backupFile = backupFile;
+        final AtomicInteger threadNumber = new AtomicInteger();
+        ThreadFactory threadFactory = runnable -> {
+            Thread thread = new Thread(runnable, "inventory-db-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+        executor = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(QUEUE_CAPACITY), threadFactory);
+        bulkExecutor = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-bulk");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        scheduler.schedulePeriodic("ledger-compaction", () -> {
+            int compacted = writeAndWait(() -> {
+                long start = InventoryMetrics.start();
+                try {
+                    return dbHelper.compactStockLedger(System.currentTimeMillis() - LEDGER_RETENTION_MILLIS);
+                } finally {
+                    InventoryMetrics.stop(InventoryMetrics.LEDGER_COMPACTION, start);
+                }
+            });
+            Log.d(TAG, "Compacted " + compacted + " stock movements");
+        }, LEDGER_COMPACTION_PERIOD_MILLIS);
+        scheduler.schedulePeriodic("summary-check", () -> {
+            if (!writeAndWait(dbHelper::verifyInventorySummary)) {
+                Log.w(TAG, "Inventory summary was out of date and has been rebuilt");
+            }
+        }, SUMMARY_CHECK_PERIOD_MILLIS);
+        // One chunk per write, so interactive writes queue between chunks (see InventoryWriter)
+        scheduler.schedulePeriodic("inventory-archive", () -> {
+            long start = InventoryMetrics.start();
+            long now = System.currentTimeMillis();
+            int archived = 0;
+            int chunk;
+            do {
+                chunk = writeAndWait(() -> dbHelper.archiveInactiveChunk(now - ARCHIVE_EMPTY_AFTER_MILLIS,
+                        now - ARCHIVE_IDLE_AFTER_MILLIS));
+                archived += chunk;
+            } while (chunk > 0);
+            InventoryMetrics.stop(InventoryMetrics.ARCHIVE, start);
+            InventoryMetrics.addRows(InventoryMetrics.ARCHIVE, archived);
+            Log.d(TAG, "Archived " + archived + " inactive items");
+        }, ARCHIVE_PERIOD_MILLIS);
+        // On the bulk thread, so it never overlaps a backup or restore started from the dashboard.
+        // The job waits for it, so only a finished snapshot counts as the day's run.
+        scheduler.schedulePeriodic("inventory-backup", () -> {
+            try {
+                Log.d(TAG, "Backed up " + bulkExecutor.submit(this::writeBackup).get() + " items");
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }, BACKUP_PERIOD_MILLIS);
+        dbHelper.addChangeListener(change -> {
+            synchronized (this) {
+                changes++;
+                firstPage = null;
+            }
+        });
+    }
+
+    // Startup: open and warm the database, then read the row count and the first pageSize rows
+    // so the dashboard can show them without waiting. Runs on the pool while login is shown.
+    public void warmUp(final int pageSize) {
+        executor.execute(() -> {
+            long start = InventoryMetrics.start();
+            try {
+                dbHelper.warmUp();
+                long stamp;
+                synchronized (this) {
+                    stamp = changes;
+                }
+                int count = (int) dbHelper.getInventoryCount();
+                InventoryPage page = readPage(() -> dbHelper.getInventoryPageAt(0, pageSize));
+                synchronized (this) {
+                    if (stamp == changes) {
+                        firstPage = new FirstPage(count, page);
+                    }
+                }
+            } catch (Exception e) {
+                Log.e(TAG, "Startup warm-up failed", e);
+            } finally {
+                InventoryMetrics.stop(InventoryMetrics.STARTUP_WARM_UP, start);
+            }
+        });
+    }
+
+    // The startup page if no write has happened since it was read, otherwise null.
+    @Override
+    public synchronized FirstPage getFirstPage() {
+        return firstPage;
+    }
+
+    public Future<Boolean> checkUser(final String username, final String password, Callback<Boolean> callback) {
+        return submit(InventoryMetrics.CHECK_USER, () -> dbHelper.checkUser(username, password), callback);
+    }
+
+    public Future<Boolean> addUser(final String username, final String password, Callback<Boolean> callback) {
+        return write(InventoryMetrics.ADD_USER, () -> dbHelper.addUser(username, password), callback);
+    }
+
+    public Future<Long> addInventoryItem(final String itemName, final int quantity, Callback<Long> callback) {
+        return write(InventoryMetrics.ADD_ITEM, () -> dbHelper.addInventoryItem(itemName, quantity), callback);
+    }
+
+    public Future<Integer> updateInventoryItem(final int id, final String itemName, final int quantity,
+                                               final int reorderThreshold, Callback<Integer> callback) {
+        return write(InventoryMetrics.UPDATE_ITEM,
+                () -> dbHelper.updateInventoryItem(id, itemName, quantity, reorderThreshold), callback);
+    }
+
+    // Atomically add delta to an item's quantity and record the movement in the ledger.
+    public Future<Integer> adjustQuantity(final int id, final int delta, final String reason,
+                                          Callback<Integer> callback) {
+        return write(InventoryMetrics.ADJUST_QUANTITY, () -> dbHelper.adjustQuantity(id, delta, reason), callback);
+    }
+
+    public Future<Integer> deleteInventoryItem(final int id, Callback<Integer> callback) {
+        return write(InventoryMetrics.DELETE_ITEM, () -> dbHelper.deleteInventoryItem(id), callback);
+    }
+
+    // Bulk edits of the given ids, one transaction each; deliver the number of items changed.
+    public Future<Integer> deleteInventoryItems(final int[] ids, Callback<Integer> callback) {
+        return write(InventoryMetrics.BULK_WRITE, () -> dbHelper.deleteInventoryItems(ids, ids.length), callback);
+    }
+
+    public Future<Integer> setQuantities(final int[] ids, final int quantity, Callback<Integer> callback) {
+        return write(InventoryMetrics.BULK_WRITE, () -> dbHelper.setQuantities(ids, ids.length, quantity), callback);
+    }
+
+    public Future<Integer> adjustQuantities(final int[] ids, final int delta, final String reason,
+                                            Callback<Integer> callback) {
+        return write(InventoryMetrics.BULK_WRITE,
+                () -> dbHelper.adjustQuantities(ids, ids.length, delta, reason), callback);
+    }
+
+    // Read the whole inventory table into memory on the background thread.
+    public Future<List<InventoryItem>> getAllInventoryItems(Callback<List<InventoryItem>> callback) {
+        return submit(InventoryMetrics.GET_ALL_ITEMS,
+                () -> SQLiteInventoryStore.readItems(dbHelper.getAllInventoryItems()), callback);
+    }
+
+    // Delivers null when no item has that id. Cached items are delivered without touching SQLite.
+    public Future<InventoryItem> getInventoryItemById(final int id, Callback<InventoryItem> callback) {
+        final ItemCache itemCache = dbHelper.getItemCache();
+        InventoryItem cached = itemCache.get(id);
+        if (cached != null) {
+            return deliver(cached, callback);
+        }
+        return submit(InventoryMetrics.GET_ITEM_BY_ID, () -> {
+            long stamp = itemCache.stamp();
+            InventoryItem item = SQLiteInventoryStore.readFirstItem(dbHelper.getInventoryItemById(id));
+            if (item != null) {
+                itemCache.fill(item, stamp);
+            }
+            return item;
+        }, callback);
+    }
+
+    // Delivers the first case-insensitive match, or null when there is none.
+    public Future<InventoryItem> getInventoryItemByName(final String name, Callback<InventoryItem> callback) {
+        return submit(InventoryMetrics.GET_ITEM_BY_NAME,
+                () -> SQLiteInventoryStore.readFirstItem(dbHelper.getInventoryItemByName(name)), callback);
+    }
+
+    // Delivers the item with this SKU, or null when no item has it.
+    public Future<InventoryItem> getInventoryItemBySku(final String sku, Callback<InventoryItem> callback) {
+        return submit(InventoryMetrics.GET_ITEMS_BY_SKU,
+                () -> SQLiteInventoryStore.readFirstItem(dbHelper.getInventoryItemBySku(sku)), callback);
+    }
+
+    // Resolve a list of codes, such as a scanned delivery, with one indexed query per
+    // MAX_SKUS_PER_QUERY codes. Delivers the items keyed by SKU; unknown codes are left out.
+    public Future<Map<String, InventoryItem>> getInventoryItemsBySku(Collection<String> skus,
+                                                                     Callback<Map<String, InventoryItem>> callback) {
+        final String[] codes = new LinkedHashSet<>(skus).toArray(new String[0]);
+        return submit(InventoryMetrics.GET_ITEMS_BY_SKU, () -> {
+            HashMap<String, InventoryItem> items = new HashMap<>();
+            for (int from = 0; from < codes.length; from += DBHelper.MAX_SKUS_PER_QUERY) {
+                int count = Math.min(DBHelper.MAX_SKUS_PER_QUERY, codes.length - from);
+                SQLiteInventoryStore.readItemsBySku(dbHelper.getInventoryItemsBySku(codes, from, count), items);
+            }
+            return items;
+        }, callback);
+    }
+
+    // Delivers the item's SKU, or null if it has none.
+    public Future<String> getInventoryItemSku(final int id, Callback<String> callback) {
+        return submit(InventoryMetrics.GET_ITEM_BY_ID, () -> dbHelper.getInventoryItemSku(id), callback);
+    }
+
+    // Delivers 1 on success, 0 if the item is gone, or -1 if the SKU belongs to another item.
+    public Future<Integer> setInventoryItemSku(final int id, final String sku, Callback<Integer> callback) {
+        return write(InventoryMetrics.UPDATE_ITEM, () -> dbHelper.setInventoryItemSku(id, sku), callback);
+    }
+
+    @Override
+    public Future<Long> getInventoryCount(Callback<Long> callback) {
+        return submit(InventoryMetrics.GET_COUNT, () -> dbHelper.getInventoryCount(), callback);
+    }
+
+    @Override
+    public Future<InventoryPage> getInventoryPageAfter(final int afterId, final int limit,
+                                                       Callback<InventoryPage> callback) {
+        return submit(InventoryMetrics.GET_PAGE,
+                () -> readPage(() -> dbHelper.getInventoryPageAfter(afterId, limit)), callback);
+    }
+
+    // Delivers the page highest id first.
+    @Override
+    public Future<InventoryPage> getInventoryPageBefore(final int beforeId, final int limit,
+                                                        Callback<InventoryPage> callback) {
+        return submit(InventoryMetrics.GET_PAGE,
+                () -> readPage(() -> dbHelper.getInventoryPageBefore(beforeId, limit)), callback);
+    }
+
+    @Override
+    public Future<InventoryPage> getInventoryPageAt(final int offset, final int limit,
+                                                    Callback<InventoryPage> callback) {
+        return submit(InventoryMetrics.GET_PAGE,
+                () -> readPage(() -> dbHelper.getInventoryPageAt(offset, limit)), callback);
+    }
+
+    // SKU, unit and low-stock totals; a single-row read, cheap enough to repeat after every write.
+    public Future<InventorySummary> getInventorySummary(Callback<InventorySummary> callback) {
+        return submit(InventoryMetrics.GET_SUMMARY, () -> dbHelper.getInventorySummary(), callback);
+    }
+
+    // Items at or below their own reorder threshold, read through the low-stock index.
+    public Future<List<InventoryItem>> getLowStockItems(Callback<List<InventoryItem>> callback) {
+        return submit(InventoryMetrics.GET_LOW_STOCK,
+                () -> SQLiteInventoryStore.readItems(dbHelper.getLowStockItems()), callback);
+    }
+
+    // Ranked prefix search over item names. Cancel the returned future to drop a stale search.
+    public Future<List<InventoryItem>> searchInventoryItems(final String text, final int limit,
+                                                            Callback<List<InventoryItem>> callback) {
+        return submit(InventoryMetrics.SEARCH,
+                () -> SQLiteInventoryStore.readItems(dbHelper.searchInventoryItems(text, limit)), callback);
+    }
+
+    // Ranked prefix search over archived items, which no other read includes.
+    public Future<List<InventoryItem>> searchArchivedItems(final String text, final int limit,
+                                                           Callback<List<InventoryItem>> callback) {
+        return submit(InventoryMetrics.SEARCH_ARCHIVE,
+                () -> SQLiteInventoryStore.readItems(dbHelper.searchArchivedItems(text, limit)), callback);
+    }
+
+    // Move an archived item back into the inventory; delivers 1 on success or 0 if it is gone.
+    public Future<Integer> restoreArchivedItem(final int id, Callback<Integer> callback) {
+        return write(InventoryMetrics.RESTORE_ITEM, () -> dbHelper.restoreArchivedItem(id), callback);
+    }
+
+    // Stream a CSV catalog into the inventory on the bulk thread, one CsvImporter batch at a time
+    // through the writer (see InventoryWriter). Progress and batches of row errors are posted to
+    // listener on the main thread; a stream that could not be read goes to onError.
+    public Future<CsvImporter.Result> importCsv(final InputStream input, final CsvImporter.Listener listener,
+                                                final Callback<CsvImporter.Result> callback) {
+        final CsvImporter.Listener mainThreadListener = new CsvImporter.Listener() {
+            @Override
+            public void onProgress(int linesRead, int inserted, int updated) {
+                mainHandler.post(() -> listener.onProgress(linesRead, inserted, updated));
+            }
+
+            @Override
+            public void onRowErrors(List<CsvImporter.RowError> errors) {
+                mainHandler.post(() -> listener.onRowErrors(errors));
+            }
+        };
+        return bulkExecutor.submit(() -> {
+            final CsvImporter.Result result;
+            try (Reader reader = new InputStreamReader(input, StandardCharsets.UTF_8)) {
+                result = new CsvImporter(dbHelper, writer).importCsv(reader, mainThreadListener);
+            } catch (Exception e) {
+                Log.e(TAG, "CSV import failed", e);
+                postError(callback, e);
+                throw e;
+            }
+            mainHandler.post(() -> callback.onResult(result));
+            return result;
+        });
+    }
+
+    // Export inventory and users (without passwords) into directory on the bulk thread.
+    // callback receives the files written.
+    public Future<File[]> exportAll(final File directory, final InventoryExporter.Format format, final boolean gzip,
+                                    final Callback<File[]> callback) {
+        return bulkExecutor.submit(() -> {
+            final File[] files;
+            long start = InventoryMetrics.start();
+            try {
+                InventoryExporter exporter = new InventoryExporter();
+                files = new File[]{
+                        exporter.export(SQLiteRowSources.inventory(dbHelper), format, gzip, directory),
+                        exporter.export(SQLiteRowSources.users(dbHelper), format, gzip, directory)};
+            } catch (Exception e) {
+                Log.e(TAG, "Export failed", e);
+                postError(callback, e);
+                throw e;
+            } finally {
+                InventoryMetrics.stop(InventoryMetrics.EXPORT, start);
+            }
+            mainHandler.post(() -> callback.onResult(files));
+            return files;
+        });
+    }
+
+    // Snapshot the inventory and users to the backup file on the bulk thread. callback receives
+    // the number of items saved; if the backup fails the earlier snapshots are kept.
+    public Future<Long> backUp(final Callback<Long> callback) {
+        return bulkExecutor.submit(() -> {
+            final long items;
+            try {
+                items = writeBackup();
+            } catch (Exception e) {
+                Log.e(TAG, "Backup failed", e);
+                postError(callback, e);
+                throw e;
+            }
+            mainHandler.post(() -> callback.onResult(items));
+            return items;
+        });
+    }
+
+    // Replace the inventory and users with snapshot, one of getBackupFiles. The snapshot is mapped
+    // and verified on the bulk thread, then loaded as one write on the writer, so the restore
+    // lands between other writes instead of racing them. callback receives the number of items
+    // restored. If the snapshot is gone, fails verification or cannot be loaded, the error goes to
+    // onError and nothing was changed.
+    public Future<Integer> restoreBackup(final File snapshot, final Callback<Integer> callback) {
+        return bulkExecutor.submit(() -> {
+            final int items;
+            long start = InventoryMetrics.start();
+            try (InventoryBackup.Reader backup = InventoryBackup.Reader.open(snapshot)) {
+                // Rewound first in case the writer retries it after a failed group
+                items = writer.submit(() -> {
+                    backup.rewind();
+                    return dbHelper.restoreBackup(backup);
+                }, null).get();
+                InventoryMetrics.addRows(InventoryMetrics.RESTORE_BACKUP, backup.getItemCount() + backup.getUserCount());
+            } catch (Exception e) {
+                Exception error = e instanceof ExecutionException && e.getCause() instanceof Exception
+                        ? (Exception) e.getCause() : e;
+                Log.e(TAG, "Restore failed", error);
+                postError(callback, error);
+                throw error;
+            } finally {
+                InventoryMetrics.stop(InventoryMetrics.RESTORE_BACKUP, start);
+            }
+            mainHandler.post(() -> callback.onResult(items));
+            return items;
+        });
+    }
+
+    // The snapshots restoreBackup can read, newest first; empty before the first backup.
+    public List<File> getBackupFiles() {
+        return InventoryBackup.generations(backupFile, BACKUP_GENERATIONS);
+    }
+
+    // One line of item cache statistics for the metrics screen.
+    public String describeItemCache() {
+        ItemCache itemCache = dbHelper.getItemCache();
+        long hits = itemCache.getHits();
+        long misses = itemCache.getMisses();
+        return String.format("item cache: %d/%d items, %d hits, %d misses (%.1f%% hit rate)%n",
+                itemCache.size(), itemCache.capacity(), hits, misses,
+                hits + misses == 0 ? 0.0 : hits * 100.0 / (hits + misses));
+    }
+
+    // Forward DBHelper change events to listener on the main thread.
+    public void addChangeListener(final DBHelper.InventoryChangeListener listener) {
+        DBHelper.InventoryChangeListener forwarder = change -> mainHandler.post(() -> listener.onInventoryChanged(change));
+        synchronized (mainThreadListeners) {
+            mainThreadListeners.put(listener, forwarder);
+        }
+        dbHelper.addChangeListener(forwarder);
+    }
+
+    public void removeChangeListener(DBHelper.InventoryChangeListener listener) {
+        DBHelper.InventoryChangeListener forwarder;
+        synchronized (mainThreadListeners) {
+            forwarder = mainThreadListeners.remove(listener);
+        }
+        if (forwarder != null) {
+            dbHelper.removeChangeListener(forwarder);
+        }
+    }
+
+    // Write a snapshot to backupFile, moving the previous ones down a generation only once the new
+    // one is complete.
+    // Returns the number of items saved. Call on the bulk thread.
+    private long writeBackup() throws IOException {
+        long start = InventoryMetrics.start();
+        try (InventoryBackup.Writer backup = new InventoryBackup.Writer(backupFile, BACKUP_GENERATIONS)) {
+            dbHelper.writeBackup(backup);
+            backup.commit();
+            InventoryMetrics.addRows(InventoryMetrics.WRITE_BACKUP, backup.getItemCount() + backup.getUserCount());
+            return backup.getItemCount();
+        } finally {
+            InventoryMetrics.stop(InventoryMetrics.WRITE_BACKUP, start);
+        }
+    }
+
+    // Read a page and remember its rows in the item cache, so lookups of visible items skip SQL.
+    private InventoryPage readPage(Callable<Cursor> query) throws Exception {
+        ItemCache itemCache = dbHelper.getItemCache();
+        long stamp = itemCache.stamp();
+        InventoryPage page = SQLiteInventoryStore.readPage(query.call());
+        itemCache.fill(page, stamp);
+        return page;
+    }
+
+    // Post an already known result to callback without going through the pool.
+    private <T> Future<T> deliver(final T result, final Callback<T> callback) {
+        FutureTask<T> done = new FutureTask<>(() -> result);
+        done.run();
+        if (callback != null) {
+            mainHandler.post(() -> callback.onResult(result));
+        }
+        return done;
+    }
+
+    // Queue a mutation on the writer, which may commit it together with other writes, and post
+    // its result to callback (which may be null) on the main thread once committed. The time it
+    // ran for is recorded under operation; queueing and commit time show up under writeGroup.
+    // A write refused because the queue is full (only possible from the main thread) or one that
+    // failed goes to callback.onError instead.
+    private <T> Future<T> write(final int operation, final Callable<T> work, final Callback<T> callback) {
+        Callback<T> onCommitted = callback == null ? null : new Callback<T>() {
+            @Override
+            public void onResult(T result) {
+                mainHandler.post(() -> callback.onResult(result));
+            }
+
+            @Override
+            public void onError(Exception error) {
+                postError(callback, error);
+            }
+        };
+        try {
+            return writer.submit(() -> {
+                long start = InventoryMetrics.start();
+                try {
+                    return work.call();
+                } finally {
+                    InventoryMetrics.stop(operation, start);
+                }
+            }, onCommitted);
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Write queue is full; refused " + InventoryMetrics.name(operation));
+            return fail(e, callback);
+        }
+    }
+
+    // Run a maintenance job as one write and wait for it to commit, on a background thread.
+    private <T> T writeAndWait(Callable<T> work) {
+        try {
+            return writer.submitAndWait(work);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    // Post error to callback's error path (if there is a callback) on the main thread.
+    private void postError(final Callback<?> callback, final Exception error) {
+        if (callback != null) {
+            mainHandler.post(() -> callback.onError(error));
+        }
+    }
+
+    // A Future already failed with error, which is also posted to callback.
+    private <T> Future<T> fail(final Exception error, final Callback<T> callback) {
+        FutureTask<T> failed = new FutureTask<>(() -> {
+            throw error;
+        });
+        failed.run();
+        postError(callback, error);
+        return failed;
+    }
+
+    // Run work on the pool and post its result to callback (which may be null) on the main thread,
+    // or its failure to callback.onError. A burst that overflows the pool's queue is refused
+    // rather than queued without bound; the refusal goes to onError too.
+    // The time taken, and the rows read for list, map and page results, are recorded under operation.
+    private <T> Future<T> submit(final int operation, final Callable<T> work, final Callback<T> callback) {
+        try {
+            return executor.submit(() -> run(operation, work, callback));
+        } catch (RejectedExecutionException e) {
+            Log.w(TAG, "Database pool is busy; refused " + InventoryMetrics.name(operation));
+            return fail(e, callback);
+        }
+    }
+
+    private <T> T run(int operation, Callable<T> work, final Callback<T> callback) throws Exception {
+        final T result;
+        long start = InventoryMetrics.start();
+        try {
+            result = work.call();
+        } catch (Exception e) {
+            Log.e(TAG, "Database operation failed", e);
+            postError(callback, e);
+            throw e;
+        } finally {
+            InventoryMetrics.stop(operation, start);
+        }
+        if (result instanceof List) {
+            InventoryMetrics.addRows(operation, ((List<?>) result).size());
+        } else if (result instanceof Map) {
+            InventoryMetrics.addRows(operation, ((Map<?, ?>) result).size());
+        } else if (result instanceof InventoryPage) {
+            InventoryMetrics.addRows(operation, ((InventoryPage) result).size);
+        }
+        if (callback != null) {
+            mainHandler.post(() -> callback.onResult(result));
+        }
+        return result;
+    }
+}
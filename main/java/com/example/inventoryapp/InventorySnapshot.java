@@ -0,0 +1,40 @@
+package com.example.inventoryapp;
+
+// InventorySnapshot is an immutable copy of an InventoryWindow: the row count plus the loaded
+// run [start, start + size) as parallel arrays. The grid adapter binds only from snapshots, so
+// what it shows never changes between the diff that announced it and the bind that draws it.
+final class InventorySnapshot {
+    static final InventorySnapshot EMPTY = new InventorySnapshot(0, 0, new int[0], new String[0], new int[0]);
+
+    final int total;
+    final int start;
+    final int size;
+    private final int[] ids;
+    private final String[] names;
+    private final int[] quantities;
+
+    InventorySnapshot(int total, int start, int[] ids, String[] names, int[] quantities) {
+        this.total = total;
+        this.start = start;
+        this.size = ids.length;
+        this.ids = ids;
+        this.names = names;
+        this.quantities = quantities;
+    }
+
+    boolean isLoaded(int position) {
+        return position >= start && position < start + size;
+    }
+
+    int getId(int position) {
+        return ids[position - start];
+    }
+
+    String getName(int position) {
+        return names[position - start];
+    }
+
+    int getQuantity(int position) {
+        return quantities[position - start];
+    }
+}
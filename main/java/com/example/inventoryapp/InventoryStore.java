@@ -0,0 +1,40 @@
+package com.example.inventoryapp;
+
+// InventoryStore is the storage contract behind DBHelper's operations. SQLiteInventoryStore is the
+// on-device implementation; MemoryInventoryStore runs on a plain JVM for benchmarks and load tests.
+// Names compare case-insensitively for ASCII letters, like SQLite's NOCASE collation.
+public interface InventoryStore {
+
+    // New items are low on stock at 4 or fewer units, matching the old fixed "quantity < 5" rule
+    int DEFAULT_REORDER_THRESHOLD = 4;
+
+    // Receives items in ascending id order during a full scan.
+    interface ItemVisitor {
+        void visit(int id, String name, int quantity);
+    }
+
+    boolean checkUser(String username, String password);
+
+    boolean addUser(String username, String password);
+
+    // Returns the new item's id, or -1 on failure. New items get DEFAULT_REORDER_THRESHOLD.
+    long addInventoryItem(String itemName, int quantity);
+
+    int updateInventoryItem(int id, String itemName, int quantity, int reorderThreshold);
+
+    int deleteInventoryItem(int id);
+
+    int adjustQuantity(int id, int delta, String reason);
+
+    // Returns null when no item has that id.
+    InventoryItem getInventoryItemById(int id);
+
+    // Returns the lowest-id case-insensitive match, or null.
+    InventoryItem getInventoryItemByName(String name);
+
+    InventoryPage getInventoryPageAfter(int afterId, int limit);
+
+    long getInventoryCount();
+
+    void forEachInventoryItem(ItemVisitor visitor);
+}
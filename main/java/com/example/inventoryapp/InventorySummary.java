@@ -0,0 +1,15 @@
+package com.example.inventoryapp;
+
+// InventorySummary holds the dashboard totals: distinct items, total units on hand, and items
+// below the low-stock threshold.
+public class InventorySummary {
+    public final long skuCount;
+    public final long unitCount;
+    public final long lowStockCount;
+
+    public InventorySummary(long skuCount, long unitCount, long lowStockCount) {
+        this.skuCount = skuCount;
+        this.unitCount = unitCount;
+        this.lowStockCount = lowStockCount;
+    }
+}
@@ -0,0 +1,326 @@
+package com.example.inventoryapp;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.Future;
+
+// InventoryWindow keeps a bounded, contiguous run of inventory rows (ordered by id) for the grid.
+// Rows are fetched a page at a time with keyset queries as the user scrolls and rows that fall
+// out of the window are dropped, so memory stays flat however large the catalog grows.
+// All methods must be called on the main thread.
+class InventoryWindow {
+    static final int PAGE_SIZE = 60;
+    static final int MAX_PAGES = 4;
+    private static final int CAPACITY = PAGE_SIZE * MAX_PAGES;
+
+    // Notified on the main thread when the window changes. onRowChanged means only the
+    // row at position changed; onWindowChanged means the count or positions moved.
+    interface Listener {
+        void onWindowChanged();
+
+        void onRowChanged(int position);
+    }
+
+    // The reads the window pages with. InventoryRepository serves them from the database; any
+    // source works as long as it delivers results on the main thread.
+    interface PageSource {
+        InventoryRepository.FirstPage getFirstPage();
+
+        Future<Long> getInventoryCount(InventoryRepository.Callback<Long> callback);
+
+        Future<InventoryPage> getInventoryPageAfter(int afterId, int limit,
+                                                    InventoryRepository.Callback<InventoryPage> callback);
+
+        // Delivers the page highest id first.
+        Future<InventoryPage> getInventoryPageBefore(int beforeId, int limit,
+                                                     InventoryRepository.Callback<InventoryPage> callback);
+
+        Future<InventoryPage> getInventoryPageAt(int offset, int limit,
+                                                 InventoryRepository.Callback<InventoryPage> callback);
+    }
+
+    private final PageSource repository;
+    private final Listener listener;
+
+    // Rows [start, start + size) of the table, stored as parallel arrays
+    private final int[] ids = new int[CAPACITY];
+    private final String[] names = new String[CAPACITY];
+    private final int[] quantities = new int[CAPACITY];
+    private int start;
+    private int size;
+    private int total;
+
+    // Bumped on reload so pages that were in flight for the old data are ignored
+    private int generation;
+    private boolean loading;
+    private boolean reloading;
+    private int loadingPosition = -1;
+    private int pendingPosition = -1;
+    // Updates that landed while a page was in flight; the page may hold the old values
+    private final ArrayList<InventoryChange> missedUpdates = new ArrayList<>();
+
+    InventoryWindow(PageSource repository, Listener listener) {
+        this.repository = repository;
+        this.listener = listener;
+    }
+
+    // Drop every windowed row and re-read the row count. Pages are fetched again on demand.
+    // If startup has prefetched the first page and nothing has been written since, it is shown
+    // straight away instead.
+    void reload() {
+        InventoryRepository.FirstPage first = repository.getFirstPage();
+        if (first != null) {
+            generation++;
+            total = first.count;
+            start = 0;
+            size = 0;
+            append(first.page);
+            loading = false;
+            reloading = false;
+            listener.onWindowChanged();
+            return;
+        }
+        final int loadGeneration = ++generation;
+        loading = true;
+        reloading = true;
+        repository.getInventoryCount(new InventoryRepository.Callback<Long>() {
+            @Override
+            public void onResult(Long count) {
+                if (loadGeneration != generation) {
+                    return;
+                }
+                total = (int) (long) count;
+                start = 0;
+                size = 0;
+                loading = false;
+                reloading = false;
+                listener.onWindowChanged();
+            }
+        });
+    }
+
+    int getCount() {
+        return total;
+    }
+
+    // Copy the count and loaded rows; the window itself keeps changing as pages arrive.
+    InventorySnapshot snapshot() {
+        return new InventorySnapshot(total, start, Arrays.copyOf(ids, size), Arrays.copyOf(names, size),
+                Arrays.copyOf(quantities, size));
+    }
+
+    boolean isLoaded(int position) {
+        return position >= start && position < start + size;
+    }
+
+    int getId(int position) {
+        return ids[position - start];
+    }
+
+    String getName(int position) {
+        return names[position - start];
+    }
+
+    int getQuantity(int position) {
+        return quantities[position - start];
+    }
+
+    // Fetch the page holding position if it is not windowed yet. Only one page is in flight at
+    // a time; while one is loading, the latest requested position is remembered and served next.
+    void requestPosition(int position) {
+        if (isLoaded(position) || position < 0 || position >= total) {
+            return;
+        }
+        if (loading) {
+            pendingPosition = position;
+            return;
+        }
+        loading = true;
+        loadingPosition = position;
+        pendingPosition = -1;
+        missedUpdates.clear();
+        final int loadGeneration = generation;
+        if (size > 0 && position >= start + size && position < start + size + PAGE_SIZE) {
+            // Just past the window: continue forward from the last id we hold
+            repository.getInventoryPageAfter(ids[size - 1], PAGE_SIZE, new InventoryRepository.Callback<InventoryPage>() {
+                @Override
+                public void onResult(InventoryPage page) {
+                    if (loadGeneration == generation) {
+                        append(page);
+                        pageLoaded();
+                    }
+                }
+            });
+        } else if (size > 0 && position < start && position >= start - PAGE_SIZE) {
+            // Just before the window: walk backwards from the first id we hold
+            final int limit = Math.min(PAGE_SIZE, start);
+            repository.getInventoryPageBefore(ids[0], limit, new InventoryRepository.Callback<InventoryPage>() {
+                @Override
+                public void onResult(InventoryPage page) {
+                    if (loadGeneration == generation) {
+                        prepend(page, limit);
+                        pageLoaded();
+                    }
+                }
+            });
+        } else {
+            // A jump (fast scroll or first load): no anchor id nearby, so page by offset once
+            final int offset = position - position % PAGE_SIZE;
+            repository.getInventoryPageAt(offset, PAGE_SIZE, new InventoryRepository.Callback<InventoryPage>() {
+                @Override
+                public void onResult(InventoryPage page) {
+                    if (loadGeneration == generation) {
+                        start = offset;
+                        size = 0;
+                        append(page);
+                        pageLoaded();
+                    }
+                }
+            });
+        }
+    }
+
+    // Apply a single-row write without re-reading the table. Rows are kept in id order, so a row
+    // inside the window is found by binary search. New items take the highest id and land at the
+    // end, but a restored archive row keeps its old id and can land anywhere.
+    void applyChange(InventoryChange change) {
+        if (reloading || change.type == InventoryChange.RELOADED) {
+            // A bulk write, or a count in flight that may predate this write: read it again
+            reload();
+            return;
+        }
+        int dropped = -1;
+        if (loading) {
+            if (change.type == InventoryChange.UPDATED) {
+                // The page keeps its rows; patch this one in if the page turns out to hold it
+                missedUpdates.add(change);
+            } else {
+                // An insert or delete moves rows, so the page may be off by one: read it again
+                // once the change is applied, as its placeholders will not ask a second time
+                generation++;
+                loading = false;
+                dropped = loadingPosition;
+            }
+        }
+        int index = size > 0 ? Arrays.binarySearch(ids, 0, size, change.id) : -1;
+        switch (change.type) {
+            case InventoryChange.UPDATED:
+                if (index >= 0) {
+                    names[index] = change.name;
+                    quantities[index] = change.quantity;
+                    listener.onRowChanged(start + index);
+                }
+                return;
+            case InventoryChange.INSERTED:
+                total++;
+                if (size == 0 || index >= 0) {
+                    break;
+                }
+                int at = ~index;
+                if (at == 0 && start > 0) {
+                    // Somewhere before the window: everything windowed moves down one
+                    start++;
+                } else if (at < size || start + size == total - 1) {
+                    insert(at, change);
+                }
+                break;
+            case InventoryChange.DELETED:
+                total = Math.max(0, total - 1);
+                if (index >= 0) {
+                    int tail = size - index - 1;
+                    System.arraycopy(ids, index + 1, ids, index, tail);
+                    System.arraycopy(names, index + 1, names, index, tail);
+                    System.arraycopy(quantities, index + 1, quantities, index, tail);
+                    names[--size] = null;
+                } else if (size > 0 && start > 0 && change.id < ids[0]) {
+                    start--;
+                }
+                break;
+            default:
+                return;
+        }
+        listener.onWindowChanged();
+        if (dropped != -1) {
+            int pending = pendingPosition;
+            requestPosition(dropped);
+            if (pending != -1) {
+                requestPosition(pending);
+            }
+        }
+    }
+
+    // Put a row at index, dropping the last row if the window is full (unless that is the new row).
+    private void insert(int index, InventoryChange change) {
+        if (size == CAPACITY) {
+            if (index == size) {
+                return;
+            }
+            size--;
+        }
+        int tail = size - index;
+        System.arraycopy(ids, index, ids, index + 1, tail);
+        System.arraycopy(names, index, names, index + 1, tail);
+        System.arraycopy(quantities, index, quantities, index + 1, tail);
+        ids[index] = change.id;
+        names[index] = change.name;
+        quantities[index] = change.quantity;
+        size++;
+    }
+
+    private void pageLoaded() {
+        loading = false;
+        for (InventoryChange change : missedUpdates) {
+            int index = size > 0 ? Arrays.binarySearch(ids, 0, size, change.id) : -1;
+            if (index >= 0) {
+                names[index] = change.name;
+                quantities[index] = change.quantity;
+            }
+        }
+        missedUpdates.clear();
+        listener.onWindowChanged();
+        if (pendingPosition != -1) {
+            requestPosition(pendingPosition);
+        }
+    }
+
+    // Add an ascending page after the window, evicting rows from the front if it is full.
+    private void append(InventoryPage page) {
+        int overflow = size + page.size - CAPACITY;
+        if (overflow > 0) {
+            System.arraycopy(ids, overflow, ids, 0, size - overflow);
+            System.arraycopy(names, overflow, names, 0, size - overflow);
+            System.arraycopy(quantities, overflow, quantities, 0, size - overflow);
+            start += overflow;
+            size -= overflow;
+        }
+        System.arraycopy(page.ids, 0, ids, size, page.size);
+        System.arraycopy(page.names, 0, names, size, page.size);
+        System.arraycopy(page.quantities, 0, quantities, size, page.size);
+        size += page.size;
+        if (page.size < PAGE_SIZE) {
+            // Reached the end of the table; the count may have been stale
+            total = start + size;
+        }
+    }
+
+    // Add a descending page before the window, evicting rows from the back if it is full.
+    private void prepend(InventoryPage page, int requested) {
+        size = Math.min(size, CAPACITY - page.size);
+        System.arraycopy(ids, 0, ids, page.size, size);
+        System.arraycopy(names, 0, names, page.size, size);
+        System.arraycopy(quantities, 0, quantities, page.size, size);
+        for (int i = 0; i < page.size; i++) {
+            int slot = page.size - 1 - i;
+            ids[slot] = page.ids[i];
+            names[slot] = page.names[i];
+            quantities[slot] = page.quantities[i];
+        }
+        start -= page.size;
+        size += page.size;
+        if (page.size < requested) {
+            // Fewer rows precede the window than its position claims; re-base it at zero
+            total -= start;
+            start = 0;
+        }
+    }
+}
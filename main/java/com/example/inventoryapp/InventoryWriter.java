@@ -0,0 +1,189 @@
+package com.example.inventoryapp;
+
+import android.content.Context;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+
+// InventoryWriter is the single writer that inventory and user mutations go through. Callers
+// queue a write and get a Future for its result. One writer thread takes writes in arrival
+// order and runs everything that has queued up by then, up to MAX_GROUP_SIZE writes, as one
+// transaction (group commit), so a burst of N writes costs one commit instead of N and writes
+// never contend with each other for the database. A Future completes, and its write's change
+// events are delivered, only once the transaction has committed. If a group fails, its writes
+// are retried one by one so a single bad write fails alone.
+//
+// The queue holds MAX_QUEUED writes. When it is full a background caller blocks until there is
+// room, which slows producers down to the rate the database can take; the main thread must not
+// block, so a main-thread submit is rejected with RejectedExecutionException instead.
+//
+// Long jobs come through here too, but a piece at a time: CSV import submits one batch, sync one
+// pulled or pushed batch, and archiving one chunk, and each waits for that piece to commit before
+// submitting the next (submitAndWait). Interactive writes queue between the pieces, so none of
+// them waits for a whole job.
+public class InventoryWriter {
+    private static final String TAG = "InventoryWriter";
+
+    static final int MAX_QUEUED = 256;
+    static final int MAX_GROUP_SIZE = 64;
+
+    private static InventoryWriter instance;
+
+    private final DBHelper dbHelper;
+    private final ArrayBlockingQueue<PendingWrite<?>> queue = new ArrayBlockingQueue<>(MAX_QUEUED);
+
+    // A queued write. Its result is held until the group commits, then published.
+    private static final class PendingWrite<T> extends FutureTask<T> {
+        private final Callable<T> write;
+        private final InventoryRepository.Callback<T> onCommitted;
+        private T result;
+
+        PendingWrite(Callable<T> write, InventoryRepository.Callback<T> onCommitted) {
+            super(write);
+            this.write = write;
+            this.onCommitted = onCommitted;
+        }
+
+        // Runs inside the group's transaction; an exception rolls the whole group back.
+        // A write cancelled before its turn is skipped.
+        void execute() {
+            if (isCancelled()) {
+                return;
+            }
+            try {
+                result = write.call();
+            } catch (RuntimeException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        void commit() {
+            if (isCancelled()) {
+                return;
+            }
+            set(result);
+            if (onCommitted != null) {
+                onCommitted.onResult(result);
+            }
+        }
+
+        void fail(RuntimeException cause) {
+            setException(cause);
+            if (onCommitted != null) {
+                onCommitted.onError(cause);
+            }
+        }
+    }
+
+    public static synchronized InventoryWriter getInstance(Context context) {
+        if (instance == null) {
+            instance = new InventoryWriter(DBHelper.getInstance(context));
+        }
+        return instance;
+    }
+
+    private InventoryWriter(DBHelper dbHelper) {
+        this.dbHelper = dbHelper;
+        Thread thread = new Thread(this::writeLoop, "inventory-writer");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Queue write, a DBHelper mutation or a few of them, to run on the writer thread.
+    // onCommitted (which may be null) runs on the writer thread after the commit, or its onError
+    // if the write failed.
+    public <T> Future<T> submit(Callable<T> write, InventoryRepository.Callback<T> onCommitted) {
+        PendingWrite<T> pending = new PendingWrite<>(write, onCommitted);
+        if (Looper.myLooper() == Looper.getMainLooper()) {
+            if (!queue.offer(pending)) {
+                throw new RejectedExecutionException("Write queue is full");
+            }
+            return pending;
+        }
+        try {
+            queue.put(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted waiting for the write queue", e);
+        }
+        return pending;
+    }
+
+    // Queue write and wait for it to commit; for background threads only. A failed write's
+    // exception is rethrown as it was, so callers can catch the SQLite exception they expect.
+    public <T> T submitAndWait(Callable<T> write) throws InterruptedException {
+        try {
+            return submit(write, null).get();
+        } catch (ExecutionException e) {
+            // execute() wraps anything checked, so the cause is unchecked
+            Throwable cause = e.getCause();
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw (RuntimeException) cause;
+        }
+    }
+
+    // Writes waiting for the writer thread.
+    public int getQueuedWrites() {
+        return queue.size();
+    }
+
+    private void writeLoop() {
+        ArrayList<PendingWrite<?>> group = new ArrayList<>(MAX_GROUP_SIZE);
+        while (true) {
+            try {
+                group.add(queue.take());
+            } catch (InterruptedException e) {
+                return;
+            }
+            queue.drainTo(group, MAX_GROUP_SIZE - 1);
+            long start = InventoryMetrics.start();
+            try {
+                if (!runGroup(group)) {
+                    for (PendingWrite<?> pending : group) {
+                        ArrayList<PendingWrite<?>> single = new ArrayList<>(1);
+                        single.add(pending);
+                        runGroup(single);
+                    }
+                }
+            } finally {
+                InventoryMetrics.stop(InventoryMetrics.WRITE_GROUP, start);
+                InventoryMetrics.addRows(InventoryMetrics.WRITE_GROUP, group.size());
+                group.clear();
+            }
+        }
+    }
+
+    // Run group as one transaction and complete its futures. Returns false if a group of
+    // several writes rolled back, leaving them to be retried; a lone write is failed instead.
+    private boolean runGroup(final ArrayList<PendingWrite<?>> group) {
+        try {
+            dbHelper.runInTransaction(() -> {
+                for (PendingWrite<?> pending : group) {
+                    pending.execute();
+                }
+            });
+        } catch (RuntimeException e) {
+            if (group.size() > 1) {
+                return false;
+            }
+            Log.e(TAG, "Write failed", e);
+            group.get(0).fail(e);
+            return true;
+        }
+        for (PendingWrite<?> pending : group) {
+            pending.commit();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,198 @@
+package com.example.inventoryapp;
+
+import java.util.Arrays;
+
+// ItemCache is a bounded LRU of item records keyed by primitive int id. DBHelper feeds it every
+// single-row write and invalidates rows touched by bulk writes, so a hit is always as fresh as
+// the database. Reads that miss fill it back through fill(), which drops the row if any write
+// landed while the read was running; that way a slow read can never overwrite a newer value.
+final class ItemCache {
+    private static final int NONE = -1;
+
+    private final InventoryItem[] items;
+    private final IntIntMap slotById;
+    // Doubly linked recency list over slots, most recently used at head
+    private final int[] previous;
+    private final int[] next;
+    private int head = NONE;
+    private int tail = NONE;
+    private int size;
+
+    private long writes;
+    private long hits;
+    private long misses;
+
+    ItemCache(int capacity) {
+        items = new InventoryItem[capacity];
+        slotById = new IntIntMap(capacity);
+        previous = new int[capacity];
+        next = new int[capacity];
+    }
+
+    // Returns the cached item, or null on a miss.
+    synchronized InventoryItem get(int id) {
+        int slot = slotById.get(id);
+        if (slot == IntIntMap.MISSING) {
+            misses++;
+            return null;
+        }
+        hits++;
+        moveToFront(slot);
+        return items[slot];
+    }
+
+    // Take before reading the database; pass to fill() with what the read returned.
+    synchronized long stamp() {
+        return writes;
+    }
+
+    synchronized void fill(InventoryItem item, long stamp) {
+        if (stamp == writes) {
+            put(item);
+        }
+    }
+
+    synchronized void fill(InventoryPage page, long stamp) {
+        if (stamp == writes) {
+            for (int i = 0; i < page.size; i++) {
+                put(new InventoryItem(page.ids[i], page.names[i], page.quantities[i],
+                        page.reorderThresholds[i]));
+            }
+        }
+    }
+
+    // Called by DBHelper after every single-row write.
+    synchronized void apply(InventoryChange change) {
+        writes++;
+        switch (change.type) {
+            case InventoryChange.INSERTED:
+            case InventoryChange.UPDATED:
+                put(new InventoryItem(change.id, change.name, change.quantity, change.reorderThreshold));
+                break;
+            case InventoryChange.DELETED:
+                remove(change.id);
+                break;
+            default:
+                clear();
+        }
+    }
+
+    // Called by DBHelper after a bulk write changed these ids.
+    synchronized void invalidate(int[] ids, int count) {
+        writes++;
+        for (int i = 0; i < count; i++) {
+            remove(ids[i]);
+        }
+    }
+
+    synchronized void clear() {
+        writes++;
+        slotById.clear();
+        Arrays.fill(items, null);
+        head = NONE;
+        tail = NONE;
+        size = 0;
+    }
+
+    synchronized int size() {
+        return size;
+    }
+
+    int capacity() {
+        return items.length;
+    }
+
+    synchronized long getHits() {
+        return hits;
+    }
+
+    synchronized long getMisses() {
+        return misses;
+    }
+
+    private void put(InventoryItem item) {
+        int slot = slotById.get(item.id);
+        if (slot == IntIntMap.MISSING) {
+            if (size < items.length) {
+                slot = size++;
+            } else {
+                // Reuse the least recently used slot
+                slot = tail;
+                unlink(slot);
+                slotById.remove(items[slot].id);
+            }
+            slotById.put(item.id, slot);
+        } else {
+            unlink(slot);
+        }
+        items[slot] = item;
+        linkFirst(slot);
+    }
+
+    // Removing leaves a hole, so move the last slot into it to keep slots 0..size-1 dense.
+    private void remove(int id) {
+        int slot = slotById.remove(id);
+        if (slot == IntIntMap.MISSING) {
+            return;
+        }
+        unlink(slot);
+        int last = --size;
+        if (slot != last) {
+            InventoryItem moved = items[last];
+            boolean wasHead = head == last;
+            int before = previous[last];
+            int after = next[last];
+            items[slot] = moved;
+            previous[slot] = before;
+            next[slot] = after;
+            if (before != NONE) {
+                next[before] = slot;
+            }
+            if (after != NONE) {
+                previous[after] = slot;
+            }
+            if (wasHead) {
+                head = slot;
+            }
+            if (tail == last) {
+                tail = slot;
+            }
+            slotById.put(moved.id, slot);
+        }
+        items[last] = null;
+    }
+
+    private void moveToFront(int slot) {
+        if (head != slot) {
+            unlink(slot);
+            linkFirst(slot);
+        }
+    }
+
+    private void linkFirst(int slot) {
+        previous[slot] = NONE;
+        next[slot] = head;
+        if (head != NONE) {
+            previous[head] = slot;
+        }
+        head = slot;
+        if (tail == NONE) {
+            tail = slot;
+        }
+    }
+
+    private void unlink(int slot) {
+        int before = previous[slot];
+        int after = next[slot];
+        if (before != NONE) {
+            next[before] = after;
+        } else {
+            head = after;
+        }
+        if (after != NONE) {
+            previous[after] = before;
+        } else {
+            tail = before;
+        }
+    }
+}
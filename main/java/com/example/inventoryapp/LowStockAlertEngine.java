@@ -0,0 +1,262 @@
+package com.example.inventoryapp;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// LowStockAlertEngine decides when a low-stock alert is due and sends it in the background.
+// An item alerts once when it drops to its own reorder threshold and is re-armed only after it
+// is restocked above it. Items that go low close together are merged into one digest per
+// window, and digests are spaced at least minSendIntervalMillis apart.
+// Once attached to the database it follows every write, and a periodic scan of the low-stock
+// index catches anything the events could not describe, such as bulk imports. Sent alerts are
+// recorded in the database, so a restart neither repeats them nor forgets to re-arm.
+public class LowStockAlertEngine {
+    private static final String TAG = "LowStockAlertEngine";
+
+    private static final long DIGEST_WINDOW_MILLIS = 30_000;
+    private static final long MIN_SEND_INTERVAL_MILLIS = 120_000;
+    private static final long SCAN_PERIOD_MILLIS = 15 * 60 * 1000L;
+    // A scan raced by a write retries after 1, 2, 4 then 8 seconds, then waits for the next one
+    private static final long SCAN_RETRY_MILLIS = 1_000;
+    private static final int MAX_SCAN_ATTEMPTS = 5;
+
+    private static LowStockAlertEngine instance;
+
+    private final AlertSender sender;
+    private final long digestWindowMillis;
+    private final long minSendIntervalMillis;
+    private final ScheduledExecutorService dispatcher;
+
+    // Guarded by this
+    private final HashSet<Integer> alerted = new HashSet<>();
+    private final LinkedHashMap<Integer, String> pending = new LinkedHashMap<>();
+    // False from attach until the recorded alerts are loaded; meanwhile items seen restocked or
+    // deleted are remembered, so their old records are dropped instead of loaded
+    private boolean loaded = true;
+    private final HashSet<Integer> rearmedBeforeLoad = new HashSet<>();
+    private boolean flushScheduled;
+    private long lastSentAt = Long.MIN_VALUE / 2;
+    // Bumped by every change event, so a scan can tell whether a write raced it
+    private long changes;
+
+    private DBHelper dbHelper;
+
+    public static synchronized LowStockAlertEngine getInstance(Context context) {
+        if (instance == null) {
+            instance = new LowStockAlertEngine(new SmsAlertSender(context),
+                    DIGEST_WINDOW_MILLIS, MIN_SEND_INTERVAL_MILLIS);
+            instance.attach(DBHelper.getInstance(context), MaintenanceScheduler.getInstance(context));
+        }
+        return instance;
+    }
+
+    // Takes any sender, so the engine can be driven with a local fake instead of SMS.
+    LowStockAlertEngine(AlertSender sender, long digestWindowMillis, long minSendIntervalMillis) {
+        this.sender = sender;
+        this.digestWindowMillis = digestWindowMillis;
+        this.minSendIntervalMillis = minSendIntervalMillis;
+        dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "low-stock-alerts");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Load the alerts already sent, follow every write, and scan the low-stock index now and then
+    // on the maintenance thread.
+    void attach(DBHelper dbHelper, MaintenanceScheduler scheduler) {
+        this.dbHelper = dbHelper;
+        synchronized (this) {
+            loaded = false;
+        }
+        // First on the dispatcher, so it is done before any digest goes out
+        dispatcher.execute(this::loadAlerted);
+        dbHelper.addChangeListener(new DBHelper.InventoryChangeListener() {
+            @Override
+            public void onInventoryChanged(InventoryChange change) {
+                onChange(change);
+            }
+        });
+        scheduler.schedulePeriodic("low-stock-scan", () -> scan(0), SCAN_PERIOD_MILLIS);
+    }
+
+    // Report the current quantity of an item. Cheap to call on every write or load.
+    public synchronized void observe(int id, String name, int quantity, int reorderThreshold) {
+        if (quantity <= reorderThreshold) {
+            if (alerted.add(id)) {
+                pending.put(id, name + ": " + quantity + " left");
+                scheduleFlush(digestWindowMillis);
+            }
+        } else {
+            // Restocked: re-arm, and drop the alert if its digest has not gone out yet
+            rearm(id);
+        }
+    }
+
+    public synchronized void itemDeleted(int id) {
+        rearm(id);
+    }
+
+    // Guarded by this
+    private void rearm(final int id) {
+        if (!loaded) {
+            rearmedBeforeLoad.add(id);
+        }
+        if (alerted.remove(id)) {
+            pending.remove(id);
+            dispatcher.execute(() -> record(id, false));
+        }
+    }
+
+    // Runs first on the dispatcher: take back the alerts sent before this process started, so
+    // they are not sent again, except for items restocked or deleted since the engine attached.
+    private void loadAlerted() {
+        HashSet<Integer> sent;
+        try {
+            sent = dbHelper.getLowStockAlertIds();
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Could not read the sent low-stock alerts", e);
+            sent = new HashSet<>();
+        }
+        List<Integer> rearmed = new ArrayList<>();
+        synchronized (this) {
+            for (Integer id : sent) {
+                if (rearmedBeforeLoad.contains(id)) {
+                    rearmed.add(id);
+                } else {
+                    alerted.add(id);
+                    pending.remove(id);
+                }
+            }
+            rearmedBeforeLoad.clear();
+            loaded = true;
+        }
+        for (int id : rearmed) {
+            record(id, false);
+        }
+    }
+
+    // Runs on the dispatcher. A failed write is only logged: at worst one alert repeats or an
+    // item re-arms a scan late.
+    private void record(int id, boolean sent) {
+        if (dbHelper == null) {
+            return;
+        }
+        try {
+            dbHelper.setLowStockAlerted(id, sent);
+        } catch (RuntimeException e) {
+            Log.e(TAG, "Could not record the low-stock alert for item " + id, e);
+        }
+    }
+
+    // Runs on the writing thread, so it only updates state; a bulk change defers to a scan.
+    private void onChange(InventoryChange change) {
+        synchronized (this) {
+            changes++;
+            switch (change.type) {
+                case InventoryChange.INSERTED:
+                case InventoryChange.UPDATED:
+                    observe(change.id, change.name, change.quantity, change.reorderThreshold);
+                    return;
+                case InventoryChange.DELETED:
+                    itemDeleted(change.id);
+                    return;
+                default:
+                    break;
+            }
+        }
+        dispatcher.execute(() -> scan(0));
+    }
+
+    // Read only the rows at or below their threshold, through the partial index, and reconcile:
+    // low rows alert if they have not yet, and alerted rows that are no longer low re-arm.
+    // If a write lands mid-scan the result may be stale, so try again after a growing delay.
+    // Under a steady stream of writes it gives up after MAX_SCAN_ATTEMPTS: the writes' own
+    // events keep the state current meanwhile, and the next periodic or bulk scan catches up.
+    private void scan(final int attempt) {
+        long stamp;
+        synchronized (this) {
+            stamp = changes;
+        }
+        List<InventoryItem> low = SQLiteInventoryStore.readItems(dbHelper.getLowStockItems());
+        synchronized (this) {
+            if (stamp != changes) {
+                if (attempt + 1 < MAX_SCAN_ATTEMPTS) {
+                    dispatcher.schedule(() -> scan(attempt + 1), SCAN_RETRY_MILLIS << attempt, TimeUnit.MILLISECONDS);
+                } else {
+                    Log.d(TAG, "Low-stock scan kept racing writes; skipped until the next scan");
+                }
+                return;
+            }
+            HashSet<Integer> lowIds = new HashSet<>();
+            for (InventoryItem item : low) {
+                lowIds.add(item.id);
+                observe(item.id, item.name, item.quantity, item.reorderThreshold);
+            }
+            for (Integer id : new ArrayList<>(alerted)) {
+                if (!lowIds.contains(id)) {
+                    rearm(id);
+                }
+            }
+        }
+    }
+
+    // Send a fixed test message right away, bypassing the digest window.
+    public void sendTestAlert() {
+        dispatcher.execute(() -> deliver("Alert: Low inventory for Test Item. Only 1 left."));
+    }
+
+    private void scheduleFlush(long delayMillis) {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            dispatcher.schedule(this::flush, delayMillis, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // Runs on the dispatcher: merge everything pending into one message, honouring the rate limit,
+    // and record the items it covered as alerted.
+    private void flush() {
+        String message;
+        List<Integer> ids;
+        synchronized (this) {
+            flushScheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            long wait = lastSentAt + minSendIntervalMillis - System.currentTimeMillis();
+            if (wait > 0) {
+                scheduleFlush(wait);
+                return;
+            }
+            StringBuilder digest = new StringBuilder("Alert: Low inventory for ")
+                    .append(pending.size()).append(pending.size() == 1 ? " item" : " items");
+            for (String line : pending.values()) {
+                digest.append("\n").append(line);
+            }
+            message = digest.toString();
+            ids = new ArrayList<>(pending.keySet());
+            pending.clear();
+            lastSentAt = System.currentTimeMillis();
+        }
+        deliver(message);
+        for (int id : ids) {
+            record(id, true);
+        }
+    }
+
+    private void deliver(String message) {
+        try {
+            sender.send(message);
+        } catch (Exception e) {
+            Log.e(TAG, "Error sending low-stock alert", e);
+        }
+    }
+}
@@ -14,12 +14,13 @@ public class MainActivity extends AppCompatActivity {
 
     EditText etUsername, etPassword;
     Button btnLogin, btnRegister;
-    DBHelper dbHelper;
+    InventoryRepository repository;
 
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main);
+        InventoryApplication.reportFirstFrame(getWindow().getDecorView());
 
         // Initialize UI components
         etUsername = findViewById(R.id.etUsername);
@@ -27,7 +28,7 @@ public class MainActivity extends AppCompatActivity {
         btnLogin   = findViewById(R.id.btnLogin);
         btnRegister= findViewById(R.id.btnRegister);
 
-        dbHelper = new DBHelper(this);
+        repository = InventoryRepository.getInstance(this);
 
         // Attempt login on button click
         btnLogin.setOnClickListener(new View.OnClickListener() {
@@ -50,13 +51,18 @@ public class MainActivity extends AppCompatActivity {
     private void login() {
         String username = etUsername.getText().toString();
         String password = etPassword.getText().toString();
-        if (dbHelper.checkUser(username, password)) {
-            // User exists; launch Dashboard
-            Intent intent = new Intent(MainActivity.this, DashboardActivity.class);
-            startActivity(intent);
-        } else {
-            Toast.makeText(this, "Login failed. Incorrect username or password.", Toast.LENGTH_SHORT).show();
-        }
+        repository.checkUser(username, password, new InventoryRepository.Callback<Boolean>() {
+            @Override
+            public void onResult(Boolean exists) {
+                if (exists) {
+                    // User exists; launch Dashboard
+                    Intent intent = new Intent(MainActivity.this, DashboardActivity.class);
+                    startActivity(intent);
+                } else {
+                    Toast.makeText(MainActivity.this, "Login failed. Incorrect username or password.", Toast.LENGTH_SHORT).show();
+                }
+            }
+        });
     }
 
     // Register function: creates a new user record
@@ -67,11 +73,20 @@ public class MainActivity extends AppCompatActivity {
             Toast.makeText(this, "Please enter username and password.", Toast.LENGTH_SHORT).show();
             return;
         }
-        boolean success = dbHelper.addUser(username, password);
-        if (success) {
-            Toast.makeText(this, "Registration successful. You can now log in.", Toast.LENGTH_SHORT).show();
-        } else {
-            Toast.makeText(this, "Registration failed. Username may already exist.", Toast.LENGTH_SHORT).show();
-        }
+        repository.addUser(username, password, new InventoryRepository.Callback<Boolean>() {
+            @Override
+            public void onResult(Boolean success) {
+                if (success) {
+                    Toast.makeText(MainActivity.this, "Registration successful. You can now log in.", Toast.LENGTH_SHORT).show();
+                } else {
+                    Toast.makeText(MainActivity.this, "Registration failed. Username may already exist.", Toast.LENGTH_SHORT).show();
+                }
+            }
+
+            @Override
+            public void onError(Exception error) {
+                Toast.makeText(MainActivity.this, "Registration failed. Please try again.", Toast.LENGTH_SHORT).show();
+            }
+        });
     }
 }
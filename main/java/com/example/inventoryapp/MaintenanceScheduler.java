@@ -0,0 +1,62 @@
+package com.example.inventoryapp;
+
+import android.content.Context;
+import android.content.SharedPreferences;
+import android.util.Log;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// MaintenanceScheduler runs periodic housekeeping jobs (ledger compaction and similar) on one
+// low-priority background thread, separate from the repository pool that serves the UI.
+// The process rarely lives as long as a job's period, so each job's last successful run is kept
+// in preferences: on the next start a job that is due runs shortly after startup, instead of
+// waiting a whole period that the process will most likely not see out.
+public class MaintenanceScheduler {
+    private static final String TAG = "MaintenanceScheduler";
+    private static final String PREFS_NAME = "maintenance";
+    private static final String PREF_LAST_RUN = "last-run.";
+
+    // Due jobs wait this long after startup, so they stay clear of the cold start
+    static final long STARTUP_DELAY_MILLIS = 60_000;
+
+    private static MaintenanceScheduler instance;
+
+    private final SharedPreferences preferences;
+    private final ScheduledExecutorService executor;
+
+    public static synchronized MaintenanceScheduler getInstance(Context context) {
+        if (instance == null) {
+            instance = new MaintenanceScheduler(context.getApplicationContext()
+                    .getSharedPreferences(PREFS_NAME, Context.MODE_PRIVATE));
+        }
+        return instance;
+    }
+
+    private MaintenanceScheduler(SharedPreferences preferences) {
+        this.preferences = preferences;
+        executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "inventory-maintenance");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+        });
+    }
+
+    // Run job every periodMillis, first once a period has passed since its last successful run
+    // (in this process or an earlier one). A failing run is logged, is not recorded as a run, and
+    // the job stays scheduled.
+    public void schedulePeriodic(final String name, final Runnable job, long periodMillis) {
+        long lastRun = preferences.getLong(PREF_LAST_RUN + name, 0);
+        long initialDelay = Math.max(STARTUP_DELAY_MILLIS, lastRun + periodMillis - System.currentTimeMillis());
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                job.run();
+                preferences.edit().putLong(PREF_LAST_RUN + name, System.currentTimeMillis()).apply();
+            } catch (RuntimeException e) {
+                Log.e(TAG, "Maintenance job " + name + " failed", e);
+            }
+        }, Math.min(initialDelay, periodMillis), periodMillis, TimeUnit.MILLISECONDS);
+    }
+}
@@ -0,0 +1,355 @@
+package com.example.inventoryapp;
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+// MemoryInventoryStore keeps the inventory in parallel primitive arrays, one slot per item in id
+// order, so scans and pages walk contiguous int[]s and nothing is boxed. An IntIntMap maps id to
+// slot, and an open-addressing name index maps case-folded names to a chain of slots. Deleted
+// slots are blanked and reclaimed by compaction once they outnumber the live ones.
+// Not thread-safe: callers serialize access, as the repository executor does for DBHelper.
+public class MemoryInventoryStore implements InventoryStore {
+    private static final int MIN_COMPACT = 1024;
+
+    private final HashMap<String, String> users = new HashMap<>();
+
+    // Slot columns; names[slot] == null marks a deleted slot
+    private int[] ids;
+    private String[] names;
+    private int[] quantities;
+    private int[] reorderThresholds;
+    private int[] nameNext;
+    private int slotCount;
+    private int liveCount;
+    private int nextId = 1;
+
+    private final IntIntMap slotById;
+
+    // Name index: nameKeys[i] is any name of the chain, nameHeads[i] its lowest slot
+    private String[] nameKeys;
+    private int[] nameHeads;
+    private int nameMask;
+    private int nameCount;
+
+    public MemoryInventoryStore() {
+        this(16);
+    }
+
+    public MemoryInventoryStore(int expectedItems) {
+        int capacity = Math.max(16, expectedItems);
+        ids = new int[capacity];
+        names = new String[capacity];
+        quantities = new int[capacity];
+        reorderThresholds = new int[capacity];
+        nameNext = new int[capacity];
+        slotById = new IntIntMap(capacity);
+        int nameCapacity = Integer.highestOneBit(capacity * 2 - 1) << 1;
+        nameKeys = new String[nameCapacity];
+        nameHeads = new int[nameCapacity];
+        nameMask = nameCapacity - 1;
+    }
+
+    @Override
+    public boolean checkUser(String username, String password) {
+        String stored = users.get(username);
+        return stored != null && stored.equals(password);
+    }
+
+    @Override
+    public boolean addUser(String username, String password) {
+        if (users.containsKey(username)) {
+            return false;
+        }
+        users.put(username, password);
+        return true;
+    }
+
+    @Override
+    public long addInventoryItem(String itemName, int quantity) {
+        if (itemName == null) {
+            return -1;
+        }
+        if (slotCount == ids.length) {
+            growSlots();
+        }
+        int id = nextId++;
+        int slot = slotCount++;
+        ids[slot] = id;
+        names[slot] = itemName;
+        quantities[slot] = quantity;
+        reorderThresholds[slot] = DEFAULT_REORDER_THRESHOLD;
+        slotById.put(id, slot);
+        linkName(slot);
+        liveCount++;
+        return id;
+    }
+
+    @Override
+    public int updateInventoryItem(int id, String itemName, int quantity, int reorderThreshold) {
+        int slot = slotById.get(id);
+        if (slot == IntIntMap.MISSING || itemName == null) {
+            return 0;
+        }
+        if (!itemName.equals(names[slot])) {
+            unlinkName(slot);
+            names[slot] = itemName;
+            linkName(slot);
+        }
+        quantities[slot] = quantity;
+        reorderThresholds[slot] = reorderThreshold;
+        return 1;
+    }
+
+    @Override
+    public int deleteInventoryItem(int id) {
+        int slot = slotById.remove(id);
+        if (slot == IntIntMap.MISSING) {
+            return 0;
+        }
+        unlinkName(slot);
+        names[slot] = null;
+        liveCount--;
+        int deleted = slotCount - liveCount;
+        if (deleted >= MIN_COMPACT && deleted > liveCount) {
+            compact();
+        }
+        return 1;
+    }
+
+    @Override
+    public int adjustQuantity(int id, int delta, String reason) {
+        int slot = slotById.get(id);
+        if (slot == IntIntMap.MISSING) {
+            return 0;
+        }
+        quantities[slot] += delta;
+        return 1;
+    }
+
+    @Override
+    public InventoryItem getInventoryItemById(int id) {
+        int slot = slotById.get(id);
+        return slot == IntIntMap.MISSING ? null : new InventoryItem(id, names[slot],
+                quantities[slot], reorderThresholds[slot]);
+    }
+
+    @Override
+    public InventoryItem getInventoryItemByName(String name) {
+        int index = findName(name);
+        if (index < 0) {
+            return null;
+        }
+        int slot = nameHeads[index];
+        return new InventoryItem(ids[slot], names[slot], quantities[slot], reorderThresholds[slot]);
+    }
+
+    @Override
+    public InventoryPage getInventoryPageAfter(int afterId, int limit) {
+        int size = Math.min(limit, liveCount);
+        int[] pageIds = new int[size];
+        String[] pageNames = new String[size];
+        int[] pageQuantities = new int[size];
+        int[] pageThresholds = new int[size];
+        int count = 0;
+        for (int slot = firstSlotAfter(afterId); slot < slotCount && count < size; slot++) {
+            if (names[slot] != null) {
+                pageIds[count] = ids[slot];
+                pageNames[count] = names[slot];
+                pageQuantities[count] = quantities[slot];
+                pageThresholds[count] = reorderThresholds[slot];
+                count++;
+            }
+        }
+        return new InventoryPage(pageIds, pageNames, pageQuantities, pageThresholds, count);
+    }
+
+    @Override
+    public long getInventoryCount() {
+        return liveCount;
+    }
+
+    @Override
+    public void forEachInventoryItem(ItemVisitor visitor) {
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (names[slot] != null) {
+                visitor.visit(ids[slot], names[slot], quantities[slot]);
+            }
+        }
+    }
+
+    // Slots are in ascending id order, so the start of a page is a binary search.
+    private int firstSlotAfter(int afterId) {
+        int low = 0;
+        int high = slotCount;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ids[mid] <= afterId) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void growSlots() {
+        int capacity = ids.length * 2;
+        ids = Arrays.copyOf(ids, capacity);
+        names = Arrays.copyOf(names, capacity);
+        quantities = Arrays.copyOf(quantities, capacity);
+        reorderThresholds = Arrays.copyOf(reorderThresholds, capacity);
+        nameNext = Arrays.copyOf(nameNext, capacity);
+    }
+
+    // Squeeze out deleted slots and rebuild both indexes.
+    private void compact() {
+        int live = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (names[slot] != null) {
+                ids[live] = ids[slot];
+                names[live] = names[slot];
+                quantities[live] = quantities[slot];
+                reorderThresholds[live] = reorderThresholds[slot];
+                live++;
+            }
+        }
+        Arrays.fill(names, live, slotCount, null);
+        slotCount = live;
+        slotById.clear();
+        Arrays.fill(nameKeys, null);
+        nameCount = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            slotById.put(ids[slot], slot);
+            linkName(slot);
+        }
+    }
+
+    // Add slot to its name chain, keeping the chain in slot (and so id) order.
+    private void linkName(int slot) {
+        String name = names[slot];
+        int index = findName(name);
+        if (index < 0) {
+            index = ~index;
+            nameKeys[index] = name;
+            nameHeads[index] = slot;
+            nameNext[slot] = -1;
+            if (++nameCount * 2 > nameKeys.length) {
+                growNames();
+            }
+            return;
+        }
+        int head = nameHeads[index];
+        if (slot < head) {
+            nameNext[slot] = head;
+            nameHeads[index] = slot;
+            return;
+        }
+        int previous = head;
+        while (nameNext[previous] != -1 && nameNext[previous] < slot) {
+            previous = nameNext[previous];
+        }
+        nameNext[slot] = nameNext[previous];
+        nameNext[previous] = slot;
+    }
+
+    private void unlinkName(int slot) {
+        int index = findName(names[slot]);
+        int head = nameHeads[index];
+        if (head == slot) {
+            if (nameNext[slot] == -1) {
+                removeName(index);
+            } else {
+                nameHeads[index] = nameNext[slot];
+                nameKeys[index] = names[nameNext[slot]];
+            }
+            return;
+        }
+        int previous = head;
+        while (nameNext[previous] != slot) {
+            previous = nameNext[previous];
+        }
+        nameNext[previous] = nameNext[slot];
+    }
+
+    // Returns the index holding name, or ~insertionIndex when absent.
+    private int findName(String name) {
+        int index = foldedHash(name) & nameMask;
+        while (nameKeys[index] != null) {
+            if (asciiFoldEquals(nameKeys[index], name)) {
+                return index;
+            }
+            index = (index + 1) & nameMask;
+        }
+        return ~index;
+    }
+
+    // Backward-shift deletion, as in IntIntMap.
+    private void removeName(int gap) {
+        int index = gap;
+        while (true) {
+            index = (index + 1) & nameMask;
+            String key = nameKeys[index];
+            if (key == null) {
+                break;
+            }
+            int home = foldedHash(key) & nameMask;
+            if (gap <= index ? (home <= gap || home > index) : (home <= gap && home > index)) {
+                nameKeys[gap] = key;
+                nameHeads[gap] = nameHeads[index];
+                gap = index;
+            }
+        }
+        nameKeys[gap] = null;
+        nameCount--;
+    }
+
+    private void growNames() {
+        String[] oldKeys = nameKeys;
+        int[] oldHeads = nameHeads;
+        nameKeys = new String[oldKeys.length * 2];
+        nameHeads = new int[oldKeys.length * 2];
+        nameMask = nameKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int index = ~findName(oldKeys[i]);
+                nameKeys[index] = oldKeys[i];
+                nameHeads[index] = oldHeads[i];
+            }
+        }
+    }
+
+    // NOCASE folds only ASCII letters, so hash and compare the same way.
+    private static int foldedHash(String name) {
+        int hash = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c >= 'A' && c <= 'Z') {
+                c += 'a' - 'A';
+            }
+            hash = 31 * hash + c;
+        }
+        return hash ^ (hash >>> 16);
+    }
+
+    private static boolean asciiFoldEquals(String a, String b) {
+        if (a.length() != b.length()) {
+            return false;
+        }
+        for (int i = 0; i < a.length(); i++) {
+            char x = a.charAt(i);
+            char y = b.charAt(i);
+            if (x != y) {
+                if (x >= 'A' && x <= 'Z') {
+                    x += 'a' - 'A';
+                }
+                if (y >= 'A' && y <= 'Z') {
+                    y += 'a' - 'A';
+                }
+                if (x != y) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.inventoryapp;
+
+import android.os.Bundle;
+import android.util.Log;
+import android.view.View;
+import android.widget.Button;
+import android.widget.CheckBox;
+import android.widget.CompoundButton;
+import android.widget.TextView;
+import android.widget.Toast;
+
+import androidx.appcompat.app.AppCompatActivity;
+
+import java.io.File;
+import java.io.IOException;
+
+// MetricsActivity is the debug screen for InventoryMetrics: switch collection on or off,
+// read the latency report, reset it, or save it to a file for a bug report.
+public class MetricsActivity extends AppCompatActivity {
+    private static final String TAG = "MetricsActivity";
+
+    private CheckBox cbMetricsEnabled;
+    private Button btnRefreshMetrics, btnResetMetrics, btnSaveMetrics;
+    private TextView tvMetricsReport;
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_metrics);
+
+        cbMetricsEnabled = findViewById(R.id.cbMetricsEnabled);
+        btnRefreshMetrics = findViewById(R.id.btnRefreshMetrics);
+        btnResetMetrics = findViewById(R.id.btnResetMetrics);
+        btnSaveMetrics = findViewById(R.id.btnSaveMetrics);
+        tvMetricsReport = findViewById(R.id.tvMetricsReport);
+
+        cbMetricsEnabled.setChecked(InventoryMetrics.isEnabled());
+        cbMetricsEnabled.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
+            @Override
+            public void onCheckedChanged(CompoundButton button, boolean checked) {
+                InventoryMetrics.setEnabled(checked);
+                InventoryApplication.saveMetricsEnabled(getApplication(), checked);
+            }
+        });
+
+        btnRefreshMetrics.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                showReport();
+            }
+        });
+
+        btnResetMetrics.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                InventoryMetrics.reset();
+                showReport();
+            }
+        });
+
+        btnSaveMetrics.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                saveReport();
+            }
+        });
+
+        showReport();
+    }
+
+    private void showReport() {
+        tvMetricsReport.setText(InventoryMetrics.report() + InventoryRepository.getInstance(this).describeItemCache());
+    }
+
+    // The report is a few kilobytes, so writing it here does not stall the UI
+    private void saveReport() {
+        File directory = getExternalFilesDir(null);
+        if (directory == null) {
+            directory = getFilesDir();
+        }
+        try {
+            File file = InventoryMetrics.dump(directory,
+                    InventoryRepository.getInstance(this).describeItemCache());
+            Toast.makeText(this, "Saved to " + file.getAbsolutePath(), Toast.LENGTH_LONG).show();
+        } catch (IOException e) {
+            Log.e(TAG, "Could not save metrics", e);
+            Toast.makeText(this, "Could not save metrics", Toast.LENGTH_SHORT).show();
+        }
+    }
+}
@@ -0,0 +1,167 @@
+package com.example.inventoryapp;
+
+import android.database.Cursor;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+// SQLiteInventoryStore adapts DBHelper to InventoryStore, reading cursors into plain values.
+public class SQLiteInventoryStore implements InventoryStore {
+    private final DBHelper dbHelper;
+
+    public SQLiteInventoryStore(DBHelper dbHelper) {
+        this.dbHelper = dbHelper;
+    }
+
+    @Override
+    public boolean checkUser(String username, String password) {
+        return dbHelper.checkUser(username, password);
+    }
+
+    @Override
+    public boolean addUser(String username, String password) {
+        return dbHelper.addUser(username, password);
+    }
+
+    @Override
+    public long addInventoryItem(String itemName, int quantity) {
+        return dbHelper.addInventoryItem(itemName, quantity);
+    }
+
+    @Override
+    public int updateInventoryItem(int id, String itemName, int quantity, int reorderThreshold) {
+        return dbHelper.updateInventoryItem(id, itemName, quantity, reorderThreshold);
+    }
+
+    @Override
+    public int deleteInventoryItem(int id) {
+        return dbHelper.deleteInventoryItem(id);
+    }
+
+    @Override
+    public int adjustQuantity(int id, int delta, String reason) {
+        return dbHelper.adjustQuantity(id, delta, reason);
+    }
+
+    @Override
+    public InventoryItem getInventoryItemById(int id) {
+        return readFirstItem(dbHelper.getInventoryItemById(id));
+    }
+
+    @Override
+    public InventoryItem getInventoryItemByName(String name) {
+        return readFirstItem(dbHelper.getInventoryItemByName(name));
+    }
+
+    @Override
+    public InventoryPage getInventoryPageAfter(int afterId, int limit) {
+        return readPage(dbHelper.getInventoryPageAfter(afterId, limit));
+    }
+
+    @Override
+    public long getInventoryCount() {
+        return dbHelper.getInventoryCount();
+    }
+
+    @Override
+    public void forEachInventoryItem(ItemVisitor visitor) {
+        Cursor cursor = dbHelper.getAllInventoryItems();
+        try {
+            int idIndex = cursor.getColumnIndexOrThrow(DBHelper.COLUMN_ITEM_ID);
+            int nameIndex = cursor.getColumnIndexOrThrow(DBHelper.COLUMN_ITEM_NAME);
+            int quantityIndex = cursor.getColumnIndexOrThrow(DBHelper.COLUMN_QUANTITY);
+            while (cursor.moveToNext()) {
+                visitor.visit(cursor.getInt(idIndex), cursor.getString(nameIndex), cursor.getInt(quantityIndex));
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    static List<InventoryItem> readItems(Cursor cursor) {
+        List<InventoryItem> items = new ArrayList<>();
+        if (cursor == null) {
+            return items;
+        }
+        try {
+            int idIndex = cursor.getColumnIndexOrThrow(DBHelper.COLUMN_ITEM_ID);
+            int nameIndex = cursor.getColumnIndexOrThrow(DBHelper.COLUMN_ITEM_NAME);
+            int quantityIndex = cursor.getColumnIndexOrThrow(DBHelper.COLUMN_QUANTITY);
+            int thresholdIndex = cursor.getColumnIndexOrThrow(DBHelper.COLUMN_REORDER_THRESHOLD);
+            while (cursor.moveToNext()) {
+                items.add(new InventoryItem(cursor.getInt(idIndex), cursor.getString(nameIndex),
+                        cursor.getInt(quantityIndex), cursor.getInt(thresholdIndex)));
+            }
+        } finally {
+            cursor.close();
+        }
+        return items;
+    }
+
+    // Add each row of a SKU lookup to items, keyed by its SKU.
+    static void readItemsBySku(Cursor cursor, Map<String, InventoryItem> items) {
+        if (cursor == null) {
+            return;
+        }
+        try {
+            int skuIndex = cursor.getColumnIndexOrThrow(DBHelper.COLUMN_SKU);
+            int idIndex = cursor.getColumnIndexOrThrow(DBHelper.COLUMN_ITEM_ID);
+            int nameIndex = cursor.getColumnIndexOrThrow(DBHelper.COLUMN_ITEM_NAME);
+            int quantityIndex = cursor.getColumnIndexOrThrow(DBHelper.COLUMN_QUANTITY);
+            int thresholdIndex = cursor.getColumnIndexOrThrow(DBHelper.COLUMN_REORDER_THRESHOLD);
+            while (cursor.moveToNext()) {
+                items.put(cursor.getString(skuIndex), new InventoryItem(cursor.getInt(idIndex),
+                        cursor.getString(nameIndex), cursor.getInt(quantityIndex), cursor.getInt(thresholdIndex)));
+            }
+        } finally {
+            cursor.close();
+        }
+    }
+
+    static InventoryPage readPage(Cursor cursor) {
+        if (cursor == null) {
+            return new InventoryPage(new int[0], new String[0], new int[0], new int[0], 0);
+        }
+        try {
+            int count = cursor.getCount();
+            int[] ids = new int[count];
+            String[] names = new String[count];
+            int[] quantities = new int[count];
+            int[] reorderThresholds = new int[count];
+            int idIndex = cursor.getColumnIndexOrThrow(DBHelper.COLUMN_ITEM_ID);
+            int nameIndex = cursor.getColumnIndexOrThrow(DBHelper.COLUMN_ITEM_NAME);
+            int quantityIndex = cursor.getColumnIndexOrThrow(DBHelper.COLUMN_QUANTITY);
+            int thresholdIndex = cursor.getColumnIndexOrThrow(DBHelper.COLUMN_REORDER_THRESHOLD);
+            int size = 0;
+            while (size < count && cursor.moveToNext()) {
+                ids[size] = cursor.getInt(idIndex);
+                names[size] = cursor.getString(nameIndex);
+                quantities[size] = cursor.getInt(quantityIndex);
+                reorderThresholds[size] = cursor.getInt(thresholdIndex);
+                size++;
+            }
+            return new InventoryPage(ids, names, quantities, reorderThresholds, size);
+        } finally {
+            cursor.close();
+        }
+    }
+
+    static InventoryItem readFirstItem(Cursor cursor) {
+        if (cursor == null) {
+            return null;
+        }
+        try {
+            if (!cursor.moveToFirst()) {
+                return null;
+            }
+            return new InventoryItem(
+                    cursor.getInt(cursor.getColumnIndexOrThrow(DBHelper.COLUMN_ITEM_ID)),
+                    cursor.getString(cursor.getColumnIndexOrThrow(DBHelper.COLUMN_ITEM_NAME)),
+                    cursor.getInt(cursor.getColumnIndexOrThrow(DBHelper.COLUMN_QUANTITY)),
+                    cursor.getInt(cursor.getColumnIndexOrThrow(DBHelper.COLUMN_REORDER_THRESHOLD)));
+        } finally {
+            cursor.close();
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.inventoryapp;
+
+import android.database.Cursor;
+import android.database.sqlite.SQLiteDatabase;
+
+import java.io.IOException;
+
+// SQLiteRowSources exposes DBHelper tables to InventoryExporter. Each chunk is one keyset query
+// (id > ? ORDER BY id LIMIT n) whose cursor is written out and closed before the next one.
+final class SQLiteRowSources {
+
+    private SQLiteRowSources() {
+    }
+
+    static InventoryExporter.RowSource inventory(DBHelper dbHelper) {
+        return new TableSource(dbHelper, DBHelper.TABLE_INVENTORY, new String[]{
+                DBHelper.COLUMN_ITEM_ID, DBHelper.COLUMN_ITEM_NAME, DBHelper.COLUMN_QUANTITY});
+    }
+
+    // Users without credentials: the password column is never read.
+    static InventoryExporter.RowSource users(DBHelper dbHelper) {
+        return new TableSource(dbHelper, DBHelper.TABLE_USERS, new String[]{
+                DBHelper.COLUMN_USER_ID, DBHelper.COLUMN_USERNAME});
+    }
+
+    private static final class TableSource implements InventoryExporter.RowSource {
+        private final DBHelper dbHelper;
+        private final String table;
+        private final String[] columns;
+        private final String query;
+
+        TableSource(DBHelper dbHelper, String table, String[] columns) {
+            this.dbHelper = dbHelper;
+            this.table = table;
+            this.columns = columns;
+            // The first column is the integer primary key used as the keyset
+            StringBuilder select = new StringBuilder();
+            for (String column : columns) {
+                select.append(select.length() == 0 ? "" : ", ").append(column);
+            }
+            query = "SELECT " + select + " FROM " + table +
+                    " WHERE " + columns[0] + " > ? ORDER BY " + columns[0] + " LIMIT ?";
+        }
+
+        @Override
+        public String name() {
+            return table;
+        }
+
+        @Override
+        public String[] columns() {
+            return columns;
+        }
+
+        @Override
+        public long writeChunk(long afterKey, int limit, InventoryExporter.RowSink sink) throws IOException {
+            SQLiteDatabase db = dbHelper.getReadableDatabase();
+            Cursor cursor = db.rawQuery(query, new String[]{String.valueOf(afterKey), String.valueOf(limit)});
+            long lastKey = -1;
+            try {
+                while (cursor.moveToNext()) {
+                    lastKey = cursor.getLong(0);
+                    for (int i = 0; i < columns.length; i++) {
+                        if (cursor.getType(i) == Cursor.FIELD_TYPE_INTEGER) {
+                            sink.number(cursor.getLong(i));
+                        } else {
+                            sink.text(cursor.isNull(i) ? null : cursor.getString(i));
+                        }
+                    }
+                    sink.endRow();
+                }
+            } finally {
+                cursor.close();
+            }
+            return lastKey;
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.example.inventoryapp;
+
+import android.content.Context;
+import android.util.Log;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// ScanIntake takes stock scans at scanner speed without touching the database on the caller's
+// thread. A scanned code is an item's SKU or, failing that, its name (case-insensitively, like
+// any name lookup). Scans of the same code merge into one pending delta; codes are matched
+// exactly, since SKUs are case-sensitive. The pending set is written as one upsert every
+// FLUSH_INTERVAL_MILLIS, or sooner once MAX_PENDING_SCANS scans are waiting, through the
+// InventoryWriter queue like every other mutation. Each flush ends with a single RELOADED
+// event, so the dashboard refreshes once per batch instead of once per unit.
+//
+// If a batch fails, its codes are written one at a time so a bad one fails alone, and a code
+// that still fails goes back into the pending set for the next flush. After MAX_ATTEMPTS failed
+// writes its scans are dropped and counted, for the intake screen to report.
+public class ScanIntake {
+    private static final String TAG = "ScanIntake";
+
+    static final long FLUSH_INTERVAL_MILLIS = 250;
+    static final int MAX_PENDING_SCANS = 200;
+    static final int MAX_ATTEMPTS = 3;
+    private static final String REASON = "scan";
+
+    private static ScanIntake instance;
+
+    private final DBHelper dbHelper;
+    private final InventoryWriter writer;
+    private final ScheduledExecutorService flusher;
+
+    // Guarded by this; keyed by code, in first-scan order
+    private LinkedHashMap<String, PendingScan> pending = new LinkedHashMap<>();
+    private int pendingScans;
+    private int droppedScans;
+    private boolean flushScheduled;
+
+    private static final class PendingScan {
+        final String code;
+        int delta;
+        int scans;
+        // Failed writes so far
+        int attempts;
+
+        PendingScan(String code) {
+            this.code = code;
+        }
+    }
+
+    public static synchronized ScanIntake getInstance(Context context) {
+        if (instance == null) {
+            instance = new ScanIntake(DBHelper.getInstance(context), InventoryWriter.getInstance(context));
+        }
+        return instance;
+    }
+
+    ScanIntake(DBHelper dbHelper, InventoryWriter writer) {
+        this.dbHelper = dbHelper;
+        this.writer = writer;
+        flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "scan-intake");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    // Queue one scan. Safe from any thread, including the main thread; returns immediately.
+    public void scan(String code, int delta) {
+        synchronized (this) {
+            merge(code, delta, 1);
+            if (pendingScans >= MAX_PENDING_SCANS) {
+                // Full batch: write it now rather than waiting out the interval
+                flushScheduled = true;
+                flusher.execute(this::flush);
+            } else {
+                scheduleFlush();
+            }
+        }
+    }
+
+    // Write whatever is pending now, e.g. when the intake screen goes away.
+    public void flushNow() {
+        flusher.execute(this::flush);
+    }
+
+    public synchronized int getPendingScans() {
+        return pendingScans;
+    }
+
+    // Scans dropped after MAX_ATTEMPTS failed writes since the last call, then resets the count.
+    public synchronized int takeDroppedScans() {
+        int dropped = droppedScans;
+        droppedScans = 0;
+        return dropped;
+    }
+
+    private void scheduleFlush() {
+        if (!flushScheduled) {
+            flushScheduled = true;
+            flusher.schedule(this::flush, FLUSH_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private PendingScan merge(String code, int delta, int scans) {
+        PendingScan scan = pending.get(code);
+        if (scan == null) {
+            scan = new PendingScan(code);
+            pending.put(code, scan);
+        }
+        scan.delta += delta;
+        scan.scans += scans;
+        pendingScans += scans;
+        return scan;
+    }
+
+    // Runs on the flusher thread. Scans that arrive while it writes start the next batch.
+    private void flush() {
+        LinkedHashMap<String, PendingScan> batch;
+        synchronized (this) {
+            flushScheduled = false;
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = pending;
+            pending = new LinkedHashMap<>();
+            pendingScans = 0;
+        }
+        ArrayList<PendingScan> writes = new ArrayList<>(batch.size());
+        int scans = 0;
+        for (PendingScan scan : batch.values()) {
+            // Scans that cancel out change nothing, and must not create an empty item
+            if (scan.delta != 0) {
+                writes.add(scan);
+            }
+            scans += scan.scans;
+        }
+        if (writes.isEmpty()) {
+            return;
+        }
+        long start = InventoryMetrics.start();
+        try {
+            if (!write(writes)) {
+                // As InventoryWriter does for a failed group: one code at a time, so a bad one fails alone
+                for (PendingScan scan : writes) {
+                    if (writes.size() == 1 || !write(Collections.singletonList(scan))) {
+                        retry(scan);
+                        scans -= scan.scans;
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            // The write is still queued and will commit; only stop waiting for it
+            Thread.currentThread().interrupt();
+            return;
+        } finally {
+            InventoryMetrics.stop(InventoryMetrics.SCAN_FLUSH, start);
+        }
+        InventoryMetrics.addRows(InventoryMetrics.SCAN_FLUSH, scans);
+    }
+
+    // Upsert scans as one write and wait for the commit. Returns false if it rolled back, in
+    // which case nothing was applied.
+    private boolean write(List<PendingScan> scans) throws InterruptedException {
+        final int rows = scans.size();
+        final String[] codes = new String[rows];
+        final int[] deltas = new int[rows];
+        for (int i = 0; i < rows; i++) {
+            codes[i] = scans.get(i).code;
+            deltas[i] = scans.get(i).delta;
+        }
+        try {
+            writer.submit(() -> {
+                dbHelper.upsertItemsByName(codes, deltas, rows, REASON, true);
+                dbHelper.notifyBulkChange();
+                return null;
+            }, null).get();
+            return true;
+        } catch (ExecutionException | RuntimeException e) {
+            Log.e(TAG, "Could not write scans of " + rows + " items", e);
+            return false;
+        }
+    }
+
+    // Put a scan whose write failed back for the next flush, or drop it once it has failed
+    // MAX_ATTEMPTS times. Scans of the same code queued meanwhile share its attempt count.
+    private synchronized void retry(PendingScan failed) {
+        if (failed.attempts + 1 >= MAX_ATTEMPTS) {
+            Log.e(TAG, "Dropping " + failed.scans + " scans of " + failed.code + " after " + MAX_ATTEMPTS +
+                    " failed writes");
+            droppedScans += failed.scans;
+            return;
+        }
+        PendingScan scan = merge(failed.code, failed.delta, failed.scans);
+        scan.attempts = Math.max(scan.attempts, failed.attempts + 1);
+        scheduleFlush();
+    }
+}
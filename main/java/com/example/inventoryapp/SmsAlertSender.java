@@ -0,0 +1,46 @@
+package com.example.inventoryapp;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.pm.PackageManager;
+import android.telephony.SmsManager;
+import android.util.Log;
+
+import androidx.core.content.ContextCompat;
+
+import java.util.ArrayList;
+
+// SmsAlertSender texts alerts to the store phone. Alerts are skipped while SEND_SMS is not granted.
+public class SmsAlertSender implements AlertSender {
+    private static final String TAG = "SmsAlertSender";
+    private static final String PHONE_NUMBER = "1234567890"; // Replace with a valid number or user-configurable value
+
+    private final Context context;
+
+    public SmsAlertSender(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    @Override
+    public void send(String message) {
+        InventoryMetrics.checkNotMainThread(InventoryMetrics.SEND_ALERT);
+        long start = InventoryMetrics.start();
+        try {
+            sendSms(message);
+        } finally {
+            InventoryMetrics.stop(InventoryMetrics.SEND_ALERT, start);
+        }
+    }
+
+    private void sendSms(String message) {
+        if (ContextCompat.checkSelfPermission(context, Manifest.permission.SEND_SMS)
+                != PackageManager.PERMISSION_GRANTED) {
+            Log.d(TAG, "SMS permission not granted; skipping alert.");
+            return;
+        }
+        // A digest can run past one SMS, so always send it as a multipart message
+        SmsManager smsManager = SmsManager.getDefault();
+        ArrayList<String> parts = smsManager.divideMessage(message);
+        smsManager.sendMultipartTextMessage(PHONE_NUMBER, null, parts, null, null);
+    }
+}
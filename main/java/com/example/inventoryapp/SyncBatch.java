@@ -0,0 +1,92 @@
+package com.example.inventoryapp;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+// SyncBatch is the unit sent over the wire in either direction: a list of changes plus a cursor.
+// A push names the sending device and its cursor is the last local version included; a pull
+// answer's cursor is the server position to resume from, and more says whether it was cut short.
+// Batches travel as gzipped binary records; item names and ids compress well. Nothing here
+// depends on Android.
+public class SyncBatch {
+    private static final int FORMAT = 1;
+    private static final int BUFFER_SIZE = 8 * 1024;
+
+    // Device id for pushes, null for pull answers
+    public final String source;
+    public final long cursor;
+    public final boolean more;
+    public final List<SyncChange> changes;
+
+    public SyncBatch(String source, long cursor, boolean more, List<SyncChange> changes) {
+        this.source = source;
+        this.cursor = cursor;
+        this.more = more;
+        this.changes = changes;
+    }
+
+    public byte[] toBytes() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes, BUFFER_SIZE))) {
+            out.writeInt(FORMAT);
+            writeNullable(out, source);
+            out.writeLong(cursor);
+            out.writeBoolean(more);
+            out.writeInt(changes.size());
+            for (SyncChange change : changes) {
+                out.writeUTF(change.globalId);
+                out.writeBoolean(change.deleted);
+                if (!change.deleted) {
+                    writeNullable(out, change.name);
+                    out.writeInt(change.quantity);
+                    out.writeInt(change.baseQuantity);
+                    out.writeInt(change.reorderThreshold);
+                    writeNullable(out, change.sku);
+                }
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    public static SyncBatch fromBytes(byte[] data) throws IOException {
+        try (DataInputStream in = new DataInputStream(new GZIPInputStream(new ByteArrayInputStream(data), BUFFER_SIZE))) {
+            int format = in.readInt();
+            if (format != FORMAT) {
+                throw new IOException("Unknown sync batch format " + format);
+            }
+            String source = readNullable(in);
+            long cursor = in.readLong();
+            boolean more = in.readBoolean();
+            int count = in.readInt();
+            List<SyncChange> changes = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String globalId = in.readUTF();
+                if (in.readBoolean()) {
+                    changes.add(SyncChange.deletion(globalId));
+                } else {
+                    changes.add(new SyncChange(globalId, false, readNullable(in), in.readInt(), in.readInt(),
+                            in.readInt(), readNullable(in)));
+                }
+            }
+            return new SyncBatch(source, cursor, more, changes);
+        }
+    }
+
+    private static void writeNullable(DataOutputStream out, String value) throws IOException {
+        out.writeBoolean(value != null);
+        if (value != null) {
+            out.writeUTF(value);
+        }
+    }
+
+    private static String readNullable(DataInputStream in) throws IOException {
+        return in.readBoolean() ? in.readUTF() : null;
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.inventoryapp;
+
+// SyncChange is one item as it travels between a device and the sync server, keyed by global id.
+// A delete carries only the id. Pushed changes also carry baseQuantity, the quantity last agreed
+// with the server, so the server can apply quantity - baseQuantity as a delta.
+public class SyncChange {
+    public final String globalId;
+    public final boolean deleted;
+    public final String name;
+    public final int quantity;
+    public final int baseQuantity;
+    public final int reorderThreshold;
+    // null when the item has no SKU
+    public final String sku;
+
+    public SyncChange(String globalId, boolean deleted, String name, int quantity, int baseQuantity,
+                      int reorderThreshold, String sku) {
+        this.globalId = globalId;
+        this.deleted = deleted;
+        this.name = name;
+        this.quantity = quantity;
+        this.baseQuantity = baseQuantity;
+        this.reorderThreshold = reorderThreshold;
+        this.sku = sku;
+    }
+
+    static SyncChange deletion(String globalId) {
+        return new SyncChange(globalId, true, null, 0, 0, 0, null);
+    }
+}
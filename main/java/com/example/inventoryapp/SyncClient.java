@@ -0,0 +1,122 @@
+package com.example.inventoryapp;
+
+import android.database.Cursor;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+
+// SyncClient keeps this device's inventory in step with the other stockrooms through a sync
+// server. Each round pushes the rows changed since the push checkpoint, then pulls the server's
+// changes since the pull checkpoint, both in compressed batches of up to BATCH_SIZE rows, so a
+// round costs what changed rather than what exists. Quantities travel as deltas against the last
+// agreed value and merge additively (see DBHelper.applySyncChanges); other fields take the last
+// write to reach the server, and deletes win. Every batch commits its checkpoint, so a round cut
+// short by a network error resumes where it stopped. Each batch is written through the
+// InventoryWriter, so edits made during a long round queue between batches.
+public class SyncClient {
+    static final int BATCH_SIZE = 500;
+
+    private final DBHelper dbHelper;
+    private final InventoryWriter writer;
+    private final SyncTransport transport;
+
+    public SyncClient(DBHelper dbHelper, InventoryWriter writer, SyncTransport transport) {
+        this.dbHelper = dbHelper;
+        this.writer = writer;
+        this.transport = transport;
+    }
+
+    // Run one sync round on the calling thread, which must not be the main thread.
+    // Returns {changes pushed, rows changed by the pull}.
+    public synchronized int[] sync() throws IOException {
+        long start = InventoryMetrics.start();
+        try {
+            int pushed = push();
+            int pulled = pull();
+            InventoryMetrics.addRows(InventoryMetrics.SYNC, pushed + pulled);
+            return new int[]{pushed, pulled};
+        } finally {
+            InventoryMetrics.stop(InventoryMetrics.SYNC, start);
+        }
+    }
+
+    // Pulling rebases unpushed quantities on the last agreed value, which is only right once
+    // every push the server may have applied is acknowledged, so pushes always go first.
+    private int push() throws IOException {
+        String deviceId = dbHelper.getSyncDeviceId();
+        int pushed = 0;
+        while (true) {
+            // A batch left by an earlier round may already be applied; resend it as it was
+            byte[] outbox = dbHelper.getSyncOutbox();
+            if (outbox == null) {
+                SyncBatch batch = readUnpushed(deviceId);
+                if (batch.changes.isEmpty()) {
+                    return pushed;
+                }
+                final byte[] encoded = batch.toBytes();
+                write(() -> {
+                    dbHelper.setSyncOutbox(encoded);
+                    return null;
+                });
+                outbox = encoded;
+            }
+            transport.push(outbox);
+            final SyncBatch sent = SyncBatch.fromBytes(outbox);
+            write(() -> {
+                dbHelper.markSyncPushed(sent.changes, sent.cursor);
+                return null;
+            });
+            pushed += sent.changes.size();
+        }
+    }
+
+    private SyncBatch readUnpushed(String deviceId) {
+        List<SyncChange> changes = new ArrayList<>();
+        long through = 0;
+        Cursor cursor = dbHelper.getUnpushedChanges(BATCH_SIZE);
+        try {
+            while (cursor.moveToNext()) {
+                String globalId = cursor.getString(0);
+                if (cursor.getInt(1) != 0) {
+                    changes.add(SyncChange.deletion(globalId));
+                } else {
+                    changes.add(new SyncChange(globalId, false, cursor.getString(2), cursor.getInt(3),
+                            cursor.getInt(4), cursor.getInt(5), cursor.isNull(6) ? null : cursor.getString(6)));
+                }
+                through = cursor.getLong(7);
+            }
+        } finally {
+            cursor.close();
+        }
+        return new SyncBatch(deviceId, through, changes.size() == BATCH_SIZE, changes);
+    }
+
+    private int pull() throws IOException {
+        long cursor = dbHelper.getSyncPulledThrough();
+        int pulled = 0;
+        SyncBatch batch;
+        do {
+            batch = SyncBatch.fromBytes(transport.pull(cursor, BATCH_SIZE));
+            if (batch.changes.isEmpty()) {
+                break;
+            }
+            final SyncBatch pulledBatch = batch;
+            pulled += write(() -> dbHelper.applySyncChanges(pulledBatch.changes, pulledBatch.cursor));
+            cursor = batch.cursor;
+        } while (batch.more);
+        return pulled;
+    }
+
+    // Run one batch's write on the writer and wait for it to commit.
+    private <T> T write(Callable<T> work) throws InterruptedIOException {
+        try {
+            return writer.submitAndWait(work);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Sync interrupted");
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.example.inventoryapp;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.TreeMap;
+
+// SyncServer is a small in-memory reference implementation of the sync server, for running
+// several SyncClients against each other in one process (tests, benchmarks, demos). It implements
+// the server side of the protocol: each pushed change becomes the newest entry of a change log
+// that pulls page through by sequence number, quantities merge as deltas, deletes win and are
+// kept as tombstones for devices that have not pulled them yet, and a replayed push is ignored.
+// Nothing here depends on Android.
+public class SyncServer implements SyncTransport {
+    private static final class Row {
+        final String globalId;
+        boolean deleted;
+        String name;
+        int quantity;
+        int reorderThreshold;
+        String sku;
+        long sequence;
+
+        Row(String globalId) {
+            this.globalId = globalId;
+        }
+    }
+
+    // All guarded by this
+    private final HashMap<String, Row> rows = new HashMap<>();
+    private final HashMap<String, Row> rowsBySku = new HashMap<>();
+    // Every row exactly once, under the sequence number of its latest change
+    private final TreeMap<Long, Row> log = new TreeMap<>();
+    // Per device, the cursor of the last push batch applied
+    private final HashMap<String, Long> pushedThrough = new HashMap<>();
+    private long sequence;
+
+    @Override
+    public synchronized void push(byte[] data) throws IOException {
+        SyncBatch batch = SyncBatch.fromBytes(data);
+        Long applied = pushedThrough.get(batch.source);
+        if (applied != null && batch.cursor <= applied) {
+            return;
+        }
+        for (SyncChange change : batch.changes) {
+            apply(change);
+        }
+        pushedThrough.put(batch.source, batch.cursor);
+    }
+
+    @Override
+    public synchronized byte[] pull(long afterCursor, int limit) throws IOException {
+        List<SyncChange> changes = new ArrayList<>();
+        long cursor = afterCursor;
+        boolean more = false;
+        for (Row row : log.tailMap(afterCursor, false).values()) {
+            if (changes.size() == limit) {
+                more = true;
+                break;
+            }
+            changes.add(row.deleted ? SyncChange.deletion(row.globalId) : new SyncChange(row.globalId, false,
+                    row.name, row.quantity, row.quantity, row.reorderThreshold, row.sku));
+            cursor = row.sequence;
+        }
+        return new SyncBatch(null, cursor, more, changes).toBytes();
+    }
+
+    // Number of live (not deleted) items.
+    public synchronized int getItemCount() {
+        int count = 0;
+        for (Row row : rows.values()) {
+            if (!row.deleted) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void apply(SyncChange change) {
+        Row row = rows.get(change.globalId);
+        if (row != null && row.deleted) {
+            // A delete wins over edits made concurrently elsewhere
+            return;
+        }
+        if (row == null) {
+            row = new Row(change.globalId);
+            rows.put(change.globalId, row);
+        }
+        if (change.deleted) {
+            setSku(row, null);
+            row.deleted = true;
+            row.name = null;
+            row.quantity = 0;
+        } else {
+            row.name = change.name;
+            row.quantity += change.quantity - change.baseQuantity;
+            row.reorderThreshold = change.reorderThreshold;
+            setSku(row, change.sku);
+        }
+        touch(row);
+    }
+
+    // SKUs stay unique: the latest item to claim a code takes it from the previous holder.
+    private void setSku(Row row, String sku) {
+        if (sku != null && sku.equals(row.sku)) {
+            return;
+        }
+        if (row.sku != null) {
+            rowsBySku.remove(row.sku);
+        }
+        row.sku = sku;
+        if (sku != null) {
+            Row previous = rowsBySku.put(sku, row);
+            if (previous != null) {
+                previous.sku = null;
+                touch(previous);
+            }
+        }
+    }
+
+    private void touch(Row row) {
+        log.remove(row.sequence);
+        row.sequence = ++sequence;
+        log.put(row.sequence, row);
+    }
+}
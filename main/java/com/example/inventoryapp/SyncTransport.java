@@ -0,0 +1,15 @@
+package com.example.inventoryapp;
+
+import java.io.IOException;
+
+// SyncTransport is a SyncClient's connection to the sync server, carrying encoded SyncBatches.
+// Any failure is an IOException and ends the round. Nothing here depends on Android, so a
+// server (see SyncServer) can implement it outside the app.
+public interface SyncTransport {
+    // Deliver an encoded push batch, returning once the server has applied it. The same
+    // bytes may be delivered again after a failure; the server must apply them only once.
+    void push(byte[] batch) throws IOException;
+
+    // Up to limit server changes after afterCursor, oldest first, as an encoded batch.
+    byte[] pull(long afterCursor, int limit) throws IOException;
+}
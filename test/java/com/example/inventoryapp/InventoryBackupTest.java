@@ -0,0 +1,223 @@
+package com.example.inventoryapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class InventoryBackupTest {
+    private File directory;
+    private File snapshot;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("backup").toFile();
+        snapshot = new File(directory, "inventory.snapshot");
+    }
+
+    @After
+    public void deleteDirectory() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void rowsSurviveTheRoundTrip() throws IOException {
+        long size = writeSample(snapshot);
+
+        assertEquals(snapshot.length(), size);
+        try (InventoryBackup.Reader reader = InventoryBackup.Reader.open(snapshot)) {
+            assertEquals(2, reader.getItemCount());
+            assertEquals(1, reader.getUserCount());
+            assertTrue(reader.getCreatedAt() > 0);
+
+            assertEquals(InventoryBackup.ITEM, reader.next());
+            assertEquals(7, reader.id);
+            assertEquals("Schrauben M4 \u00d8", reader.name);
+            assertEquals(120, reader.quantity);
+            assertEquals(10, reader.reorderThreshold);
+            assertEquals("4006381333931", reader.sku);
+            assertEquals("g-7", reader.globalId);
+            assertEquals(100, reader.syncedQuantity);
+            assertEquals(1700000000000L, reader.updatedAt);
+
+            assertEquals(InventoryBackup.ITEM, reader.next());
+            assertEquals(9, reader.id);
+            assertNull(reader.sku);
+            assertNull(reader.globalId);
+
+            assertEquals(InventoryBackup.USER, reader.next());
+            assertEquals(1, reader.id);
+            assertEquals("ana", reader.username);
+            assertEquals("secret", reader.password);
+
+            assertEquals(InventoryBackup.END, reader.next());
+        }
+    }
+
+    @Test
+    public void rowsLargerThanTheBufferAreKept() throws IOException {
+        StringBuilder name = new StringBuilder();
+        while (name.length() < 600 * 1024) {
+            name.append("long name ");
+        }
+        try (InventoryBackup.Writer writer = new InventoryBackup.Writer(snapshot)) {
+            for (int i = 0; i < 3; i++) {
+                writer.item(i, name.toString(), i, 0, null, null, 0, 0);
+            }
+            writer.commit();
+        }
+
+        try (InventoryBackup.Reader reader = InventoryBackup.Reader.open(snapshot)) {
+            for (int i = 0; i < 3; i++) {
+                assertEquals(InventoryBackup.ITEM, reader.next());
+                assertEquals(i, reader.id);
+                assertEquals(name.toString(), reader.name);
+            }
+            assertEquals(InventoryBackup.END, reader.next());
+        }
+    }
+
+    @Test
+    public void rewindReadsTheSnapshotAgain() throws IOException {
+        writeSample(snapshot);
+
+        try (InventoryBackup.Reader reader = InventoryBackup.Reader.open(snapshot)) {
+            reader.next();
+            reader.next();
+            reader.rewind();
+            int rows = 0;
+            while (reader.next() != InventoryBackup.END) {
+                rows++;
+            }
+            assertEquals(3, rows);
+        }
+    }
+
+    @Test
+    public void corruptedByteIsRefusedByTheChecksum() throws IOException {
+        writeSample(snapshot);
+        try (RandomAccessFile file = new RandomAccessFile(snapshot, "rw")) {
+            file.seek(30);
+            int value = file.read();
+            file.seek(30);
+            file.write(value ^ 0x01);
+        }
+
+        assertRefused(snapshot, "Snapshot checksum mismatch");
+    }
+
+    @Test
+    public void truncatedSnapshotIsRefused() throws IOException {
+        writeSample(snapshot);
+        try (RandomAccessFile file = new RandomAccessFile(snapshot, "rw")) {
+            file.setLength(file.length() - 5);
+        }
+
+        assertRefused(snapshot, "Snapshot checksum mismatch");
+    }
+
+    @Test
+    public void otherFilesAreRefused() throws IOException {
+        Files.write(snapshot.toPath(), new byte[64]);
+
+        assertRefused(snapshot, "Not an inventory snapshot");
+    }
+
+    @Test
+    public void uncommittedWriterKeepsTheEarlierSnapshot() throws IOException {
+        writeSample(snapshot);
+        long size = snapshot.length();
+
+        try (InventoryBackup.Writer writer = new InventoryBackup.Writer(snapshot)) {
+            writer.item(1, "Half written", 1, 0, null, null, 0, 0);
+        }
+
+        assertEquals(size, snapshot.length());
+        assertFalse(new File(directory, "inventory.snapshot.tmp").exists());
+        try (InventoryBackup.Reader reader = InventoryBackup.Reader.open(snapshot)) {
+            assertEquals(2, reader.getItemCount());
+        }
+    }
+
+    @Test
+    public void commitKeepsTheNewestGenerations() throws IOException {
+        for (int round = 1; round <= 4; round++) {
+            try (InventoryBackup.Writer writer = new InventoryBackup.Writer(snapshot, 3)) {
+                for (int id = 1; id <= round; id++) {
+                    writer.item(id, "Item " + id, id, 0, null, null, 0, 0);
+                }
+                writer.commit();
+            }
+        }
+
+        List<File> kept = InventoryBackup.generations(snapshot, 3);
+        assertEquals(3, kept.size());
+        assertEquals(snapshot, kept.get(0));
+        assertEquals(new File(directory, "inventory.snapshot.2"), kept.get(2));
+        // Newest first: the snapshots of rounds 4, 3 and 2; round 1's has been dropped
+        for (int n = 0; n < kept.size(); n++) {
+            try (InventoryBackup.Reader reader = InventoryBackup.Reader.open(kept.get(n))) {
+                assertEquals(4 - n, reader.getItemCount());
+            }
+        }
+        assertFalse(new File(directory, "inventory.snapshot.3").exists());
+    }
+
+    @Test
+    public void uncommittedWriterLeavesEveryGenerationInPlace() throws IOException {
+        writeSample(snapshot);
+        try (InventoryBackup.Writer writer = new InventoryBackup.Writer(snapshot, 3)) {
+            writer.commit();
+        }
+
+        try (InventoryBackup.Writer writer = new InventoryBackup.Writer(snapshot, 3)) {
+            writer.item(1, "Half written", 1, 0, null, null, 0, 0);
+        }
+
+        List<File> kept = InventoryBackup.generations(snapshot, 3);
+        assertEquals(2, kept.size());
+        try (InventoryBackup.Reader reader = InventoryBackup.Reader.open(kept.get(0))) {
+            assertEquals(0, reader.getItemCount());
+        }
+        try (InventoryBackup.Reader reader = InventoryBackup.Reader.open(kept.get(1))) {
+            assertEquals(2, reader.getItemCount());
+        }
+    }
+
+    private static long writeSample(File target) throws IOException {
+        try (InventoryBackup.Writer writer = new InventoryBackup.Writer(target)) {
+            writer.item(7, "Schrauben M4 \u00d8", 120, 10, "4006381333931", "g-7", 100, 1700000000000L);
+            writer.item(9, "Nut", 0, 4, null, null, 0, 0);
+            writer.user(1, "ana", "secret");
+            assertEquals(2, writer.getItemCount());
+            assertEquals(1, writer.getUserCount());
+            return writer.commit();
+        }
+    }
+
+    private static void assertRefused(File snapshot, String message) {
+        try {
+            InventoryBackup.Reader.open(snapshot).close();
+            fail("Damaged snapshot was opened");
+        } catch (IOException e) {
+            assertEquals(message, e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package com.example.inventoryapp;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class InventoryExporterTest {
+    private static final int MILLION = 1000000;
+
+    private File directory;
+
+    @Before
+    public void createDirectory() throws IOException {
+        directory = Files.createTempDirectory("export").toFile();
+    }
+
+    @After
+    public void deleteDirectory() {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    @Test
+    public void csvQuotesOnlyValuesThatNeedIt() throws IOException {
+        StringWriter out = new StringWriter();
+        long rows = new InventoryExporter().exportTo(new GeneratedSource(3) {
+            @Override
+            String name(long key) {
+                return key == 2 ? "Bolt, \"M4\"" : key == 3 ? null : "Nut";
+            }
+        }, InventoryExporter.Format.CSV, out);
+
+        assertEquals(3, rows);
+        assertEquals("id,name,quantity\n1,Nut,10\n2,\"Bolt, \"\"M4\"\"\",20\n3,,30\n", out.toString());
+    }
+
+    @Test
+    public void jsonLinesEscapesStrings() throws IOException {
+        StringWriter out = new StringWriter();
+        new InventoryExporter().exportTo(new GeneratedSource(2) {
+            @Override
+            String name(long key) {
+                return key == 1 ? "a\"b\\c\nd\u0001" : null;
+            }
+        }, InventoryExporter.Format.JSON_LINES, out);
+
+        assertEquals("{\"id\":1,\"name\":\"a\\\"b\\\\c\\nd\\u0001\",\"quantity\":10}\n" +
+                "{\"id\":2,\"name\":null,\"quantity\":20}\n", out.toString());
+    }
+
+    @Test
+    public void exportStopsOnAShortChunk() throws IOException {
+        GeneratedSource source = new GeneratedSource(InventoryExporter.CHUNK_SIZE * 2);
+        long rows = new InventoryExporter().exportTo(source, InventoryExporter.Format.CSV, new StringWriter());
+
+        assertEquals(InventoryExporter.CHUNK_SIZE * 2, rows);
+        // Two full chunks, then one empty read to find the end
+        assertEquals(3, source.chunks);
+    }
+
+    @Test
+    public void gzippedFileHoldsEveryRow() throws IOException {
+        File file = new InventoryExporter().export(new GeneratedSource(2500), InventoryExporter.Format.CSV, true,
+                directory);
+
+        assertEquals("generated.csv.gz", file.getName());
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(new FileInputStream(file)), StandardCharsets.UTF_8))) {
+            assertEquals("id,name,quantity", reader.readLine());
+            int lines = 0;
+            String line;
+            String last = null;
+            while ((line = reader.readLine()) != null) {
+                last = line;
+                lines++;
+            }
+            assertEquals(2500, lines);
+            assertEquals("2500,item 2500,25000", last);
+        }
+    }
+
+    @Test
+    public void millionRowsStreamInChunks() throws IOException {
+        GeneratedSource source = new GeneratedSource(MILLION);
+        CountingWriter out = new CountingWriter();
+
+        long rows = new InventoryExporter().exportTo(source, InventoryExporter.Format.JSON_LINES, out);
+
+        assertEquals(MILLION, rows);
+        assertEquals(MILLION, out.lines);
+        assertEquals(53666688, out.chars);
+        assertEquals(MILLION / InventoryExporter.CHUNK_SIZE + 1, source.chunks);
+    }
+
+    // A million JSON Lines rows are about 54 million characters, so an exporter that held on to
+    // its output would run out of a 16 MB heap. main runs that export in a JVM of its own.
+    @Test
+    public void millionRowExportFitsASmallHeap() throws Exception {
+        Process process = new ProcessBuilder(
+                new File(System.getProperty("java.home"), "bin/java").getPath(), "-Xmx16m",
+                "-cp", System.getProperty("java.class.path"), InventoryExporterTest.class.getName(),
+                directory.getPath())
+                .redirectErrorStream(true)
+                .start();
+        String output = new String(readAll(process), StandardCharsets.UTF_8);
+
+        assertEquals(output, 0, process.waitFor());
+        assertTrue(output, new File(directory, "generated.jsonl.gz").length() > 0);
+    }
+
+    public static void main(String[] args) throws IOException {
+        new InventoryExporter().export(new GeneratedSource(MILLION), InventoryExporter.Format.JSON_LINES, true,
+                new File(args[0]));
+    }
+
+    private static byte[] readAll(Process process) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[4096];
+        int read;
+        while ((read = process.getInputStream().read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+
+    // Rows 1..size with key, a name and quantity key * 10, made up on demand.
+    private static class GeneratedSource implements InventoryExporter.RowSource {
+        private final long size;
+        int chunks;
+
+        GeneratedSource(long size) {
+            this.size = size;
+        }
+
+        String name(long key) {
+            return "item " + key;
+        }
+
+        @Override
+        public String name() {
+            return "generated";
+        }
+
+        @Override
+        public String[] columns() {
+            return new String[]{"id", "name", "quantity"};
+        }
+
+        @Override
+        public long writeChunk(long afterKey, int limit, InventoryExporter.RowSink sink) throws IOException {
+            chunks++;
+            long key = afterKey;
+            while (key < size && key - afterKey < limit) {
+                key++;
+                sink.number(key);
+                sink.text(name(key));
+                sink.number(key * 10);
+                sink.endRow();
+            }
+            return key == afterKey ? -1 : key;
+        }
+    }
+
+    // Discards what it is given, keeping only the character and line counts.
+    private static final class CountingWriter extends Writer {
+        long chars;
+        long lines;
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            chars += length;
+            for (int i = offset; i < offset + length; i++) {
+                if (buffer[i] == '\n') {
+                    lines++;
+                }
+            }
+        }
+
+        @Override
+        public void write(int c) {
+            chars++;
+            if (c == '\n') {
+                lines++;
+            }
+        }
+
+        @Override
+        public void write(String value, int offset, int length) {
+            chars += length;
+            for (int i = offset; i < offset + length; i++) {
+                if (value.charAt(i) == '\n') {
+                    lines++;
+                }
+            }
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.inventoryapp;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InventoryQueriesTest {
+    private static final HashSet<Integer> LISTED = new HashSet<>(Arrays.asList(1, 2));
+    private static final HashSet<Integer> NONE = new HashSet<>();
+
+    @Test
+    public void everyWriteReRunsTheAllItemsQuery() {
+        assertTrue(InventoryQueries.ALL_ITEMS.affects(update(9, "Anything", 50, 4), NONE));
+        assertTrue(InventoryQueries.ALL_ITEMS.affects(delete(9), NONE));
+        assertTrue(InventoryQueries.ALL_ITEMS.affects(insert(10, "New", 0, 4), LISTED));
+    }
+
+    @Test
+    public void lowStockReRunsForItemsThatAreOrWereLow() {
+        InventoryQueries.Relevance lowStock = InventoryQueries.LOW_STOCK;
+
+        // Goes low, or stays low
+        assertTrue(lowStock.affects(update(9, "Bolt", 4, 4), NONE));
+        assertTrue(lowStock.affects(insert(10, "Nut", 0, 4), NONE));
+        // A listed item restocked must drop out of the result
+        assertTrue(lowStock.affects(update(1, "Washer", 50, 4), LISTED));
+        assertTrue(lowStock.affects(delete(2), LISTED));
+    }
+
+    @Test
+    public void lowStockIgnoresWritesThatCannotChangeIt() {
+        InventoryQueries.Relevance lowStock = InventoryQueries.LOW_STOCK;
+
+        assertFalse(lowStock.affects(update(9, "Bolt", 5, 4), LISTED));
+        assertFalse(lowStock.affects(insert(10, "Nut", 100, 4), LISTED));
+        assertFalse(lowStock.affects(delete(9), LISTED));
+    }
+
+    @Test
+    public void searchReRunsForListedItemsAndNamesWithEveryWord() {
+        InventoryQueries.Relevance search = InventoryQueries.search("  hex BOLT ");
+
+        assertTrue(search.affects(update(1, "Renamed", 3, 4), LISTED));
+        assertTrue(search.affects(delete(2), LISTED));
+        assertTrue(search.affects(insert(10, "Hex head bolt M4", 3, 4), NONE));
+        assertTrue(search.affects(update(11, "BOLT, HEX", 3, 4), NONE));
+    }
+
+    @Test
+    public void searchIgnoresOtherNamesAndUnlistedDeletes() {
+        InventoryQueries.Relevance search = InventoryQueries.search("hex bolt");
+
+        assertFalse(search.affects(insert(10, "Hex nut", 3, 4), LISTED));
+        assertFalse(search.affects(update(11, "Carriage bolt", 3, 4), LISTED));
+        assertFalse(search.affects(delete(12), LISTED));
+    }
+
+    private static InventoryChange insert(int id, String name, int quantity, int threshold) {
+        return new InventoryChange(InventoryChange.INSERTED, id, name, quantity, threshold);
+    }
+
+    private static InventoryChange update(int id, String name, int quantity, int threshold) {
+        return new InventoryChange(InventoryChange.UPDATED, id, name, quantity, threshold);
+    }
+
+    private static InventoryChange delete(int id) {
+        return new InventoryChange(InventoryChange.DELETED, id, null, 0, 0);
+    }
+}
@@ -0,0 +1,305 @@
+package com.example.inventoryapp;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.Future;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class InventoryWindowTest {
+    private FakeSource source;
+    private InventoryWindow window;
+    private final List<Integer> changedRows = new ArrayList<>();
+    private int windowChanges;
+
+    @Before
+    public void openWindow() {
+        source = new FakeSource();
+        window = new InventoryWindow(source, new InventoryWindow.Listener() {
+            @Override
+            public void onWindowChanged() {
+                windowChanges++;
+            }
+
+            @Override
+            public void onRowChanged(int position) {
+                changedRows.add(position);
+            }
+        });
+    }
+
+    @Test
+    public void restoredLowIdLandsInItsPlaceInsideTheWindow() {
+        fill(1, 100);
+        source.remove(10);
+        window.reload();
+        window.requestPosition(0);
+        assertEquals(99, window.getCount());
+
+        source.put(10, 3);
+        window.applyChange(inserted(10, 3));
+
+        assertEquals(100, window.getCount());
+        assertEquals(10, window.getId(9));
+        assertEquals(3, window.getQuantity(9));
+        assertMatchesSource();
+        // Rows after it moved down one, so an update to them lands on the right cell
+        window.applyChange(new InventoryChange(InventoryChange.UPDATED, 11, "Item 11", 42, 0));
+        assertEquals(10, (int) changedRows.get(0));
+        assertEquals(42, window.getQuantity(10));
+    }
+
+    @Test
+    public void restoredIdBeforeTheWindowShiftsIt() {
+        fill(1, 400);
+        source.remove(5);
+        window.reload();
+        window.requestPosition(250);
+        int start = firstLoaded();
+        assertTrue(start > 0);
+
+        source.put(5, 1);
+        window.applyChange(inserted(5, 1));
+
+        assertEquals(start + 1, firstLoaded());
+        assertMatchesSource();
+    }
+
+    @Test
+    public void restoredIdAtTheTopOfAWindowAtTheStartIsShown() {
+        fill(2, 100);
+        window.reload();
+        window.requestPosition(0);
+
+        source.put(1, 7);
+        window.applyChange(inserted(1, 7));
+
+        assertTrue(window.isLoaded(0));
+        assertEquals(1, window.getId(0));
+        assertMatchesSource();
+    }
+
+    @Test
+    public void restoreIntoAFullWindowDropsItsLastRow() {
+        fill(1, 1000);
+        source.remove(300);
+        window.reload();
+        for (int position = 0; position < 400; position += InventoryWindow.PAGE_SIZE) {
+            window.requestPosition(position);
+        }
+        int start = firstLoaded();
+        int end = lastLoaded();
+        assertEquals(InventoryWindow.PAGE_SIZE * InventoryWindow.MAX_PAGES, end - start + 1);
+
+        source.put(300, 0);
+        window.applyChange(inserted(300, 0));
+
+        assertEquals(start, firstLoaded());
+        assertEquals(end, lastLoaded());
+        assertMatchesSource();
+    }
+
+    @Test
+    public void newItemPastTheEndIsAppendedOnlyWhenTheWindowReachesIt() {
+        fill(1, 30);
+        window.reload();
+        window.requestPosition(0);
+
+        source.put(31, 1);
+        window.applyChange(inserted(31, 1));
+
+        assertEquals(31, window.getCount());
+        assertTrue(window.isLoaded(30));
+        assertMatchesSource();
+
+        fill(32, 400);
+        window.reload();
+        window.requestPosition(0);
+        source.put(401, 1);
+        window.applyChange(inserted(401, 1));
+        assertFalse(window.isLoaded(400));
+        assertMatchesSource();
+    }
+
+    @Test
+    public void updateDuringAReadPatchesThePageInsteadOfDroppingIt() {
+        fill(1, 300);
+        window.reload();
+        window.requestPosition(0);
+        source.deferred = true;
+        source.reads = 0;
+        window.requestPosition(200);
+        assertEquals(1, source.waiting.size());
+
+        // Outside the window, but inside the page being read, which read the old quantity
+        source.put(201, 99);
+        window.applyChange(new InventoryChange(InventoryChange.UPDATED, 201, "Item 201", 99, 0));
+        source.finish();
+
+        assertTrue(window.isLoaded(200));
+        assertEquals(99, window.getQuantity(200));
+        assertEquals(1, source.reads);
+    }
+
+    @Test
+    public void insertDuringAReadDropsItAndReadsThePositionAgain() {
+        fill(1, 300);
+        window.reload();
+        window.requestPosition(0);
+        source.deferred = true;
+        window.requestPosition(200);
+
+        source.put(301, 5);
+        window.applyChange(inserted(301, 5));
+        // The dropped read is asked for again straight away
+        assertEquals(2, source.waiting.size());
+        source.finish();
+
+        assertTrue(window.isLoaded(200));
+        assertMatchesSource();
+    }
+
+    @Test
+    public void deleteDuringAReadKeepsTheNewerRequestPending() {
+        fill(1, 600);
+        window.reload();
+        window.requestPosition(0);
+        source.deferred = true;
+        window.requestPosition(200);
+        window.requestPosition(260);
+
+        source.remove(3);
+        window.applyChange(new InventoryChange(InventoryChange.DELETED, 3, null, 0, 0));
+        source.finish();
+
+        assertTrue(window.isLoaded(200));
+        assertTrue(window.isLoaded(260));
+        assertMatchesSource();
+    }
+
+    private void fill(int fromId, int toId) {
+        for (int id = fromId; id <= toId; id++) {
+            source.put(id, id % 10);
+        }
+    }
+
+    private static InventoryChange inserted(int id, int quantity) {
+        return new InventoryChange(InventoryChange.INSERTED, id, "Item " + id, quantity, 0);
+    }
+
+    private int firstLoaded() {
+        for (int position = 0; position < window.getCount(); position++) {
+            if (window.isLoaded(position)) {
+                return position;
+            }
+        }
+        return -1;
+    }
+
+    private int lastLoaded() {
+        int last = -1;
+        for (int position = 0; position < window.getCount(); position++) {
+            if (window.isLoaded(position)) {
+                last = position;
+            }
+        }
+        return last;
+    }
+
+    // Every windowed row is the row the table holds at that position.
+    private void assertMatchesSource() {
+        assertEquals(source.rows.size(), window.getCount());
+        List<Integer> ids = new ArrayList<>(source.rows.keySet());
+        for (int position = 0; position < window.getCount(); position++) {
+            if (window.isLoaded(position)) {
+                assertEquals("position " + position, (int) ids.get(position), window.getId(position));
+                assertEquals("Item " + ids.get(position), window.getName(position));
+            }
+        }
+    }
+
+    // An in-memory table. It answers at once, as if the read had already finished, or while
+    // deferred reads the page straight away but only delivers it on finish().
+    private static final class FakeSource implements InventoryWindow.PageSource {
+        final TreeMap<Integer, Integer> rows = new TreeMap<>();
+        final List<Runnable> waiting = new ArrayList<>();
+        boolean deferred;
+        int reads;
+
+        // Deliver every waiting page, including any asked for while delivering.
+        void finish() {
+            while (!waiting.isEmpty()) {
+                waiting.remove(0).run();
+            }
+        }
+
+        private void deliver(final InventoryRepository.Callback<InventoryPage> callback, final InventoryPage page) {
+            reads++;
+            if (deferred) {
+                waiting.add(() -> callback.onResult(page));
+            } else {
+                callback.onResult(page);
+            }
+        }
+
+        void put(int id, int quantity) {
+            rows.put(id, quantity);
+        }
+
+        void remove(int id) {
+            rows.remove(id);
+        }
+
+        @Override
+        public InventoryRepository.FirstPage getFirstPage() {
+            return null;
+        }
+
+        @Override
+        public Future<Long> getInventoryCount(InventoryRepository.Callback<Long> callback) {
+            callback.onResult((long) rows.size());
+            return null;
+        }
+
+        @Override
+        public Future<InventoryPage> getInventoryPageAfter(int afterId, int limit,
+                                                           InventoryRepository.Callback<InventoryPage> callback) {
+            deliver(callback, page(new ArrayList<>(rows.tailMap(afterId, false).keySet()), limit));
+            return null;
+        }
+
+        @Override
+        public Future<InventoryPage> getInventoryPageBefore(int beforeId, int limit,
+                                                            InventoryRepository.Callback<InventoryPage> callback) {
+            deliver(callback, page(new ArrayList<>(rows.headMap(beforeId, false).descendingKeySet()), limit));
+            return null;
+        }
+
+        @Override
+        public Future<InventoryPage> getInventoryPageAt(int offset, int limit,
+                                                        InventoryRepository.Callback<InventoryPage> callback) {
+            List<Integer> ids = new ArrayList<>(rows.keySet());
+            deliver(callback, page(ids.subList(Math.min(offset, ids.size()), ids.size()), limit));
+            return null;
+        }
+
+        private InventoryPage page(List<Integer> ids, int limit) {
+            int size = Math.min(limit, ids.size());
+            int[] pageIds = new int[size];
+            String[] names = new String[size];
+            int[] quantities = new int[size];
+            for (int i = 0; i < size; i++) {
+                pageIds[i] = ids.get(i);
+                names[i] = "Item " + ids.get(i);
+                quantities[i] = rows.get(ids.get(i));
+            }
+            return new InventoryPage(pageIds, names, quantities, new int[size], size);
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package com.example.inventoryapp;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class LatencyHistogramTest {
+    private static final int BUCKETS = 608;
+    private static final long MAX_VALUE = (1L << 41) - 1;
+
+    @Test
+    public void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMeanNanos());
+        assertEquals(0, histogram.getPercentileNanos(99));
+    }
+
+    @Test
+    public void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int nanos = 1; nanos <= 10; nanos++) {
+            histogram.record(nanos);
+        }
+
+        assertEquals(10, histogram.getCount());
+        assertEquals(5, histogram.getMeanNanos());
+        assertEquals(5, histogram.getPercentileNanos(50));
+        assertEquals(9, histogram.getPercentileNanos(90));
+        assertEquals(10, histogram.getPercentileNanos(100));
+        assertEquals(1, histogram.getPercentileNanos(0));
+    }
+
+    @Test
+    public void everyBucketHoldsItsOwnUpperBound() {
+        long previous = -1;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            long upper = LatencyHistogram.upperBound(bucket);
+            assertEquals(bucket, LatencyHistogram.bucketOf(upper));
+            assertEquals(bucket, LatencyHistogram.bucketOf(previous + 1));
+            previous = upper;
+        }
+        assertEquals(MAX_VALUE, previous);
+    }
+
+    @Test
+    public void bucketBoundsStayWithinASixteenth() {
+        for (long value = 16; value <= MAX_VALUE; value = value * 3 / 2 + 1) {
+            long upper = LatencyHistogram.upperBound(LatencyHistogram.bucketOf(value));
+            assertTrue(value + " -> " + upper, upper >= value);
+            assertTrue(value + " -> " + upper, upper - value <= value / 16);
+        }
+    }
+
+    @Test
+    public void percentileIsCappedAtTheLargestValueSeen() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(1000);
+        histogram.record(1000);
+
+        // 1000 falls in a bucket that runs to 1023
+        assertEquals(1023, LatencyHistogram.upperBound(LatencyHistogram.bucketOf(1000)));
+        assertEquals(1000, histogram.getPercentileNanos(99));
+        assertEquals(1000, histogram.getMaxNanos());
+    }
+
+    @Test
+    public void outOfRangeValuesAreClamped() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        assertEquals(2, histogram.getCount());
+        assertEquals(MAX_VALUE, histogram.getMaxNanos());
+        assertEquals(0, histogram.getPercentileNanos(50));
+        assertEquals(MAX_VALUE, histogram.getPercentileNanos(100));
+        assertEquals(MAX_VALUE / 2, histogram.getMeanNanos());
+    }
+
+    @Test
+    public void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.record(123456);
+        histogram.reset();
+
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxNanos());
+        assertEquals(0, histogram.getPercentileNanos(50));
+        histogram.record(7);
+        assertEquals(7, histogram.getPercentileNanos(50));
+    }
+
+    @Test
+    public void concurrentRecordsAreAllCounted() throws InterruptedException {
+        final LatencyHistogram histogram = new LatencyHistogram();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 1; i <= 10000; i++) {
+                    histogram.record(i + offset);
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(40000, histogram.getCount());
+        assertEquals(10003, histogram.getMaxNanos());
+    }
+}
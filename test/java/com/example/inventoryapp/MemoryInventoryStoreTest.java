@@ -0,0 +1,154 @@
+package com.example.inventoryapp;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class MemoryInventoryStoreTest {
+    @Test
+    public void addedItemsAreFoundByIdWithTheDefaultThreshold() {
+        MemoryInventoryStore store = new MemoryInventoryStore();
+        long bolt = store.addInventoryItem("Bolt", 12);
+        long nut = store.addInventoryItem("Nut", 0);
+
+        assertEquals(1, bolt);
+        assertEquals(2, nut);
+        InventoryItem item = store.getInventoryItemById(1);
+        assertEquals("Bolt", item.name);
+        assertEquals(12, item.quantity);
+        assertEquals(InventoryStore.DEFAULT_REORDER_THRESHOLD, item.reorderThreshold);
+        assertNull(store.getInventoryItemById(3));
+        assertEquals(-1, store.addInventoryItem(null, 1));
+        assertEquals(2, store.getInventoryCount());
+    }
+
+    @Test
+    public void nameLookupFoldsAsciiCaseOnly() {
+        MemoryInventoryStore store = new MemoryInventoryStore();
+        store.addInventoryItem("Hex Bolt", 1);
+        store.addInventoryItem("\u00d8 Washer", 2);
+
+        assertEquals(1, store.getInventoryItemByName("HEX bolt").id);
+        assertEquals(2, store.getInventoryItemByName("\u00d8 WASHER").id);
+        // Like NOCASE, non-ASCII letters must match exactly
+        assertNull(store.getInventoryItemByName("\u00f8 washer"));
+        assertNull(store.getInventoryItemByName("Hex Bolts"));
+    }
+
+    @Test
+    public void duplicateNamesResolveToTheLowestLiveId() {
+        MemoryInventoryStore store = new MemoryInventoryStore();
+        store.addInventoryItem("Nut", 1);
+        store.addInventoryItem("NUT", 2);
+        store.addInventoryItem("nut", 3);
+
+        assertEquals(1, store.getInventoryItemByName("nut").id);
+        assertEquals(1, store.deleteInventoryItem(1));
+        assertEquals(2, store.getInventoryItemByName("nut").id);
+        assertEquals(1, store.deleteInventoryItem(2));
+        assertEquals(3, store.getInventoryItemByName("Nut").id);
+        assertEquals(1, store.deleteInventoryItem(3));
+        assertNull(store.getInventoryItemByName("nut"));
+        assertEquals(0, store.deleteInventoryItem(3));
+    }
+
+    @Test
+    public void renamingMovesTheItemBetweenNames() {
+        MemoryInventoryStore store = new MemoryInventoryStore();
+        store.addInventoryItem("Washer", 5);
+        store.addInventoryItem("Spacer", 6);
+
+        assertEquals(1, store.updateInventoryItem(1, "Spacer", 7, 2));
+
+        assertNull(store.getInventoryItemByName("washer"));
+        // The renamed item has the lower id, so it now heads the "spacer" chain
+        InventoryItem item = store.getInventoryItemByName("spacer");
+        assertEquals(1, item.id);
+        assertEquals(7, item.quantity);
+        assertEquals(2, item.reorderThreshold);
+        assertEquals(0, store.updateInventoryItem(9, "Ghost", 1, 1));
+        assertEquals(0, store.updateInventoryItem(1, null, 1, 1));
+    }
+
+    @Test
+    public void adjustQuantityAddsTheDelta() {
+        MemoryInventoryStore store = new MemoryInventoryStore();
+        store.addInventoryItem("Bolt", 10);
+
+        assertEquals(1, store.adjustQuantity(1, -4, "sale"));
+        assertEquals(1, store.adjustQuantity(1, 7, "restock"));
+        assertEquals(13, store.getInventoryItemById(1).quantity);
+        assertEquals(0, store.adjustQuantity(2, 1, "restock"));
+    }
+
+    @Test
+    public void pagesWalkLiveItemsInIdOrder() {
+        MemoryInventoryStore store = new MemoryInventoryStore();
+        for (int i = 0; i < 10; i++) {
+            store.addInventoryItem("Item " + i, i);
+        }
+        store.deleteInventoryItem(2);
+        store.deleteInventoryItem(5);
+
+        InventoryPage first = store.getInventoryPageAfter(0, 4);
+        assertEquals(4, first.size);
+        assertEquals(1, first.ids[0]);
+        assertEquals(3, first.ids[1]);
+        assertEquals(6, first.ids[3]);
+        assertEquals("Item 5", first.names[3]);
+        InventoryPage rest = store.getInventoryPageAfter(first.ids[first.size - 1], 4);
+        assertEquals(4, rest.size);
+        assertEquals(7, rest.ids[0]);
+        assertEquals(10, rest.ids[3]);
+        assertEquals(0, store.getInventoryPageAfter(10, 4).size);
+    }
+
+    @Test
+    public void storeGrowsAndCompactsWithoutLosingItems() {
+        MemoryInventoryStore store = new MemoryInventoryStore();
+        int count = 5000;
+        for (int i = 0; i < count; i++) {
+            store.addInventoryItem("Item " + (i % 1000), i);
+        }
+        // Deleting most of the catalog pushes deleted slots past the compaction threshold
+        for (int id = 1; id <= 4000; id++) {
+            assertEquals(1, store.deleteInventoryItem(id));
+        }
+
+        assertEquals(1000, store.getInventoryCount());
+        assertNull(store.getInventoryItemById(4000));
+        assertEquals(4320, store.getInventoryItemById(4321).quantity);
+        assertEquals(4001, store.getInventoryItemByName("ITEM 0").id);
+        assertEquals(4501, store.getInventoryItemByName("item 500").id);
+        final List<Integer> ids = new ArrayList<>();
+        store.forEachInventoryItem(new InventoryStore.ItemVisitor() {
+            @Override
+            public void visit(int id, String name, int quantity) {
+                ids.add(id);
+            }
+        });
+        assertEquals(1000, ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            assertEquals(4001 + i, (int) ids.get(i));
+        }
+        assertEquals(5001, store.addInventoryItem("Item 0", 1));
+        assertEquals(4001, store.getInventoryItemByName("item 0").id);
+    }
+
+    @Test
+    public void usersAreUniqueAndCheckedByPassword() {
+        MemoryInventoryStore store = new MemoryInventoryStore();
+
+        assertTrue(store.addUser("ana", "secret"));
+        assertFalse(store.addUser("ana", "other"));
+        assertTrue(store.checkUser("ana", "secret"));
+        assertFalse(store.checkUser("ana", "other"));
+        assertFalse(store.checkUser("bo", "secret"));
+    }
+}
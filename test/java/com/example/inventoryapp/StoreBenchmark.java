@@ -0,0 +1,160 @@
+package com.example.inventoryapp;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+// StoreBenchmark times the InventoryStore workloads (add, update, delete, lookup by id and by name,
+// full scan) at several catalog sizes. It lives with the tests, out of the app: main() benchmarks
+// MemoryInventoryStore on any JVM, and a device test can pass a Factory that opens a scratch
+// SQLiteInventoryStore. Each workload is warmed up first, then the median of the measured runs
+// is reported, so results are comparable between builds.
+public final class StoreBenchmark {
+    static final int[] DEFAULT_SIZES = {1_000, 100_000, 1_000_000};
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 5;
+    private static final int MAX_OPERATIONS = 100_000;
+
+    // Creates an empty store for each run; close releases whatever it opened.
+    public interface Factory {
+        InventoryStore create(int expectedItems);
+
+        void close(InventoryStore store);
+    }
+
+    private interface Workload {
+        // Returns the number of operations performed.
+        int run(InventoryStore store, int catalogSize);
+    }
+
+    // Consumed results, so the JIT cannot drop lookups and scans as dead code
+    private static long sink;
+
+    private StoreBenchmark() {
+    }
+
+    public static void main(String[] args) {
+        int[] sizes = DEFAULT_SIZES;
+        if (args.length > 0) {
+            sizes = new int[args.length];
+            for (int i = 0; i < args.length; i++) {
+                sizes[i] = Integer.parseInt(args[i]);
+            }
+        }
+        run(new Factory() {
+            @Override
+            public InventoryStore create(int expectedItems) {
+                return new MemoryInventoryStore(expectedItems);
+            }
+
+            @Override
+            public void close(InventoryStore store) {
+            }
+        }, sizes, System.out);
+    }
+
+    public static void run(Factory factory, int[] sizes, PrintStream out) {
+        for (int size : sizes) {
+            report(out, "add", size, measure(factory, size, false, StoreBenchmark::add));
+            report(out, "update", size, measure(factory, size, true, StoreBenchmark::update));
+            report(out, "delete", size, measure(factory, size, true, StoreBenchmark::delete));
+            report(out, "lookupById", size, measure(factory, size, true, StoreBenchmark::lookupById));
+            report(out, "lookupByName", size, measure(factory, size, true, StoreBenchmark::lookupByName));
+            report(out, "fullScan", size, measure(factory, size, true, StoreBenchmark::fullScan));
+        }
+    }
+
+    // Returns the median ops/sec of the measured runs. Populating the store is not timed.
+    private static double measure(Factory factory, int size, boolean populate, Workload workload) {
+        double[] results = new double[MEASURED_RUNS];
+        for (int run = 0; run < WARMUP_RUNS + MEASURED_RUNS; run++) {
+            InventoryStore store = factory.create(size);
+            try {
+                if (populate) {
+                    populate(store, size);
+                }
+                long start = System.nanoTime();
+                int operations = workload.run(store, size);
+                long elapsed = Math.max(1, System.nanoTime() - start);
+                if (run >= WARMUP_RUNS) {
+                    results[run - WARMUP_RUNS] = operations * 1_000_000_000.0 / elapsed;
+                }
+            } finally {
+                factory.close(store);
+            }
+        }
+        Arrays.sort(results);
+        return results[MEASURED_RUNS / 2];
+    }
+
+    static void populate(InventoryStore store, int count) {
+        for (int i = 0; i < count; i++) {
+            store.addInventoryItem("Item " + i, i % 100);
+        }
+    }
+
+    private static int add(InventoryStore store, int size) {
+        for (int i = 0; i < size; i++) {
+            store.addInventoryItem("Item " + i, i % 100);
+        }
+        return size;
+    }
+
+    private static int update(InventoryStore store, int size) {
+        int operations = Math.min(size, MAX_OPERATIONS);
+        for (int i = 0; i < operations; i++) {
+            int id = pick(i, size);
+            store.updateInventoryItem(id, "Item " + (id - 1), i % 100, InventoryStore.DEFAULT_REORDER_THRESHOLD);
+        }
+        return operations;
+    }
+
+    private static int delete(InventoryStore store, int size) {
+        int operations = Math.min(size, MAX_OPERATIONS);
+        for (int i = 0; i < operations; i++) {
+            sink += store.deleteInventoryItem(pick(i, size));
+        }
+        return operations;
+    }
+
+    private static int lookupById(InventoryStore store, int size) {
+        int operations = Math.min(size, MAX_OPERATIONS);
+        for (int i = 0; i < operations; i++) {
+            InventoryItem item = store.getInventoryItemById(pick(i, size));
+            sink += item == null ? 0 : item.quantity;
+        }
+        return operations;
+    }
+
+    private static int lookupByName(InventoryStore store, int size) {
+        int operations = Math.min(size, MAX_OPERATIONS);
+        for (int i = 0; i < operations; i++) {
+            // Vary the case so case-insensitive matching is exercised
+            String name = (i % 2 == 0 ? "ITEM " : "item ") + (pick(i, size) - 1);
+            InventoryItem item = store.getInventoryItemByName(name);
+            sink += item == null ? 0 : item.quantity;
+        }
+        return operations;
+    }
+
+    private static int fullScan(InventoryStore store, int size) {
+        final long[] total = new long[1];
+        store.forEachInventoryItem(new InventoryStore.ItemVisitor() {
+            @Override
+            public void visit(int id, String name, int quantity) {
+                total[0] += quantity;
+            }
+        });
+        sink += total[0];
+        return size;
+    }
+
+    // A prime stride spreads ids over the catalog and, for sizes it does not divide, visits
+    // each id at most once, so deletes never hit an id twice.
+    private static int pick(int i, int size) {
+        return (int) ((i * 7919L) % size) + 1;
+    }
+
+    private static void report(PrintStream out, String workload, int size, double opsPerSecond) {
+        out.println(String.format("%-13s @%,10d items: %,14.0f ops/sec", workload, size, opsPerSecond));
+    }
+}
@@ -0,0 +1,94 @@
+package com.example.inventoryapp;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class SyncBatchTest {
+    @Test
+    public void pushBatchSurvivesTheRoundTrip() throws IOException {
+        SyncBatch batch = new SyncBatch("device-1", 42, true, Arrays.asList(
+                new SyncChange("g1", false, "Schrauben M4 \u00d8", 12, 7, 3, "4006381333931"),
+                new SyncChange("g2", false, null, -2, 0, 0, null),
+                SyncChange.deletion("g3")));
+
+        SyncBatch read = SyncBatch.fromBytes(batch.toBytes());
+
+        assertEquals("device-1", read.source);
+        assertEquals(42, read.cursor);
+        assertTrue(read.more);
+        assertEquals(3, read.changes.size());
+        SyncChange first = read.changes.get(0);
+        assertEquals("g1", first.globalId);
+        assertFalse(first.deleted);
+        assertEquals("Schrauben M4 \u00d8", first.name);
+        assertEquals(12, first.quantity);
+        assertEquals(7, first.baseQuantity);
+        assertEquals(3, first.reorderThreshold);
+        assertEquals("4006381333931", first.sku);
+        SyncChange second = read.changes.get(1);
+        assertNull(second.name);
+        assertNull(second.sku);
+        assertEquals(-2, second.quantity);
+        SyncChange third = read.changes.get(2);
+        assertEquals("g3", third.globalId);
+        assertTrue(third.deleted);
+    }
+
+    @Test
+    public void pullAnswerHasNoSource() throws IOException {
+        SyncBatch read = SyncBatch.fromBytes(new SyncBatch(null, 0, false, new ArrayList<SyncChange>()).toBytes());
+        assertNull(read.source);
+        assertEquals(0, read.changes.size());
+        assertFalse(read.more);
+    }
+
+    @Test
+    public void repetitiveBatchCompresses() throws IOException {
+        int count = 500;
+        List<SyncChange> changes = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            changes.add(new SyncChange("item-" + i, false, "Widget " + i, i, i, 5, null));
+        }
+        byte[] bytes = new SyncBatch("device-1", 1, false, changes).toBytes();
+        // Each of these records is about 40 bytes before compression
+        assertTrue(bytes.length < count * 20);
+        assertEquals(count, SyncBatch.fromBytes(bytes).changes.size());
+    }
+
+    @Test
+    public void unknownFormatIsRefused() throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new GZIPOutputStream(bytes))) {
+            out.writeInt(99);
+        }
+        try {
+            SyncBatch.fromBytes(bytes.toByteArray());
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+
+    @Test
+    public void truncatedBatchIsRefused() throws IOException {
+        byte[] bytes = new SyncBatch("device-1", 1, false, Arrays.asList(
+                new SyncChange("g1", false, "Bolts", 1, 0, 0, null))).toBytes();
+        try {
+            SyncBatch.fromBytes(Arrays.copyOf(bytes, bytes.length / 2));
+            fail();
+        } catch (IOException expected) {
+        }
+    }
+}
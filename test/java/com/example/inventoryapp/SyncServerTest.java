@@ -0,0 +1,128 @@
+package com.example.inventoryapp;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class SyncServerTest {
+    private SyncServer server;
+
+    @Before
+    public void setUp() {
+        server = new SyncServer();
+    }
+
+    @Test
+    public void quantitiesFromTwoDevicesMergeAsDeltas() throws IOException {
+        push("a", 1, item("g1", "Bolts", 10, 0));
+        // b last agreed on 10 and counted 3 more; a meanwhile sold 4
+        push("b", 1, item("g1", "Bolts", 13, 10));
+        push("a", 2, item("g1", "Bolts", 6, 10));
+
+        SyncChange merged = only(pull(0));
+        assertEquals(9, merged.quantity);
+    }
+
+    @Test
+    public void otherFieldsTakeTheLastPush() throws IOException {
+        push("a", 1, new SyncChange("g1", false, "Bolts", 5, 0, 2, null));
+        push("b", 1, new SyncChange("g1", false, "Hex bolts", 5, 5, 8, null));
+
+        SyncChange merged = only(pull(0));
+        assertEquals("Hex bolts", merged.name);
+        assertEquals(8, merged.reorderThreshold);
+        assertEquals(5, merged.quantity);
+    }
+
+    @Test
+    public void deleteWinsOverALaterEdit() throws IOException {
+        push("a", 1, item("g1", "Bolts", 5, 0));
+        push("b", 1, SyncChange.deletion("g1"));
+        push("a", 2, item("g1", "Bolts", 9, 5));
+
+        assertTrue(only(pull(0)).deleted);
+        assertEquals(0, server.getItemCount());
+    }
+
+    @Test
+    public void tombstoneReachesADeviceThatPulledTheItemBefore() throws IOException {
+        push("a", 1, item("g1", "Bolts", 5, 0), item("g2", "Nuts", 3, 0));
+        SyncBatch first = pull(0);
+        assertEquals(2, first.changes.size());
+
+        push("b", 1, SyncChange.deletion("g1"));
+
+        SyncChange tombstone = only(pull(first.cursor));
+        assertEquals("g1", tombstone.globalId);
+        assertTrue(tombstone.deleted);
+        assertEquals(1, server.getItemCount());
+    }
+
+    @Test
+    public void replayedPushIsAppliedOnce() throws IOException {
+        byte[] batch = new SyncBatch("a", 1, false, Arrays.asList(item("g1", "Bolts", 4, 0))).toBytes();
+        server.push(batch);
+        server.push(batch);
+        // An older batch from the same device is a replay too
+        push("a", 2, item("g1", "Bolts", 6, 4));
+        server.push(batch);
+
+        assertEquals(6, only(pull(0)).quantity);
+    }
+
+    @Test
+    public void pullPagesThroughTheLogOldestFirst() throws IOException {
+        push("a", 1, item("g1", "A", 1, 0), item("g2", "B", 1, 0), item("g3", "C", 1, 0));
+
+        SyncBatch page = SyncBatch.fromBytes(server.pull(0, 2));
+        assertEquals(2, page.changes.size());
+        assertEquals("g1", page.changes.get(0).globalId);
+        assertTrue(page.more);
+
+        SyncBatch rest = SyncBatch.fromBytes(server.pull(page.cursor, 2));
+        assertEquals("g3", only(rest).globalId);
+        assertFalse(rest.more);
+        assertEquals(0, SyncBatch.fromBytes(server.pull(rest.cursor, 2)).changes.size());
+    }
+
+    @Test
+    public void skuMovesToTheLatestItemToClaimIt() throws IOException {
+        push("a", 1, new SyncChange("g1", false, "Bolts", 1, 0, 0, "SKU-1"));
+        SyncBatch first = pull(0);
+        push("b", 1, new SyncChange("g2", false, "New bolts", 1, 0, 0, "SKU-1"));
+
+        SyncBatch changed = pull(first.cursor);
+        assertEquals(2, changed.changes.size());
+        for (SyncChange change : changed.changes) {
+            if (change.globalId.equals("g1")) {
+                assertNull(change.sku);
+            } else {
+                assertEquals("SKU-1", change.sku);
+            }
+        }
+    }
+
+    private static SyncChange item(String globalId, String name, int quantity, int baseQuantity) {
+        return new SyncChange(globalId, false, name, quantity, baseQuantity, 0, null);
+    }
+
+    private void push(String device, long cursor, SyncChange... changes) throws IOException {
+        server.push(new SyncBatch(device, cursor, false, Arrays.asList(changes)).toBytes());
+    }
+
+    private SyncBatch pull(long afterCursor) throws IOException {
+        return SyncBatch.fromBytes(server.pull(afterCursor, 100));
+    }
+
+    private static SyncChange only(SyncBatch batch) {
+        assertEquals(1, batch.changes.size());
+        return batch.changes.get(0);
+    }
+}